@@ -0,0 +1,111 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Check-in seguido de check-out por HTTP com muitos clientes simultâneos,
+ * comparando o Tomcat com threads de plataforma e com threads virtuais (perfil
+ * Spring {@code virtual}). O pool do Hikari tem o mesmo tamanho nos dois modos;
+ * {@code latenciaBancoMs} simula a rede até o Oracle. Use {@code -bm sample}
+ * para ler o p99 e {@code -bm thrpt} para a vazão.
+ *
+ * <p>Threads virtuais só existem a partir do Java 21: em versões anteriores o
+ * Spring ignora {@code spring.threads.virtual.enabled} e os dois modos medem o
+ * mesmo servidor (rode com {@code -Pjava21} num JDK 21).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(256)
+@Fork(1)
+public class CargaHttpBenchmark {
+
+    private static final int POOL_BANCO = 20;
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    @Param({"plataforma", "virtual"})
+    private String modo;
+
+    @Param({"0", "5"})
+    private int latenciaBancoMs;
+
+    private ConfigurableApplicationContext contexto;
+    private HttpClient cliente;
+    private String base;
+    private final AtomicInteger clientes = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        boolean virtual = "virtual".equals(modo);
+        if (virtual && Runtime.version().feature() < 21) {
+            System.err.println("AVISO: Java " + Runtime.version().feature()
+                    + " não tem threads virtuais; o modo 'virtual' roda com threads de plataforma");
+        }
+        contexto = ContextoEmbutido.iniciarWeb("http" + modo + latenciaBancoMs, 1_000_000,
+                ctx -> ctx.getBeanFactory().addBeanPostProcessor(new LatenciaBanco(latenciaBancoMs)),
+                "spring.profiles.active=" + (virtual ? "virtual" : "default"),
+                // O perfil "virtual" lê o pool de DB_POOL_*; sem ele valem as chaves do Hikari
+                "DB_POOL_MAX=" + POOL_BANCO,
+                "spring.datasource.hikari.maximum-pool-size=" + POOL_BANCO,
+                "spring.datasource.hikari.minimum-idle=" + POOL_BANCO,
+                // Sem teto de espera: erros por falta de conexão mascarariam a latência
+                "DB_POOL_TIMEOUT_MS=60000",
+                "spring.datasource.hikari.connection-timeout=60000");
+        base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port") + "/api/tickets/";
+        cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newCachedThreadPool())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    /** Cada thread do JMH é um portão com placas e vagas próprias */
+    @State(Scope.Thread)
+    public static class Portao {
+        int numero = -1;
+        int sequencia;
+    }
+
+    @Benchmark
+    public String checkinCheckout(Portao portao) throws IOException, InterruptedException {
+        if (portao.numero < 0) portao.numero = clientes.getAndIncrement();
+        int n = portao.sequencia++;
+        String corpo = "{\"placa\":\"P" + portao.numero + "-" + n % 1000 + "\",\"vaga\":\"H"
+                + portao.numero + "-" + n + "\",\"tipoTarifa\":\"HORARIA\"}";
+        String ticket = enviar(HttpRequest.newBuilder(URI.create(base + "checkin"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(corpo)));
+        Matcher id = ID.matcher(ticket);
+        if (!id.find()) throw new IllegalStateException("Check-in sem id: " + ticket);
+        return enviar(HttpRequest.newBuilder(URI.create(base + id.group(1) + "/checkout"))
+                .POST(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    private String enviar(HttpRequest.Builder requisicao) throws IOException, InterruptedException {
+        HttpResponse<String> resposta = cliente.send(requisicao.build(), HttpResponse.BodyHandlers.ofString());
+        if (resposta.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + resposta.statusCode() + ": " + resposta.body());
+        }
+        return resposta.body();
+    }
+}
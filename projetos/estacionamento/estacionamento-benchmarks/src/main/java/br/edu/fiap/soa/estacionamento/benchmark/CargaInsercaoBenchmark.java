@@ -0,0 +1,95 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import br.edu.fiap.soa.estacionamento.domain.Reserva;
+import br.edu.fiap.soa.estacionamento.domain.StatusReserva;
+import br.edu.fiap.soa.estacionamento.domain.Veiculo;
+import br.edu.fiap.soa.estacionamento.repository.ReservaRepository;
+import br.edu.fiap.soa.estacionamento.repository.VeiculoRepository;
+import br.edu.fiap.soa.estacionamento.service.LoteEventosService;
+import br.edu.fiap.soa.estacionamento.web.dto.EventoPortaoRequest;
+import br.edu.fiap.soa.estacionamento.web.dto.EventoPortaoRequest.Tipo;
+import br.edu.fiap.soa.estacionamento.web.dto.ResultadoEventoDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Vazão de escrita em rajadas: lote de portão com entradas seguidas das
+ * saídas (INSERT de tickets + UPDATE no fechamento) e gravação de reservas em
+ * massa ({@code saveAll}) numa transação. O parâmetro {@code batchSize} alimenta
+ * {@code hibernate.jdbc.batch_size}; 0 desliga o agrupamento e reproduz o
+ * comportamento anterior às sequences. Os tempos são por linha.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CargaInsercaoBenchmark {
+
+    private static final int RAJADA = 250;
+    private static final int RESERVAS = 500;
+
+    @Param({"0", "50"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext contexto;
+    private LoteEventosService loteEventos;
+    private ReservaRepository reservaRepository;
+    private TransactionTemplate transactionTemplate;
+    private final List<Veiculo> veiculos = new ArrayList<>();
+    private final AtomicInteger rodada = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = ContextoEmbutido.iniciar("carga" + batchSize, 1_000_000,
+                "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+        loteEventos = contexto.getBean(LoteEventosService.class);
+        reservaRepository = contexto.getBean(ReservaRepository.class);
+        transactionTemplate = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+        VeiculoRepository veiculoRepository = contexto.getBean(VeiculoRepository.class);
+        for (int i = 0; i < RAJADA; i++) {
+            veiculos.add(veiculoRepository.save(Veiculo.builder().placa("CAR" + i).build()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAJADA * 2)
+    public List<ResultadoEventoDTO> rajadaPortao() {
+        int n = rodada.getAndIncrement();
+        List<EventoPortaoRequest> eventos = new ArrayList<>(RAJADA * 2);
+        for (int i = 0; i < RAJADA; i++) {
+            eventos.add(EventoPortaoRequest.builder().tipo(Tipo.ENTRADA)
+                    .placa("CAR" + i).vaga("R" + n % 1000 + "-" + i).build());
+        }
+        for (int i = 0; i < RAJADA; i++) {
+            eventos.add(EventoPortaoRequest.builder().tipo(Tipo.SAIDA).placa("CAR" + i).build());
+        }
+        return loteEventos.processar(eventos);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESERVAS)
+    public List<Reserva> reservasEmMassa() {
+        LocalDateTime dia = LocalDateTime.now().plusDays(1 + rodada.getAndIncrement()).withNano(0);
+        List<Reserva> reservas = new ArrayList<>(RESERVAS);
+        for (int i = 0; i < RESERVAS; i++) {
+            reservas.add(Reserva.builder().veiculo(veiculos.get(i % RAJADA)).vaga("M" + i)
+                    .dataInicio(dia).dataFim(dia.plusHours(2)).status(StatusReserva.ATIVA).build());
+        }
+        return transactionTemplate.execute(status -> reservaRepository.saveAll(reservas));
+    }
+}
@@ -0,0 +1,306 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Carga dos portões contra a API já no ar (ex.: {@code mvn -Pperf spring-boot:run}
+ * sobre a massa do {@link GeradorMassa}): check-ins, check-outs e reservas
+ * por HTTP, com vazão e percentis de latência por operação no final.
+ * <p>
+ * A taxa é aberta: as requisições chegam como um processo de Poisson e saem
+ * no horário planejado mesmo que as anteriores ainda não tenham voltado. A
+ * latência conta a partir desse horário, então a fila que se forma quando a
+ * API não acompanha aparece no p99 (sem omissão coordenada).
+ * <p>
+ * Com {@code --dia=N} um dia inteiro, a partir das 6h, é comprimido em N
+ * segundos: a taxa e a proporção entre entradas e saídas seguem o
+ * {@link PerfilDia}. Sem ela a taxa é constante e metade das operações de
+ * portão são entradas.
+ *
+ * <pre>
+ * mvn exec:exec@carga -Dcarga.args="--taxa=300 --duracao=60 --dia=120"
+ * </pre>
+ */
+public final class CargaPortoes {
+
+    enum Operacao { CHECKIN, CHECKOUT, RESERVA }
+
+    private static final int LIMITE_PAGINA = 1000;
+    private static final int HORA_INICIAL = 6;
+
+    private final String base;
+    private final HttpClient cliente;
+    private final ObjectMapper json = new ObjectMapper();
+    private final int veiculos;
+    private final List<String> vagasReserva = new ArrayList<>();
+    private final ConcurrentLinkedQueue<String> vagasLivres = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> abertos = new ConcurrentLinkedQueue<>();
+    private final Set<String> estacionadas = ConcurrentHashMap.newKeySet();
+    private final Map<Operacao, Registro> registros = new EnumMap<>(Operacao.class);
+    private final AtomicInteger reservasFeitas = new AtomicInteger();
+    // Reservas desta execução começam num dia distante e sorteado, longe das de outras execuções
+    private final LocalDateTime baseReservas = LocalDateTime.now().toLocalDate()
+            .plusDays(30 + new Random().nextInt(30_000)).atTime(8, 0);
+
+    private CargaPortoes(String base, int clientes, int veiculos) {
+        this.base = base;
+        this.veiculos = veiculos;
+        this.cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(clientes))
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        for (Operacao operacao : Operacao.values()) {
+            registros.put(operacao, new Registro());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Opcoes opcoes = new Opcoes(args);
+        double taxa = opcoes.decimal("taxa", 200);
+        int duracao = opcoes.inteiro("duracao", 60);
+        int aquecimento = opcoes.inteiro("aquecimento", 10);
+        int clientes = opcoes.inteiro("clientes", 64);
+        double dia = opcoes.decimal("dia", 0);
+        double fracaoReservas = opcoes.decimal("reservas", 0.05);
+
+        CargaPortoes carga = new CargaPortoes(opcoes.texto("url", "http://localhost:8080"), clientes,
+                opcoes.inteiro("veiculos", 200_000));
+        carga.carregarEstado(opcoes.texto("setores", "A,B,C,D").split(","), opcoes.texto("setor-reserva", "R"));
+        System.out.printf("Estado inicial: %d tickets abertos, %d vagas livres, %d vagas de reserva%n",
+                carga.abertos.size(), carga.vagasLivres.size(), carga.vagasReserva.size());
+        System.out.printf("Carga: %.0f req/s por %ds (+%ds de aquecimento), até %d requisições simultâneas%s%n",
+                taxa, duracao, aquecimento, clientes, dia > 0 ? String.format(", dia em %.0fs", dia) : "");
+
+        ExecutorService executor = Executors.newFixedThreadPool(clientes);
+        long inicio = System.nanoTime();
+        long inicioMedicao = inicio + TimeUnit.SECONDS.toNanos(aquecimento);
+        long fim = inicioMedicao + TimeUnit.SECONDS.toNanos(duracao);
+        Random aleatorio = new Random();
+        double deslocamento = 0;
+        while (true) {
+            long planejado = inicio + (long) deslocamento;
+            if (planejado >= fim) break;
+            for (long espera = planejado - System.nanoTime(); espera > 0; espera = planejado - System.nanoTime()) {
+                LockSupport.parkNanos(espera);
+            }
+            double hora = dia > 0 ? (HORA_INICIAL + 24 * (planejado - inicio) / (dia * 1e9)) % 24 : -1;
+            Operacao operacao = carga.escolher(aleatorio, hora, fracaoReservas);
+            boolean medir = planejado >= inicioMedicao;
+            executor.execute(() -> carga.executar(operacao, planejado, medir));
+            double taxaAgora = hora < 0 ? taxa
+                    : taxa * 12 * (PerfilDia.densidadeEntradas(hora) + PerfilDia.densidadeSaidas(hora));
+            deslocamento += -Math.log(1 - aleatorio.nextDouble()) / Math.max(taxaAgora, 0.1) * 1e9;
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(2, TimeUnit.MINUTES)) {
+            System.out.println("AVISO: requisições ainda pendentes após 2 minutos; resultado parcial");
+        }
+        carga.relatar(duracao);
+        System.exit(0);
+    }
+
+    /** Tickets abertos e vagas livres atuais, para começar de um estado coerente com o banco */
+    private void carregarEstado(String[] setores, String setorReserva) throws IOException, InterruptedException {
+        Long cursor = null;
+        do {
+            JsonNode pagina = obter("/api/tickets/abertos?limite=" + LIMITE_PAGINA + (cursor != null ? "&apos=" + cursor : ""));
+            for (JsonNode ticket : pagina.get("itens")) {
+                abertos.add(ticket.get("id").asLong());
+                estacionadas.add(ticket.get("placa").asText());
+            }
+            cursor = pagina.hasNonNull("proximoCursor") ? pagina.get("proximoCursor").asLong() : null;
+        } while (cursor != null);
+        for (String setor : setores) {
+            obter("/api/vagas/livres?limite=" + LIMITE_PAGINA + "&setor=" + setor.trim())
+                    .forEach(vaga -> vagasLivres.add(vaga.asText()));
+        }
+        obter("/api/vagas/livres?limite=" + LIMITE_PAGINA + "&setor=" + setorReserva)
+                .forEach(vaga -> vagasReserva.add(vaga.asText()));
+    }
+
+    private Operacao escolher(Random aleatorio, double hora, double fracaoReservas) {
+        if (!vagasReserva.isEmpty() && aleatorio.nextDouble() < fracaoReservas) return Operacao.RESERVA;
+        if (vagasLivres.isEmpty()) return Operacao.CHECKOUT;
+        if (abertos.isEmpty()) return Operacao.CHECKIN;
+        double entradas = hora < 0 ? 0.5 : PerfilDia.densidadeEntradas(hora)
+                / (PerfilDia.densidadeEntradas(hora) + PerfilDia.densidadeSaidas(hora));
+        return aleatorio.nextDouble() < entradas ? Operacao.CHECKIN : Operacao.CHECKOUT;
+    }
+
+    private void executar(Operacao operacao, long planejado, boolean medir) {
+        HttpResponse<String> resposta;
+        try {
+            resposta = switch (operacao) {
+                case CHECKIN -> checkIn();
+                case CHECKOUT -> checkOut();
+                case RESERVA -> reservar();
+            };
+        } catch (IOException e) {
+            if (medir) registros.get(operacao).erro(-1, e.toString());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!medir || resposta == null) return;
+        long latencia = System.nanoTime() - planejado;
+        Registro registro = registros.get(operacao);
+        if (resposta.statusCode() / 100 == 2) registro.sucesso(latencia);
+        else registro.erro(resposta.statusCode(), resposta.body());
+    }
+
+    /** @return resposta; nula quando não havia o que fazer (sem vaga livre ou ticket aberto) */
+    private HttpResponse<String> checkIn() throws IOException, InterruptedException {
+        String vaga = vagasLivres.poll();
+        if (vaga == null) return null;
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        String placa;
+        do {
+            // Frequentes da massa e, em 20% das entradas, veículos novos
+            placa = GeradorMassa.placa(aleatorio.nextDouble() < 0.8 ? GeradorMassa.frequente(aleatorio, veiculos)
+                    : veiculos + aleatorio.nextInt(veiculos * 9));
+        } while (!estacionadas.add(placa));
+        String tarifa = aleatorio.nextDouble() < 0.3 ? "FRACAO_30MIN" : aleatorio.nextDouble() < 0.8 ? "HORARIA" : "DIARIA";
+        HttpResponse<String> resposta = enviar("/api/tickets/checkin",
+                "{\"placa\":\"" + placa + "\",\"vaga\":\"" + vaga + "\",\"tipoTarifa\":\"" + tarifa + "\"}");
+        if (resposta.statusCode() == 200) {
+            abertos.add(json.readTree(resposta.body()).get("id").asLong());
+        } else {
+            vagasLivres.add(vaga);
+            estacionadas.remove(placa);
+        }
+        return resposta;
+    }
+
+    private HttpResponse<String> checkOut() throws IOException, InterruptedException {
+        Long id = abertos.poll();
+        if (id == null) return null;
+        HttpResponse<String> resposta = enviar("/api/tickets/" + id + "/checkout", null);
+        if (resposta.statusCode() == 200) {
+            JsonNode ticket = json.readTree(resposta.body());
+            vagasLivres.add(ticket.get("vaga").asText());
+            estacionadas.remove(ticket.get("placa").asText());
+        }
+        return resposta;
+    }
+
+    private HttpResponse<String> reservar() throws IOException, InterruptedException {
+        // Cada reserva numa janela de 2h distinta (vaga, dia, horário): nenhuma conflita
+        int k = reservasFeitas.getAndIncrement();
+        int janela = k / vagasReserva.size();
+        LocalDateTime inicio = baseReservas.plusDays(janela / 6).plusHours(2L * (janela % 6));
+        String placa = GeradorMassa.placa(GeradorMassa.frequente(ThreadLocalRandom.current(), veiculos));
+        return enviar("/api/reservas", "{\"placa\":\"" + placa + "\",\"vaga\":\"" + vagasReserva.get(k % vagasReserva.size())
+                + "\",\"dataInicio\":\"" + inicio + "\",\"dataFim\":\"" + inicio.plusHours(2) + "\"}");
+    }
+
+    private JsonNode obter(String caminho) throws IOException, InterruptedException {
+        HttpResponse<String> resposta = cliente.send(HttpRequest.newBuilder(URI.create(base + caminho)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (resposta.statusCode() != 200) {
+            throw new IllegalStateException("GET " + caminho + ": HTTP " + resposta.statusCode() + " " + resposta.body());
+        }
+        return json.readTree(resposta.body());
+    }
+
+    private HttpResponse<String> enviar(String caminho, String corpo) throws IOException, InterruptedException {
+        HttpRequest.Builder requisicao = HttpRequest.newBuilder(URI.create(base + caminho)).timeout(Duration.ofSeconds(30));
+        if (corpo == null) {
+            requisicao.POST(HttpRequest.BodyPublishers.noBody());
+        } else {
+            requisicao.header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(corpo));
+        }
+        return cliente.send(requisicao.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void relatar(int duracao) {
+        System.out.printf("%n%-9s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "operacao", "ok", "erros", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Registro total = new Registro();
+        registros.forEach((operacao, registro) -> {
+            linha(operacao.name().toLowerCase(), registro, duracao);
+            total.somar(registro);
+        });
+        linha("total", total, duracao);
+        registros.forEach((operacao, registro) -> {
+            if (!registro.erros.isEmpty()) {
+                System.out.printf("erros em %s por status HTTP (-1 = falha de conexão): %s%n",
+                        operacao.name().toLowerCase(), registro.erros);
+                registro.exemplos.forEach((status, corpo) -> System.out.printf("  %d: %s%n", status, corpo));
+            }
+        });
+    }
+
+    private static void linha(String nome, Registro registro, int duracao) {
+        long[] latencias = registro.ordenadas();
+        System.out.printf("%-9s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", nome, latencias.length,
+                registro.totalErros(), (double) latencias.length / duracao, percentil(latencias, 0.50),
+                percentil(latencias, 0.90), percentil(latencias, 0.99), percentil(latencias, 0.999),
+                percentil(latencias, 1.0));
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) return 0;
+        int indice = (int) Math.ceil(p * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, indice)] / 1e6;
+    }
+
+    /** Latências (ns) das respostas 2xx, contagem de erros por status e a primeira resposta de cada status */
+    private static final class Registro {
+        private long[] latencias = new long[1 << 14];
+        private int quantidade;
+        private final Map<Integer, Long> erros = new TreeMap<>();
+        private final Map<Integer, String> exemplos = new TreeMap<>();
+
+        synchronized void sucesso(long nanos) {
+            if (quantidade == latencias.length) latencias = Arrays.copyOf(latencias, quantidade * 2);
+            latencias[quantidade++] = nanos;
+        }
+
+        synchronized void erro(int status, String corpo) {
+            erros.merge(status, 1L, Long::sum);
+            exemplos.putIfAbsent(status, corpo);
+        }
+
+        synchronized void somar(Registro outro) {
+            for (long latencia : outro.ordenadas()) sucesso(latencia);
+            outro.erros.forEach((status, n) -> erros.merge(status, n, Long::sum));
+        }
+
+        synchronized long totalErros() {
+            return erros.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        synchronized long[] ordenadas() {
+            long[] copia = Arrays.copyOf(latencias, quantidade);
+            Arrays.sort(copia);
+            return copia;
+        }
+    }
+}
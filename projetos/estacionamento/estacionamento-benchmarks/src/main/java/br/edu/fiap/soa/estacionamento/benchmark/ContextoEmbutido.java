@@ -0,0 +1,61 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import br.edu.fiap.soa.estacionamento.EstacionamentoApplication;
+import br.edu.fiap.soa.estacionamento.service.EstacionamentoService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+
+/**
+ * Sobe a aplicação sobre um H2 em memória (modo Oracle), sem camada web ou
+ * com Tomcat numa porta livre
+ */
+final class ContextoEmbutido {
+
+    private ContextoEmbutido() {
+    }
+
+    static ConfigurableApplicationContext iniciar(String banco, int totalVagas, String... propriedades) {
+        return iniciar(WebApplicationType.NONE, banco, totalVagas, ctx -> { }, propriedades);
+    }
+
+    static ConfigurableApplicationContext iniciar(String banco, int totalVagas,
+            ApplicationContextInitializer<ConfigurableApplicationContext> inicializador, String... propriedades) {
+        return iniciar(WebApplicationType.NONE, banco, totalVagas, inicializador, propriedades);
+    }
+
+    /** Sobe com Tomcat em porta aleatória, lida depois em {@code local.server.port} */
+    static ConfigurableApplicationContext iniciarWeb(String banco, int totalVagas,
+            ApplicationContextInitializer<ConfigurableApplicationContext> inicializador, String... propriedades) {
+        return iniciar(WebApplicationType.SERVLET, banco, totalVagas, inicializador, propriedades);
+    }
+
+    private static ConfigurableApplicationContext iniciar(WebApplicationType tipo, String banco, int totalVagas,
+            ApplicationContextInitializer<ConfigurableApplicationContext> inicializador, String... propriedades) {
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(EstacionamentoApplication.class)
+                .web(tipo)
+                .initializers(inicializador)
+                .logStartupInfo(false)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:" + banco + ";MODE=Oracle;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "logging.level.root=WARN",
+                        // Jobs agendados fora do caminho medido
+                        "estacionamento.rollup.intervalo-ms=3600000",
+                        "estacionamento.rollup.margem-segundos=0",
+                        "estacionamento.ocupacao.reconciliacao-ms=3600000",
+                        "estacionamento.config.verificacao-ms=3600000",
+                        "estacionamento.reservas.reconstrucao-ms=3600000",
+                        "estacionamento.reservas.expiracao.varredura-ms=3600000")
+                .properties(propriedades)
+                .run();
+        contexto.getBean(EstacionamentoService.class).salvarConfiguracao(totalVagas,
+                new BigDecimal("4.00"), new BigDecimal("8.00"), new BigDecimal("30.00"), new BigDecimal("200.00"));
+        return contexto;
+    }
+}
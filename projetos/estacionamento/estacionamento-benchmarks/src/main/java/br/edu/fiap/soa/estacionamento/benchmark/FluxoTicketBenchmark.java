@@ -0,0 +1,48 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import br.edu.fiap.soa.estacionamento.domain.Ticket;
+import br.edu.fiap.soa.estacionamento.domain.TipoTarifa;
+import br.edu.fiap.soa.estacionamento.service.TicketService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Check-in seguido de check-out, ponta a ponta, contra um H2 em memória
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FluxoTicketBenchmark {
+
+    private static final int PLACAS = 5_000;
+    private static final int VAGAS = 100_000;
+
+    private ConfigurableApplicationContext contexto;
+    private TicketService ticketService;
+    private final AtomicInteger sequencia = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = ContextoEmbutido.iniciar("fluxo", VAGAS);
+        ticketService = contexto.getBean(TicketService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Ticket checkInCheckOut() {
+        int n = sequencia.getAndIncrement();
+        Ticket ticket = ticketService.checkIn("BEN" + (n % PLACAS), "Modelo", "Cor", "V" + (n % VAGAS),
+                TipoTarifa.HORARIA);
+        return ticketService.checkOut(ticket.getId());
+    }
+}
@@ -0,0 +1,287 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import br.edu.fiap.soa.estacionamento.EstacionamentoApplication;
+import br.edu.fiap.soa.estacionamento.domain.StatusReserva;
+import br.edu.fiap.soa.estacionamento.domain.TicketStatus;
+import br.edu.fiap.soa.estacionamento.domain.TipoTarifa;
+import br.edu.fiap.soa.estacionamento.service.EstacionamentoService;
+import br.edu.fiap.soa.estacionamento.service.MapaVagas;
+import br.edu.fiap.soa.estacionamento.service.RollupService;
+import br.edu.fiap.soa.estacionamento.service.TarifaService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Popula o banco do perfil Spring {@code perf} (H2 em arquivo, modo Oracle)
+ * com uma massa de volume realista, apagando o que havia:
+ * <ul>
+ *   <li>veículos com poucos clientes frequentes e uma cauda longa de avulsos;</li>
+ *   <li>tickets nos últimos {@code dias}, com entradas pelo {@link PerfilDia},
+ *       menos movimento no fim de semana e permanência conforme a tarifa;</li>
+ *   <li>tickets cuja saída ainda não chegou ficam abertos, um por vaga e por veículo;</li>
+ *   <li>reservas passadas no setor de reservas e reservas ativas para a próxima semana.</li>
+ * </ul>
+ * Ao final acerta as sequências e processa os rollups dos relatórios. O
+ * registro de eventos não é populado.
+ *
+ * <pre>
+ * mvn exec:exec@massa -Dmassa.args="--tickets=2000000 --veiculos=200000 --reservas=300000 --dias=90"
+ * </pre>
+ */
+public final class GeradorMassa {
+
+    private static final int LOTE = 10_000;
+    private static final String[] MODELOS = {"Onix", "HB20", "Gol", "Corolla", "Compass", "Strada", "Kwid", "T-Cross"};
+    private static final String[] CORES = {"Prata", "Preto", "Branco", "Cinza", "Vermelho", "Azul"};
+    // Reservas ativas: janelas de 2h entre 8h e 20h nos próximos 7 dias
+    private static final int DIAS_FUTUROS = 7;
+    private static final int JANELAS_POR_DIA = 6;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transacao;
+    private final TarifaService tarifaService;
+    private final Random aleatorio;
+    private final LocalDateTime agora = LocalDateTime.now();
+    private final List<String> vagasPortao = new ArrayList<>();
+    private final List<String> vagasReserva = new ArrayList<>();
+
+    private GeradorMassa(ConfigurableApplicationContext contexto, Random aleatorio) {
+        this.jdbc = contexto.getBean(JdbcTemplate.class);
+        this.transacao = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+        this.tarifaService = contexto.getBean(TarifaService.class);
+        this.aleatorio = aleatorio;
+    }
+
+    public static void main(String[] args) throws SQLException {
+        Opcoes opcoes = new Opcoes(args);
+        int tickets = opcoes.inteiro("tickets", 2_000_000);
+        int veiculos = opcoes.inteiro("veiculos", 200_000);
+        int reservas = opcoes.inteiro("reservas", 300_000);
+        int dias = opcoes.inteiro("dias", 90);
+        String setorReserva = opcoes.texto("setor-reserva", "R");
+        String banco = opcoes.texto("banco", "../estacionamento-soa-springboot/dados/perf");
+
+        apagar(banco);
+        long inicio = System.nanoTime();
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(EstacionamentoApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("perf")
+                .logStartupInfo(false)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "PERF_BANCO=" + banco,
+                        "logging.level.root=WARN",
+                        // Nenhum job disputando o banco durante a carga
+                        "estacionamento.rollup.intervalo-ms=3600000",
+                        "estacionamento.ocupacao.reconciliacao-ms=3600000",
+                        "estacionamento.config.verificacao-ms=3600000",
+                        "estacionamento.reservas.reconstrucao-ms=3600000",
+                        "estacionamento.reservas.expiracao.varredura-ms=3600000")
+                .run()) {
+            GeradorMassa gerador = new GeradorMassa(contexto, new Random(opcoes.inteiro("semente", 42)));
+            gerador.separarVagas(contexto.getBean(MapaVagas.class).listarLivres(null, Integer.MAX_VALUE), setorReserva);
+            contexto.getBean(EstacionamentoService.class).salvarConfiguracao(
+                    gerador.vagasPortao.size() + gerador.vagasReserva.size(),
+                    new BigDecimal("4.00"), new BigDecimal("8.00"), new BigDecimal("30.00"), new BigDecimal("200.00"));
+
+            gerador.inserirVeiculos(veiculos);
+            log(inicio, "%d veículos", veiculos);
+            int abertos = gerador.inserirTickets(tickets, veiculos, dias);
+            log(inicio, "tickets gerados (%d abertos)", abertos);
+            gerador.inserirReservas(reservas, veiculos, dias);
+            log(inicio, "reservas geradas");
+            gerador.reiniciarSequencia("seq_veiculo", "veiculo");
+            gerador.reiniciarSequencia("seq_ticket", "ticket");
+            gerador.reiniciarSequencia("seq_reserva", "reserva");
+            contexto.getBean(RollupService.class).atualizar();
+            log(inicio, "rollups processados; banco em %s", banco);
+        }
+    }
+
+    /** Placa do veículo de índice {@code i} (mesma regra usada pela {@link CargaPortoes}) */
+    static String placa(int i) {
+        char[] letras = new char[4];
+        int resto = i / 1000;
+        for (int p = 3; p >= 0; p--) {
+            letras[p] = (char) ('A' + resto % 26);
+            resto /= 26;
+        }
+        int numero = i % 1000;
+        return "" + letras[0] + letras[1] + letras[2] + numero / 100 + letras[3] + String.format("%02d", numero % 100);
+    }
+
+    /** Índice de veículo com clientes frequentes: ~20% dos usos vêm de 1% dos veículos */
+    static int frequente(Random aleatorio, int veiculos) {
+        return (int) (veiculos * Math.pow(aleatorio.nextDouble(), 3));
+    }
+
+    private void separarVagas(List<String> vagas, String setorReserva) {
+        if (vagas.isEmpty()) {
+            throw new IllegalStateException("Nenhuma vaga conhecida: configure estacionamento.vagas (perfil perf)");
+        }
+        for (String vaga : vagas) {
+            (vaga.replaceAll("\\d+$", "").equalsIgnoreCase(setorReserva) ? vagasReserva : vagasPortao).add(vaga);
+        }
+        if (vagasPortao.isEmpty() || vagasReserva.isEmpty()) {
+            throw new IllegalStateException("O layout precisa de vagas de portão e do setor de reservas " + setorReserva);
+        }
+    }
+
+    private void inserirVeiculos(int total) {
+        List<Object[]> linhas = new ArrayList<>(LOTE);
+        for (int i = 0; i < total; i++) {
+            linhas.add(new Object[]{i + 1L, placa(i), MODELOS[aleatorio.nextInt(MODELOS.length)],
+                    CORES[aleatorio.nextInt(CORES.length)],
+                    Timestamp.valueOf(agora.minusDays(aleatorio.nextInt(730)).minusMinutes(aleatorio.nextInt(1440)))});
+            if (linhas.size() == LOTE) gravar("INSERT INTO veiculo (id, placa, modelo, cor, data_cadastro) VALUES (?, ?, ?, ?, ?)", linhas);
+        }
+        gravar("INSERT INTO veiculo (id, placa, modelo, cor, data_cadastro) VALUES (?, ?, ?, ?, ?)", linhas);
+    }
+
+    /**
+     * @return quantidade de tickets que ficaram abertos
+     */
+    private int inserirTickets(int total, int veiculos, int dias) {
+        String sql = "INSERT INTO ticket (id, veiculo_id, vaga, entrada, saida, valor, status, tipo_tarifa) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        LocalDate hoje = agora.toLocalDate();
+        double pesoTotal = 0;
+        for (int d = 0; d < dias; d++) {
+            pesoTotal += PerfilDia.fatorDiaSemana(hoje.minusDays(d).getDayOfWeek());
+        }
+        List<String> embaralhadas = new ArrayList<>(vagasPortao);
+        Collections.shuffle(embaralhadas, aleatorio);
+        Deque<String> livres = new ArrayDeque<>(embaralhadas);
+        Set<Integer> estacionados = new HashSet<>();
+        List<Object[]> linhas = new ArrayList<>(LOTE);
+        long id = 0;
+        int abertos = 0;
+        for (int d = dias - 1; d >= 0; d--) {
+            LocalDate dia = hoje.minusDays(d);
+            int quantidade = (int) Math.round(total * PerfilDia.fatorDiaSemana(dia.getDayOfWeek()) / pesoTotal);
+            List<LocalDateTime> entradas = new ArrayList<>(quantidade);
+            for (int i = 0; i < quantidade; i++) {
+                LocalDateTime entrada = dia.atStartOfDay().plusSeconds((long) (PerfilDia.sortearHoraEntrada(aleatorio) * 3600));
+                if (!entrada.isAfter(agora)) entradas.add(entrada);
+            }
+            // Ids crescem com a entrada, como na operação real
+            entradas.sort(Comparator.naturalOrder());
+            for (LocalDateTime entrada : entradas) {
+                int veiculo = frequente(aleatorio, veiculos);
+                TipoTarifa tarifa = sortearTarifa();
+                LocalDateTime saida = entrada.plusMinutes(permanenciaMinutos(tarifa));
+                String vaga;
+                if (saida.isAfter(agora) && !livres.isEmpty() && estacionados.add(veiculo)) {
+                    vaga = livres.poll();
+                    linhas.add(new Object[]{++id, veiculo + 1L, vaga, Timestamp.valueOf(entrada), null, null,
+                            TicketStatus.ABERTO.name(), tarifa.name()});
+                    abertos++;
+                } else {
+                    if (saida.isAfter(agora)) saida = agora;
+                    vaga = vagasPortao.get(aleatorio.nextInt(vagasPortao.size()));
+                    linhas.add(new Object[]{++id, veiculo + 1L, vaga, Timestamp.valueOf(entrada), Timestamp.valueOf(saida),
+                            tarifaService.calcularValor(entrada, saida, tarifa), TicketStatus.FECHADO.name(), tarifa.name()});
+                }
+                if (linhas.size() == LOTE) gravar(sql, linhas);
+            }
+        }
+        gravar(sql, linhas);
+        return abertos;
+    }
+
+    private void inserirReservas(int total, int veiculos, int dias) {
+        String sql = "INSERT INTO reserva (id, veiculo_id, vaga, data_reserva, data_inicio, data_fim, status) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        List<Object[]> linhas = new ArrayList<>(LOTE);
+        int ativas = Math.min(total / 50, vagasReserva.size() * JANELAS_POR_DIA * DIAS_FUTUROS);
+        long id = 0;
+        for (int i = 0; i < total - ativas; i++) {
+            LocalDateTime inicio = agora.toLocalDate().minusDays(1 + aleatorio.nextInt(dias)).atStartOfDay()
+                    .plusSeconds((long) (PerfilDia.sortearHoraEntrada(aleatorio) * 3600));
+            double r = aleatorio.nextDouble();
+            StatusReserva status = r < 0.60 ? StatusReserva.UTILIZADA : r < 0.85 ? StatusReserva.EXPIRADA : StatusReserva.CANCELADA;
+            linhas.add(reserva(++id, frequente(aleatorio, veiculos), vagasReserva.get(aleatorio.nextInt(vagasReserva.size())),
+                    inicio, inicio.plusMinutes(60 + aleatorio.nextInt(180)), status));
+            if (linhas.size() == LOTE) gravar(sql, linhas);
+        }
+        // Ativas sem conflito: cada uma ocupa uma janela distinta de uma vaga do setor
+        LocalDateTime amanha = agora.toLocalDate().plusDays(1).atTime(8, 0);
+        for (int k = 0; k < ativas; k++) {
+            int janela = k / vagasReserva.size();
+            LocalDateTime inicio = amanha.plusDays(janela / JANELAS_POR_DIA).plusHours(2L * (janela % JANELAS_POR_DIA));
+            linhas.add(reserva(++id, frequente(aleatorio, veiculos), vagasReserva.get(k % vagasReserva.size()),
+                    inicio, inicio.plusHours(2), StatusReserva.ATIVA));
+            if (linhas.size() == LOTE) gravar(sql, linhas);
+        }
+        gravar(sql, linhas);
+    }
+
+    private Object[] reserva(long id, int veiculo, String vaga, LocalDateTime inicio, LocalDateTime fim, StatusReserva status) {
+        LocalDateTime feita = inicio.minusHours(1 + aleatorio.nextInt(72));
+        return new Object[]{id, veiculo + 1L, vaga, Timestamp.valueOf(feita), Timestamp.valueOf(inicio),
+                Timestamp.valueOf(fim), status.name()};
+    }
+
+    private TipoTarifa sortearTarifa() {
+        double r = aleatorio.nextDouble();
+        return r < 0.25 ? TipoTarifa.FRACAO_30MIN : r < 0.75 ? TipoTarifa.HORARIA
+                : r < 0.90 ? TipoTarifa.DIARIA : TipoTarifa.MENSAL;
+    }
+
+    // Log-normal pela mediana de cada tarifa: avulsos ficam pouco, diaristas e mensalistas o expediente
+    private long permanenciaMinutos(TipoTarifa tarifa) {
+        double[] parametros = switch (tarifa) {
+            case FRACAO_30MIN -> new double[]{35, 0.5};
+            case HORARIA -> new double[]{150, 0.6};
+            case DIARIA -> new double[]{540, 0.25};
+            case MENSAL -> new double[]{560, 0.2};
+        };
+        double minutos = parametros[0] * Math.exp(aleatorio.nextGaussian() * parametros[1]);
+        return Math.max(5, Math.min(23 * 60 + 50, Math.round(minutos)));
+    }
+
+    private void gravar(String sql, List<Object[]> linhas) {
+        if (linhas.isEmpty()) return;
+        transacao.executeWithoutResult(status -> jdbc.batchUpdate(sql, linhas));
+        linhas.clear();
+    }
+
+    // Com allocationSize 50, a folga evita que o primeiro bloco do Hibernate colida com a massa
+    private void reiniciarSequencia(String sequencia, String tabela) {
+        Long maior = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabela, Long.class);
+        jdbc.execute("ALTER SEQUENCE " + sequencia + " RESTART WITH " + (maior + 100));
+    }
+
+    private static void apagar(String banco) throws SQLException {
+        try (Connection conexao = DriverManager.getConnection("jdbc:h2:file:" + banco + ";MODE=Oracle", "sa", "");
+             Statement comando = conexao.createStatement()) {
+            comando.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    private static void log(long inicio, String formato, Object... argumentos) {
+        System.out.printf("[%5.1fs] %s%n", (System.nanoTime() - inicio) / 1e9, String.format(formato, argumentos));
+    }
+}
@@ -0,0 +1,64 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simula a ida e volta de rede do Oracle sobre o H2 em memória: cada execução
+ * de comando espera {@code latenciaMs} antes de chegar ao banco. A espera
+ * bloqueia a thread como um socket JDBC, que é o que diferencia threads de
+ * plataforma e virtuais.
+ */
+final class LatenciaBanco implements BeanPostProcessor {
+
+    private final long latenciaNanos;
+
+    LatenciaBanco(long latenciaMs) {
+        this.latenciaNanos = latenciaMs * 1_000_000L;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (latenciaNanos == 0 || !(bean instanceof DataSource dataSource)) return bean;
+        return proxy(DataSource.class, dataSource);
+    }
+
+    private <T> T proxy(Class<T> tipo, T alvo) {
+        InvocationHandler handler = (p, metodo, args) -> {
+            if (alvo instanceof Statement && metodo.getName().startsWith("execute")) {
+                LockSupport.parkNanos(latenciaNanos);
+            }
+            Object resultado = invocar(alvo, metodo, args);
+            if (resultado instanceof Connection conexao) return proxy(Connection.class, conexao);
+            if (resultado instanceof Statement comando) return proxyComando(comando);
+            return resultado;
+        };
+        return tipo.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{tipo}, handler));
+    }
+
+    private Statement proxyComando(Statement comando) {
+        // Mantém a interface mais específica (PreparedStatement/CallableStatement) usada pelo Hibernate
+        Class<?> tipo = comando instanceof java.sql.CallableStatement ? java.sql.CallableStatement.class
+                : comando instanceof java.sql.PreparedStatement ? java.sql.PreparedStatement.class
+                : Statement.class;
+        @SuppressWarnings("unchecked")
+        Class<Statement> tipoComando = (Class<Statement>) tipo;
+        return proxy(tipoComando, comando);
+    }
+
+    private static Object invocar(Object alvo, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(alvo, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
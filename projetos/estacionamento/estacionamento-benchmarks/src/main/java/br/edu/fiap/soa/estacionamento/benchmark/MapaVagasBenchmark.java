@@ -0,0 +1,72 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import br.edu.fiap.soa.estacionamento.repository.ReservaRepository;
+import br.edu.fiap.soa.estacionamento.service.IndiceReservas;
+import br.edu.fiap.soa.estacionamento.service.MapaVagas;
+import br.edu.fiap.soa.estacionamento.web.dto.VagaStatusDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consultas do mapa de vagas em memória: 10 setores de 200 vagas, 90% ocupadas
+ * (o pior caso para achar vaga livre), sem reservas
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapaVagasBenchmark {
+
+    private static final int AMOSTRAS = 1024;
+
+    private MapaVagas mapa;
+    private final String[] vagas = new String[AMOSTRAS];
+    private int proxima;
+
+    @Setup
+    public void preparar() {
+        ReservaRepository reservas = Stubs.repositorio(ReservaRepository.class,
+                Map.of("findIntervalosAtivos", args -> List.of()));
+        mapa = new MapaVagas(new IndiceReservas(reservas),
+                "A1-A200,B1-B200,C1-C200,D1-D200,E1-E200,F1-F200,G1-G200,H1-H200,I1-I200,J1-J200");
+        SplittableRandom random = new SplittableRandom(7);
+        for (char setor = 'A'; setor <= 'J'; setor++) {
+            for (int n = 1; n <= 200; n++) {
+                if (random.nextInt(10) < 9) mapa.ocupar(setor + String.valueOf(n));
+            }
+        }
+        for (int i = 0; i < AMOSTRAS; i++) {
+            vagas[i] = (char) ('A' + random.nextInt(10)) + String.valueOf(1 + random.nextInt(200));
+        }
+    }
+
+    private String proximaVaga() {
+        return vagas[proxima++ & (AMOSTRAS - 1)];
+    }
+
+    @Benchmark
+    public boolean ocupada() {
+        return mapa.isOcupada(proximaVaga());
+    }
+
+    @Benchmark
+    public VagaStatusDTO consultar() {
+        return mapa.consultar(proximaVaga());
+    }
+
+    @Benchmark
+    public VagaStatusDTO proximaLivre() {
+        return mapa.buscarProxima(proximaVaga());
+    }
+
+    @Benchmark
+    public List<String> livresDoSetor() {
+        return mapa.listarLivres("C", 1000);
+    }
+}
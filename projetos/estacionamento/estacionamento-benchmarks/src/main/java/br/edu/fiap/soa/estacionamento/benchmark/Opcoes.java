@@ -0,0 +1,35 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opções de linha de comando no formato {@code --chave=valor}
+ */
+final class Opcoes {
+
+    private final Map<String, String> valores = new HashMap<>();
+
+    Opcoes(String[] args) {
+        for (String arg : args) {
+            if (arg.isBlank()) continue;
+            int igual = arg.indexOf('=');
+            if (!arg.startsWith("--") || igual < 0) {
+                throw new IllegalArgumentException("Opção inválida (use --chave=valor): " + arg);
+            }
+            valores.put(arg.substring(2, igual), arg.substring(igual + 1));
+        }
+    }
+
+    String texto(String chave, String padrao) {
+        return valores.getOrDefault(chave, padrao);
+    }
+
+    int inteiro(String chave, int padrao) {
+        return valores.containsKey(chave) ? Integer.parseInt(valores.get(chave)) : padrao;
+    }
+
+    double decimal(String chave, double padrao) {
+        return valores.containsKey(chave) ? Double.parseDouble(valores.get(chave)) : padrao;
+    }
+}
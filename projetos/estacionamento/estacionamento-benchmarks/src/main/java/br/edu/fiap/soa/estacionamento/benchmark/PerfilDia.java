@@ -0,0 +1,64 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import java.time.DayOfWeek;
+import java.util.Random;
+
+/**
+ * Movimento ao longo do dia, comum à massa gerada e à carga: entradas com
+ * pico às 8h30, almoço e início da noite; saídas com pico no fim da tarde.
+ * As densidades são relativas (só a proporção entre horas importa).
+ */
+final class PerfilDia {
+
+    // Componentes das entradas: peso, média (hora) e desvio (horas)
+    private static final double[][] ENTRADAS = {{0.45, 8.5, 1.0}, {0.20, 12.5, 1.0}, {0.15, 19.0, 1.5}};
+    private static final double[][] SAIDAS = {{0.20, 12.0, 1.5}, {0.45, 18.0, 1.25}, {0.15, 22.0, 1.5}};
+    private static final double UNIFORME = 0.20;
+    private static final double INICIO_UNIFORME = 6;
+    private static final double FIM_UNIFORME = 23;
+
+    private PerfilDia() {
+    }
+
+    /** Hora de entrada (fração de 0 a 24) sorteada pela distribuição do dia */
+    static double sortearHoraEntrada(Random aleatorio) {
+        double r = aleatorio.nextDouble();
+        for (double[] componente : ENTRADAS) {
+            if (r < componente[0]) {
+                return limitar(componente[1] + aleatorio.nextGaussian() * componente[2]);
+            }
+            r -= componente[0];
+        }
+        return INICIO_UNIFORME + aleatorio.nextDouble() * (FIM_UNIFORME - INICIO_UNIFORME);
+    }
+
+    static double densidadeEntradas(double hora) {
+        return densidade(ENTRADAS, hora);
+    }
+
+    static double densidadeSaidas(double hora) {
+        return densidade(SAIDAS, hora);
+    }
+
+    /** Fator do fim de semana sobre o movimento de um dia útil */
+    static double fatorDiaSemana(DayOfWeek dia) {
+        return switch (dia) {
+            case SATURDAY -> 0.6;
+            case SUNDAY -> 0.4;
+            default -> 1.0;
+        };
+    }
+
+    private static double densidade(double[][] componentes, double hora) {
+        double total = hora >= INICIO_UNIFORME && hora < FIM_UNIFORME ? UNIFORME / (FIM_UNIFORME - INICIO_UNIFORME) : 0;
+        for (double[] componente : componentes) {
+            double z = (hora - componente[1]) / componente[2];
+            total += componente[0] * Math.exp(-z * z / 2) / (componente[2] * Math.sqrt(2 * Math.PI));
+        }
+        return total;
+    }
+
+    private static double limitar(double hora) {
+        return Math.max(0, Math.min(23.99, hora));
+    }
+}
@@ -0,0 +1,108 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import br.edu.fiap.soa.estacionamento.domain.EstacionamentoConfig;
+import br.edu.fiap.soa.estacionamento.domain.RollupControle;
+import br.edu.fiap.soa.estacionamento.domain.TipoTarifa;
+import br.edu.fiap.soa.estacionamento.repository.EstacionamentoConfigRepository;
+import br.edu.fiap.soa.estacionamento.repository.RollupControleRepository;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import br.edu.fiap.soa.estacionamento.repository.TicketRollupRepository;
+import br.edu.fiap.soa.estacionamento.service.*;
+import br.edu.fiap.soa.estacionamento.web.dto.RelatorioConsolidadoDTO;
+import br.edu.fiap.soa.estacionamento.web.dto.RelatorioReceitaDTO;
+import br.edu.fiap.soa.estacionamento.web.dto.RelatorioVagasDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Código de agregação do RelatorioService (combinação de buckets e
+ * fragmentos, montagem dos DTOs) com repositórios em memória, isolando o
+ * custo da JVM do custo do banco
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RelatorioBenchmark {
+
+    @Param({"100", "1000"})
+    private int vagas;
+
+    private RelatorioService relatorioService;
+    private final LocalDateTime inicio = LocalDateTime.of(2025, 9, 1, 7, 13);
+    private final LocalDateTime fim = LocalDateTime.of(2025, 9, 29, 16, 41);
+
+    @Setup
+    public void preparar() {
+        List<Object[]> buckets = linhas(5, 3);
+        List<Object[]> fragmentos = linhas(2, 1);
+        List<Object[]> fechadosAposMarca = new ArrayList<>();
+        for (Object[] linha : linhas(1, 1)) {
+            fechadosAposMarca.add(new Object[]{linha[0], linha[1], linha[3], linha[4]});
+        }
+
+        TicketRepository ticketRepo = Stubs.repositorio(TicketRepository.class, Map.of(
+                "agregarFragmentos", args -> fragmentos,
+                "agregarFechadosAposMarca", args -> fechadosAposMarca,
+                "countTicketsAbertos", args -> 0L));
+        TicketRollupRepository rollupRepo = Stubs.repositorio(TicketRollupRepository.class, Map.of(
+                "somarBuckets", args -> buckets));
+        RollupControle controle = new RollupControle(RollupControle.ID, LocalDateTime.of(2025, 10, 1, 0, 0));
+        RollupControleRepository controleRepo = Stubs.repositorio(RollupControleRepository.class, Map.of(
+                "findById", args -> Optional.of(controle)));
+        EstacionamentoConfig config = EstacionamentoConfig.builder()
+                .id(1L).totalVagas(vagas)
+                .tarifa30Min(new BigDecimal("4.00")).tarifaHora(new BigDecimal("8.00"))
+                .tarifaDiaria(new BigDecimal("30.00")).tarifaMensal(new BigDecimal("200.00"))
+                .build();
+        EstacionamentoConfigRepository configRepo = Stubs.repositorio(EstacionamentoConfigRepository.class,
+                Map.of("findActiveConfig", args -> Optional.of(config)));
+
+        ConfiguracaoCache configuracaoCache = new ConfiguracaoCache(configRepo);
+        ContadorOcupacao contador = new ContadorOcupacao(ticketRepo, new ControleAdmissao(configuracaoCache),
+                new MapaVagas(null, ""), new TicketsAbertos(ticketRepo));
+        EstacionamentoService estacionamentoService =
+                new EstacionamentoService(configRepo, configuracaoCache, contador);
+        RollupService rollupService = new RollupService(ticketRepo, rollupRepo, controleRepo,
+                new MarcaRelatorios(new TicketsAbertos(ticketRepo), ticketRepo, controleRepo), null);
+        relatorioService = new RelatorioService(rollupService, estacionamentoService);
+    }
+
+    @Benchmark
+    public RelatorioReceitaDTO receita() {
+        return relatorioService.getRelatorioReceita(inicio, fim);
+    }
+
+    @Benchmark
+    public RelatorioVagasDTO vagas() {
+        return relatorioService.getRelatorioVagas(inicio, fim);
+    }
+
+    @Benchmark
+    public RelatorioConsolidadoDTO consolidado() {
+        return relatorioService.getRelatorioConsolidado(inicio, fim);
+    }
+
+    // Uma linha por vaga e tipo de tarifa: vaga, tipoTarifa, tickets, fechados, receita
+    private List<Object[]> linhas(int tickets, int fechados) {
+        SplittableRandom random = new SplittableRandom(vagas);
+        List<Object[]> linhas = new ArrayList<>();
+        for (int v = 0; v < vagas; v++) {
+            for (TipoTarifa tipo : TipoTarifa.values()) {
+                linhas.add(new Object[]{"V" + v, tipo, (long) tickets, (long) fechados,
+                        BigDecimal.valueOf(random.nextLong(100, 100_000), 2)});
+            }
+        }
+        return linhas;
+    }
+}
@@ -0,0 +1,134 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import br.edu.fiap.soa.estacionamento.domain.Ticket;
+import br.edu.fiap.soa.estacionamento.domain.TicketStatus;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import br.edu.fiap.soa.estacionamento.service.RelatorioService;
+import br.edu.fiap.soa.estacionamento.service.RollupService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relatório de receita de um mês com muitos tickets contra um H2 em memória.
+ * Compara a implementação original (carrega as entidades do período e soma
+ * em Java), a agregação no banco e os buckets de rollup. Rode com
+ * {@code -prof gc} para ver a alocação por operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class RelatorioReceitaBenchmark {
+
+    private static final int LOTE = 5_000;
+    private static final int VEICULOS = 10_000;
+
+    @Param({"1000000"})
+    private int tickets;
+
+    private ConfigurableApplicationContext contexto;
+    private TicketRepository ticketRepository;
+    private RelatorioService relatorioService;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate somenteLeitura;
+
+    private final LocalDateTime inicio = LocalDateTime.of(2025, 9, 1, 7, 13);
+    private final LocalDateTime fim = LocalDateTime.of(2025, 9, 29, 16, 41);
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = ContextoEmbutido.iniciar("receita", 100);
+        ticketRepository = contexto.getBean(TicketRepository.class);
+        relatorioService = contexto.getBean(RelatorioService.class);
+        jdbc = contexto.getBean(JdbcTemplate.class);
+        somenteLeitura = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+        somenteLeitura.setReadOnly(true);
+
+        popular();
+        contexto.getBean(RollupService.class).atualizar();
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    /**
+     * Implementação original: materializa todos os tickets do período
+     */
+    @Benchmark
+    public BigDecimal original() {
+        return somenteLeitura.execute(status -> {
+            List<Ticket> lista = ticketRepository.findByPeriodo(inicio, fim);
+            BigDecimal receita = lista.stream()
+                    .filter(t -> t.getStatus() == TicketStatus.FECHADO && t.getValor() != null)
+                    .map(Ticket::getValor)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            long total = lista.stream().filter(t -> t.getStatus() == TicketStatus.FECHADO).count();
+            return total > 0 ? receita : BigDecimal.ZERO;
+        });
+    }
+
+    /**
+     * Agregação SUM/COUNT direto na tabela ticket
+     */
+    @Benchmark
+    public BigDecimal agregacaoNoBanco() {
+        return jdbc.queryForObject(
+                "SELECT SUM(valor) FROM ticket WHERE entrada BETWEEN ? AND ? AND status = 'FECHADO'",
+                BigDecimal.class, Timestamp.valueOf(inicio), Timestamp.valueOf(fim));
+    }
+
+    /**
+     * Implementação atual: buckets de rollup + bordas do período
+     */
+    @Benchmark
+    public BigDecimal rollup() {
+        return relatorioService.getRelatorioReceita(inicio, fim).getReceitaTotal();
+    }
+
+    private void popular() {
+        List<Object[]> veiculos = new ArrayList<>();
+        for (int i = 0; i < VEICULOS; i++) {
+            veiculos.add(new Object[]{String.format("BEN%05d", i), Timestamp.valueOf(inicio)});
+        }
+        jdbc.batchUpdate("INSERT INTO veiculo (placa, data_cadastro) VALUES (?, ?)", veiculos);
+        long primeiroVeiculo = jdbc.queryForObject("SELECT MIN(id) FROM veiculo", Long.class);
+
+        // Um mês com entradas uniformes e permanências de até 10h
+        SplittableRandom random = new SplittableRandom(3);
+        LocalDateTime base = LocalDateTime.of(2025, 9, 1, 0, 0);
+        long segundosNoMes = 30L * 24 * 3600;
+        List<Object[]> lote = new ArrayList<>(LOTE);
+        for (int i = 0; i < tickets; i++) {
+            LocalDateTime entrada = base.plusSeconds(random.nextLong(segundosNoMes));
+            LocalDateTime saida = entrada.plusMinutes(random.nextLong(10, 600));
+            lote.add(new Object[]{primeiroVeiculo + random.nextInt(VEICULOS), "V" + random.nextInt(100),
+                    Timestamp.valueOf(entrada), Timestamp.valueOf(saida),
+                    BigDecimal.valueOf(random.nextLong(400, 8000), 2), "FECHADO", "HORARIA"});
+            if (lote.size() == LOTE) {
+                inserir(lote);
+            }
+        }
+        inserir(lote);
+    }
+
+    private void inserir(List<Object[]> lote) {
+        jdbc.batchUpdate("INSERT INTO ticket (veiculo_id, vaga, entrada, saida, valor, status, tipo_tarifa) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", lote);
+        lote.clear();
+    }
+}
@@ -0,0 +1,98 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import br.edu.fiap.soa.estacionamento.domain.Veiculo;
+import br.edu.fiap.soa.estacionamento.repository.VeiculoRepository;
+import br.edu.fiap.soa.estacionamento.service.ContadorOcupacao;
+import br.edu.fiap.soa.estacionamento.service.FilaFechamentos;
+import br.edu.fiap.soa.estacionamento.service.TicketService;
+import br.edu.fiap.soa.estacionamento.web.dto.TicketResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência do check-out com gravação síncrona e com gravação adiada
+ * (write-behind), com o banco rápido e com {@code latenciaBancoMs} por
+ * comando. Cada iteração parte de tickets abertos inseridos direto no banco.
+ * No modo adiado, quando o banco não acompanha a fila enche e as saídas
+ * voltam ao caminho síncrono: o p99 mostra essa contrapressão.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 1, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SaidaAdiadaBenchmark {
+
+    private static final int TICKETS_POR_ITERACAO = 150_000;
+
+    @Param({"sincrona", "adiada"})
+    private String saida;
+
+    @Param({"0", "5"})
+    private int latenciaBancoMs;
+
+    private ConfigurableApplicationContext contexto;
+    private TicketService ticketService;
+    private FilaFechamentos filaFechamentos;
+    private JdbcTemplate jdbc;
+    private long veiculoId;
+    private long proximo;
+    private long ultimo = 9_999_999;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws IOException {
+        Path diario = Files.createTempDirectory("saidas").resolve("saidas.diario");
+        contexto = ContextoEmbutido.iniciar("saida" + saida + latenciaBancoMs, 1_000_000,
+                ctx -> ctx.getBeanFactory().addBeanPostProcessor(new LatenciaBanco(latenciaBancoMs)),
+                "estacionamento.checkout.write-behind.habilitado=" + "adiada".equals(saida),
+                "estacionamento.checkout.write-behind.diario=" + diario);
+        ticketService = contexto.getBean(TicketService.class);
+        filaFechamentos = contexto.getBean(FilaFechamentos.class);
+        jdbc = contexto.getBean(JdbcTemplate.class);
+        veiculoId = contexto.getBean(VeiculoRepository.class).save(Veiculo.builder().placa("SAI-0001").build()).getId();
+    }
+
+    @Setup(Level.Iteration)
+    public void abrirTickets() {
+        filaFechamentos.aguardarGravacao();
+        // Tickets que sobraram da iteração anterior continuam abertos; a nova faixa começa depois deles
+        proximo = ultimo + 1;
+        LocalDateTime entrada = LocalDateTime.now().minusHours(2);
+        List<Object[]> linhas = new ArrayList<>(TICKETS_POR_ITERACAO);
+        for (int i = 0; i < TICKETS_POR_ITERACAO; i++) {
+            long id = proximo + i;
+            linhas.add(new Object[]{id, veiculoId, "S" + id, Timestamp.valueOf(entrada)});
+        }
+        jdbc.batchUpdate("INSERT INTO ticket (id, veiculo_id, vaga, entrada, status, tipo_tarifa) " +
+                "VALUES (?, ?, ?, ?, 'ABERTO', 'HORARIA')", linhas);
+        ultimo = proximo + TICKETS_POR_ITERACAO - 1;
+        // Semeia contador, mapa de vagas e tickets abertos em memória
+        contexto.getBean(ContadorOcupacao.class).reconciliar();
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public TicketResponse checkOut() {
+        if (proximo > ultimo) throw new IllegalStateException("Aumente TICKETS_POR_ITERACAO");
+        long id = proximo++;
+        return filaFechamentos.fechar(id).orElseGet(() -> {
+            var t = ticketService.checkOut(id);
+            return TicketResponse.builder().id(t.getId()).valor(t.getValor()).status(t.getStatus()).build();
+        });
+    }
+}
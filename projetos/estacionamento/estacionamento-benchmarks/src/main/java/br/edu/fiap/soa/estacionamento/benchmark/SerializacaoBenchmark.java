@@ -0,0 +1,76 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import br.edu.fiap.soa.estacionamento.domain.*;
+import br.edu.fiap.soa.estacionamento.web.dto.ReservaResponse;
+import br.edu.fiap.soa.estacionamento.web.dto.TicketResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapeamento entidade -> DTO e serialização JSON de TicketResponse e
+ * ReservaResponse, com o mesmo ObjectMapper configurado pelo Spring
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializacaoBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Ticket ticket;
+    private Reserva reserva;
+
+    @Setup
+    public void preparar() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        Veiculo veiculo = Veiculo.builder().id(1L).placa("ABC-1D23").modelo("Fiat Argo 1.3").cor("Preto")
+                .dataCadastro(LocalDateTime.of(2025, 1, 10, 9, 0)).build();
+        ticket = Ticket.builder().id(10L).veiculo(veiculo).vaga("A12")
+                .entrada(LocalDateTime.of(2025, 9, 1, 8, 0)).saida(LocalDateTime.of(2025, 9, 1, 10, 31))
+                .valor(new BigDecimal("24.00")).status(TicketStatus.FECHADO).tipoTarifa(TipoTarifa.HORARIA).build();
+        reserva = Reserva.builder().id(20L).veiculo(veiculo).vaga("B07")
+                .dataReserva(LocalDateTime.of(2025, 9, 1, 7, 0))
+                .dataInicio(LocalDateTime.of(2025, 9, 2, 9, 0)).dataFim(LocalDateTime.of(2025, 9, 2, 18, 0))
+                .status(StatusReserva.ATIVA).build();
+    }
+
+    @Benchmark
+    public TicketResponse mapearTicket() {
+        return paraResponse(ticket);
+    }
+
+    @Benchmark
+    public String serializarTicket() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(paraResponse(ticket));
+    }
+
+    @Benchmark
+    public ReservaResponse mapearReserva() {
+        return paraResponse(reserva);
+    }
+
+    @Benchmark
+    public String serializarReserva() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(paraResponse(reserva));
+    }
+
+    // Mesmo mapeamento feito pelos controllers
+    private static TicketResponse paraResponse(Ticket t) {
+        return TicketResponse.builder().id(t.getId()).placa(t.getVeiculo().getPlaca()).vaga(t.getVaga())
+                .entrada(t.getEntrada()).saida(t.getSaida()).valor(t.getValor()).status(t.getStatus()).build();
+    }
+
+    private static ReservaResponse paraResponse(Reserva r) {
+        return ReservaResponse.builder().id(r.getId()).placa(r.getVeiculo().getPlaca()).vaga(r.getVaga())
+                .dataReserva(r.getDataReserva()).dataInicio(r.getDataInicio()).dataFim(r.getDataFim())
+                .status(r.getStatus()).build();
+    }
+}
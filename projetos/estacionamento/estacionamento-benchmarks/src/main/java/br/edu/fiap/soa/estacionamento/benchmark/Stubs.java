@@ -0,0 +1,31 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Implementações mínimas de repositórios para medir apenas o código em memória
+ */
+final class Stubs {
+
+    private Stubs() {
+    }
+
+    /**
+     * Cria um repositório que responde apenas aos métodos informados
+     */
+    static <T> T repositorio(Class<T> tipo, Map<String, Function<Object[], Object>> respostas) {
+        Object proxy = Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (self, metodo, args) -> {
+            Function<Object[], Object> resposta = respostas.get(metodo.getName());
+            if (resposta != null) {
+                return resposta.apply(args);
+            }
+            if (metodo.getName().equals("toString")) {
+                return tipo.getSimpleName() + "Stub";
+            }
+            throw new UnsupportedOperationException(tipo.getSimpleName() + "." + metodo.getName());
+        });
+        return tipo.cast(proxy);
+    }
+}
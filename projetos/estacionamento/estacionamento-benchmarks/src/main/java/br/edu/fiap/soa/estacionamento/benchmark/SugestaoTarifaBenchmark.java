@@ -0,0 +1,40 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import br.edu.fiap.soa.estacionamento.domain.TipoTarifa;
+import br.edu.fiap.soa.estacionamento.service.TarifaService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TarifaService.sugerirMelhorTarifa sobre durações variadas
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SugestaoTarifaBenchmark {
+
+    private static final int AMOSTRAS = 1024;
+
+    private final TarifaService tarifaService = new TarifaService(null);
+    private final Duration[] duracoes = new Duration[AMOSTRAS];
+    private int proxima;
+
+    @Setup
+    public void preparar() {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < AMOSTRAS; i++) {
+            duracoes[i] = Duration.ofMinutes(random.nextLong(1, 48 * 60));
+        }
+    }
+
+    @Benchmark
+    public TipoTarifa sugerirMelhorTarifa() {
+        return tarifaService.sugerirMelhorTarifa(duracoes[proxima++ & (AMOSTRAS - 1)]);
+    }
+}
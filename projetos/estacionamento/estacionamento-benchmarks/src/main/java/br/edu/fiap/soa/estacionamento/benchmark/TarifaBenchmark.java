@@ -0,0 +1,73 @@
+package br.edu.fiap.soa.estacionamento.benchmark;
+
+import br.edu.fiap.soa.estacionamento.domain.ConfiguracaoSnapshot;
+import br.edu.fiap.soa.estacionamento.domain.EstacionamentoConfig;
+import br.edu.fiap.soa.estacionamento.domain.TipoTarifa;
+import br.edu.fiap.soa.estacionamento.repository.EstacionamentoConfigRepository;
+import br.edu.fiap.soa.estacionamento.service.ConfiguracaoCache;
+import br.edu.fiap.soa.estacionamento.service.TarifaService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TarifaService.calcularValor por tipo de tarifa: tabela compilada em
+ * centavos x cálculo de referência em BigDecimal
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TarifaBenchmark {
+
+    private static final int AMOSTRAS = 1024;
+
+    @Param({"FRACAO_30MIN", "HORARIA", "DIARIA", "MENSAL"})
+    private TipoTarifa tipo;
+
+    private TarifaService tarifaService;
+    private ConfiguracaoSnapshot config;
+    private LocalDateTime entrada;
+    private final LocalDateTime[] saidas = new LocalDateTime[AMOSTRAS];
+    private int proxima;
+
+    @Setup
+    public void preparar() {
+        EstacionamentoConfig entidade = EstacionamentoConfig.builder()
+                .id(1L)
+                .totalVagas(100)
+                .tarifa30Min(new BigDecimal("4.00"))
+                .tarifaHora(new BigDecimal("8.00"))
+                .tarifaDiaria(new BigDecimal("30.00"))
+                .tarifaMensal(new BigDecimal("200.00"))
+                .build();
+        EstacionamentoConfigRepository repo = Stubs.repositorio(EstacionamentoConfigRepository.class,
+                Map.of("findActiveConfig", args -> Optional.of(entidade)));
+        tarifaService = new TarifaService(new ConfiguracaoCache(repo));
+        config = ConfiguracaoSnapshot.de(entidade);
+
+        // Permanências de 1 minuto a 3 dias
+        entrada = LocalDateTime.of(2025, 9, 1, 8, 0);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < AMOSTRAS; i++) {
+            saidas[i] = entrada.plusSeconds(random.nextLong(60, 3 * 24 * 3600));
+        }
+    }
+
+    @Benchmark
+    public BigDecimal tabelaCompilada() {
+        return tarifaService.calcularValor(entrada, saidas[proxima++ & (AMOSTRAS - 1)], tipo);
+    }
+
+    @Benchmark
+    public BigDecimal referenciaBigDecimal() {
+        return tarifaService.calcularValorDecimal(config, entrada, saidas[proxima++ & (AMOSTRAS - 1)], tipo);
+    }
+}
@@ -0,0 +1,24 @@
+-- Buckets pré-agregados de tickets (por hora e por dia de entrada)
+
+CREATE TABLE ticket_rollup (
+    id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    granularidade VARCHAR2(10) NOT NULL,
+    inicio TIMESTAMP NOT NULL,
+    vaga VARCHAR2(10) NOT NULL,
+    tipo_tarifa VARCHAR2(20) NOT NULL,
+    qtd_tickets NUMBER DEFAULT 0 NOT NULL,
+    qtd_fechados NUMBER DEFAULT 0 NOT NULL,
+    receita NUMBER(14,2) DEFAULT 0 NOT NULL,
+    CONSTRAINT uk_ticket_rollup UNIQUE (granularidade, inicio, vaga, tipo_tarifa)
+);
+
+-- Marca d'água do job incremental (linha única, criada na primeira execução)
+CREATE TABLE rollup_controle (
+    id NUMBER PRIMARY KEY,
+    processado_ate TIMESTAMP NOT NULL
+);
+
+-- Índice usado pelo job para localizar fechamentos desde a marca d'água
+CREATE INDEX ix_ticket_saida ON ticket(saida);
+
+COMMIT;
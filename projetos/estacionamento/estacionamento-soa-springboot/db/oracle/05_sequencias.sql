@@ -0,0 +1,29 @@
+-- Ids por sequence em blocos de 50 (allocationSize das entidades), para que o
+-- Hibernate agrupe os INSERTs em lotes JDBC (IDENTITY obriga um round trip por linha).
+--
+-- O otimizador "pooled" do Hibernate trata o valor lido da sequence como o topo
+-- do bloco; começando em MAX(id) + 50 o primeiro bloco vai de MAX(id) + 1 a
+-- MAX(id) + 50, sem colidir com os ids já existentes.
+--
+-- As colunas deixam de ser IDENTITY para haver uma única origem de ids: INSERTs
+-- manuais devem usar um id fora dos blocos já entregues (ex.: seq.NEXTVAL).
+-- estacionamento_config continua IDENTITY (poucas linhas; o id é a versão da configuração).
+
+DECLARE
+    PROCEDURE migrar(p_tabela VARCHAR2, p_sequence VARCHAR2) IS
+        v_inicio NUMBER;
+    BEGIN
+        EXECUTE IMMEDIATE 'SELECT NVL(MAX(id), 0) + 50 FROM ' || p_tabela INTO v_inicio;
+        EXECUTE IMMEDIATE 'CREATE SEQUENCE ' || p_sequence ||
+                          ' START WITH ' || v_inicio || ' INCREMENT BY 50 CACHE 20';
+        EXECUTE IMMEDIATE 'ALTER TABLE ' || p_tabela || ' MODIFY id DROP IDENTITY';
+    END;
+BEGIN
+    migrar('veiculo', 'seq_veiculo');
+    migrar('ticket', 'seq_ticket');
+    migrar('reserva', 'seq_reserva');
+    migrar('ticket_rollup', 'seq_ticket_rollup');
+END;
+/
+
+COMMIT;
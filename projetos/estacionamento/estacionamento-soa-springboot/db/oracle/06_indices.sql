@@ -0,0 +1,41 @@
+-- Índices compostos para as consultas quentes (mesmos nomes de @Table(indexes) nas entidades).
+-- Os índices de coluna única criados pelos scripts anteriores ficam cobertos pelos compostos.
+
+-- Tickets abertos: COUNT, listagem por cursor (status = 'ABERTO' AND id > :apos ORDER BY id),
+-- exportação e vagas ocupadas. Com a coluna status na frente, os tickets abertos formam uma
+-- faixa contígua das folhas: a varredura lê só essa faixa, como um índice parcial, por maior
+-- que seja o histórico de FECHADOs. COMPRESS 1 guarda o status uma vez por bloco.
+-- Um índice por função (CASE WHEN status = 'ABERTO' ...), como uq_ticket_veiculo_aberto,
+-- só seria usado por consultas escritas com a mesma expressão, o que o H2 não indexa.
+DROP INDEX ix_ticket_status;
+CREATE INDEX ix_ticket_status_id ON ticket(status, id) COMPRESS 1;
+
+-- Relatórios por período: entrada BETWEEN ... (GROUP BY vaga lido só do índice)
+DROP INDEX ix_ticket_entrada;
+CREATE INDEX ix_ticket_entrada_vaga ON ticket(entrada, vaga);
+
+-- Ticket aberto do veículo e chave estrangeira para veiculo
+CREATE INDEX ix_ticket_veiculo_status ON ticket(veiculo_id, status);
+
+-- Tickets da vaga e tickets abertos de um lote de eventos (vaga IN ...)
+CREATE INDEX ix_ticket_vaga_status ON ticket(vaga, status);
+
+-- Conflito de reservas: vaga = ? AND status = 'ATIVA' AND data_inicio < ? AND data_fim > ?
+DROP INDEX ix_reserva_periodo;
+CREATE INDEX ix_reserva_vaga_periodo ON reserva(vaga, status, data_inicio, data_fim);
+
+-- Expiração em lotes: status = 'ATIVA' AND data_fim < agora
+DROP INDEX ix_reserva_status;
+CREATE INDEX ix_reserva_status_fim ON reserva(status, data_fim) COMPRESS 1;
+
+-- Reservas ativas do veículo e chave estrangeira para veiculo
+DROP INDEX ix_reserva_veiculo;
+CREATE INDEX ix_reserva_veiculo_status ON reserva(veiculo_id, status);
+
+BEGIN
+    DBMS_STATS.GATHER_TABLE_STATS(USER, 'TICKET', cascade => TRUE);
+    DBMS_STATS.GATHER_TABLE_STATS(USER, 'RESERVA', cascade => TRUE);
+END;
+/
+
+COMMIT;
@@ -0,0 +1,28 @@
+-- Registro append-only de eventos do estacionamento (entradas, saídas e reservas).
+-- Ticket e reserva continuam como projeções do estado atual; o registro guarda só ids.
+
+CREATE SEQUENCE seq_evento START WITH 50 INCREMENT BY 50 CACHE 20;
+
+CREATE TABLE evento_estacionamento (
+    id NUMBER PRIMARY KEY,
+    tipo VARCHAR2(20) NOT NULL,
+    momento TIMESTAMP NOT NULL,
+    ticket_id NUMBER,
+    reserva_id NUMBER,
+    veiculo_id NUMBER,
+    vaga VARCHAR2(10),
+    tipo_tarifa VARCHAR2(20),
+    valor NUMBER(10,2),
+    data_inicio TIMESTAMP,
+    data_fim TIMESTAMP
+);
+
+-- Só INSERT: alterações e exclusões são recusadas pelo banco
+CREATE OR REPLACE TRIGGER trg_evento_append_only
+    BEFORE UPDATE OR DELETE ON evento_estacionamento
+BEGIN
+    RAISE_APPLICATION_ERROR(-20001, 'evento_estacionamento é append-only');
+END;
+/
+
+COMMIT;
@@ -0,0 +1,6 @@
+-- Versão dos períodos consolidados dos relatórios: cresce a cada lote retroativo
+-- que os altera, e os nós descartam as respostas em cache ao perceber a mudança
+
+ALTER TABLE rollup_controle ADD (versao NUMBER(19) DEFAULT 0 NOT NULL);
+
+COMMIT;
@@ -0,0 +1,6 @@
+-- No máximo um ticket ABERTO por vaga, garantido pelo banco para todos os nós
+-- (o mapa de vagas em memória é local). Mesmo padrão de uq_ticket_veiculo_aberto.
+CREATE UNIQUE INDEX uq_ticket_vaga_aberta
+  ON ticket (CASE WHEN status = 'ABERTO' THEN vaga END);
+
+COMMIT;
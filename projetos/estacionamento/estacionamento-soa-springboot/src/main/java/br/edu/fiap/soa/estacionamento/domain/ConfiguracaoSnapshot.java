@@ -0,0 +1,45 @@
+package br.edu.fiap.soa.estacionamento.domain;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Cópia imutável e versionada da configuração ativa do estacionamento.
+ * A versão é o id da linha ativa em estacionamento_config, que cresce a cada
+ * nova configuração salva.
+ */
+@Value
+public class ConfiguracaoSnapshot {
+    long versao;
+    int totalVagas;
+    BigDecimal tarifa30Min;
+    BigDecimal tarifaHora;
+    BigDecimal tarifaDiaria;
+    BigDecimal tarifaMensal;
+
+    public static ConfiguracaoSnapshot de(EstacionamentoConfig config) {
+        return new ConfiguracaoSnapshot(
+                config.getId(),
+                config.getTotalVagas(),
+                config.getTarifa30Min(),
+                config.getTarifaHora(),
+                config.getTarifaDiaria(),
+                config.getTarifaMensal());
+    }
+
+    /**
+     * Cria uma entidade desanexada com os mesmos valores, para exposição na API
+     */
+    public EstacionamentoConfig toEntity() {
+        return EstacionamentoConfig.builder()
+                .id(versao)
+                .totalVagas(totalVagas)
+                .tarifa30Min(tarifa30Min)
+                .tarifaHora(tarifaHora)
+                .tarifaDiaria(tarifaDiaria)
+                .tarifaMensal(tarifaMensal)
+                .ativo(true)
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+package br.edu.fiap.soa.estacionamento.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Evento do registro append-only: só recebe INSERTs, nunca é alterado.
+ * <p>
+ * Guarda ids em vez de associações para que o registro não dependa das
+ * tabelas ticket e reserva, que são projeções do estado atual.
+ */
+@Entity
+@Immutable
+@Table(name = "evento_estacionamento")
+@Getter @NoArgsConstructor @AllArgsConstructor @Builder
+public class EventoEstacionamento {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_evento")
+    @SequenceGenerator(name = "seq_evento", sequenceName = "seq_evento", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private TipoEvento tipo;
+
+    /** Quando o fato ocorreu (entrada, saída ou mudança da reserva) */
+    @Column(nullable = false)
+    private LocalDateTime momento;
+
+    @Column(name = "ticket_id")
+    private Long ticketId;
+
+    @Column(name = "reserva_id")
+    private Long reservaId;
+
+    @Column(name = "veiculo_id")
+    private Long veiculoId;
+
+    @Column(length = 10)
+    private String vaga;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo_tarifa", length = 20)
+    private TipoTarifa tipoTarifa;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal valor;
+
+    @Column(name = "data_inicio")
+    private LocalDateTime dataInicio;
+
+    @Column(name = "data_fim")
+    private LocalDateTime dataFim;
+
+    public static EventoEstacionamento entrada(Ticket ticket) {
+        return EventoEstacionamento.builder()
+                .tipo(TipoEvento.ENTRADA)
+                .momento(ticket.getEntrada())
+                .ticketId(ticket.getId())
+                .veiculoId(ticket.getVeiculo().getId())
+                .vaga(ticket.getVaga())
+                .tipoTarifa(ticket.getTipoTarifa())
+                .build();
+    }
+
+    public static EventoEstacionamento saida(Ticket ticket) {
+        return EventoEstacionamento.builder()
+                .tipo(TipoEvento.SAIDA)
+                .momento(ticket.getSaida())
+                .ticketId(ticket.getId())
+                .veiculoId(ticket.getVeiculo().getId())
+                .vaga(ticket.getVaga())
+                .tipoTarifa(ticket.getTipoTarifa())
+                .valor(ticket.getValor())
+                .build();
+    }
+
+    public static EventoEstacionamento reservaCriada(Reserva reserva) {
+        return EventoEstacionamento.builder()
+                .tipo(TipoEvento.RESERVA_CRIADA)
+                .momento(reserva.getDataReserva())
+                .reservaId(reserva.getId())
+                .veiculoId(reserva.getVeiculo().getId())
+                .vaga(reserva.getVaga())
+                .dataInicio(reserva.getDataInicio())
+                .dataFim(reserva.getDataFim())
+                .build();
+    }
+
+    /**
+     * Cancelamento, utilização ou expiração: basta o id da reserva
+     */
+    public static EventoEstacionamento reserva(TipoEvento tipo, Long reservaId, LocalDateTime momento) {
+        return EventoEstacionamento.builder()
+                .tipo(tipo)
+                .momento(momento)
+                .reservaId(reservaId)
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+package br.edu.fiap.soa.estacionamento.domain;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Granularidade dos buckets pré-agregados de tickets
+ */
+public enum GranularidadeRollup {
+    HORA(ChronoUnit.HOURS),
+    DIA(ChronoUnit.DAYS);
+
+    private final ChronoUnit unidade;
+
+    GranularidadeRollup(ChronoUnit unidade) {
+        this.unidade = unidade;
+    }
+
+    public LocalDateTime inicioDoBucket(LocalDateTime instante) {
+        return instante.truncatedTo(unidade);
+    }
+}
@@ -8,11 +8,18 @@ import java.time.LocalDateTime;
  * Entidade para representar reservas de vagas
  */
 @Entity
-@Table(name = "reserva")
+@Table(name = "reserva", indexes = {
+        // Conflito de período: igualdade em vaga e status, intervalo nas datas
+        @Index(name = "ix_reserva_vaga_periodo", columnList = "vaga, status, data_inicio, data_fim"),
+        // Varredura de expiração: status = 'ATIVA' AND data_fim < agora
+        @Index(name = "ix_reserva_status_fim", columnList = "status, data_fim"),
+        @Index(name = "ix_reserva_veiculo_status", columnList = "veiculo_id, status")
+})
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Reserva {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_reserva")
+    @SequenceGenerator(name = "seq_reserva", sequenceName = "seq_reserva", allocationSize = 50)
     private Long id;
     
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
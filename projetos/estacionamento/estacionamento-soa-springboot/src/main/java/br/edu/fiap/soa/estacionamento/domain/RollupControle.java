@@ -0,0 +1,30 @@
+package br.edu.fiap.soa.estacionamento.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Marca d'água do rollup: entradas e saídas até {@code processadoAte} já
+ * estão refletidas em ticket_rollup. {@code versao} cresce a cada lote
+ * retroativo que altera períodos já consolidados dos relatórios.
+ */
+@Entity
+@Table(name = "rollup_controle")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+public class RollupControle {
+    public static final Long ID = 1L;
+    
+    @Id
+    private Long id;
+    
+    @Column(name = "processado_ate", nullable = false)
+    private LocalDateTime processadoAte;
+    
+    @Column(name = "versao", nullable = false)
+    private long versao;
+    
+    public RollupControle(Long id, LocalDateTime processadoAte) {
+        this(id, processadoAte, 0L);
+    }
+}
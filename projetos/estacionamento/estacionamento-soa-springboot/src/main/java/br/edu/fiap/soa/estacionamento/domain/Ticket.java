@@ -5,10 +5,18 @@ import lombok.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
-@Entity @Table(name="ticket")
+// Índices das consultas quentes; no Oracle são criados por db/oracle/06_indices.sql
+@Entity @Table(name="ticket", indexes = {
+        @Index(name="ix_ticket_status_id", columnList="status, id"),
+        @Index(name="ix_ticket_entrada_vaga", columnList="entrada, vaga"),
+        @Index(name="ix_ticket_veiculo_status", columnList="veiculo_id, status"),
+        @Index(name="ix_ticket_vaga_status", columnList="vaga, status"),
+        @Index(name="ix_ticket_saida", columnList="saida")
+})
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Ticket {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_ticket")
+    @SequenceGenerator(name = "seq_ticket", sequenceName = "seq_ticket", allocationSize = 50)
     private Long id;
     @ManyToOne(optional=false, fetch=FetchType.LAZY)
     @JoinColumn(name="veiculo_id", nullable=false, foreignKey=@ForeignKey(name="fk_ticket_veiculo"))
@@ -0,0 +1,46 @@
+package br.edu.fiap.soa.estacionamento.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Bucket pré-agregado de tickets por hora/dia de entrada, vaga e tipo de tarifa
+ */
+@Entity
+@Table(name = "ticket_rollup", uniqueConstraints = @UniqueConstraint(name = "uk_ticket_rollup",
+        columnNames = {"granularidade", "inicio", "vaga", "tipo_tarifa"}))
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class TicketRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_ticket_rollup")
+    @SequenceGenerator(name = "seq_ticket_rollup", sequenceName = "seq_ticket_rollup", allocationSize = 50)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10, nullable = false)
+    private GranularidadeRollup granularidade;
+    
+    @Column(nullable = false)
+    private LocalDateTime inicio;
+    
+    @Column(length = 10, nullable = false)
+    private String vaga;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo_tarifa", length = 20, nullable = false)
+    private TipoTarifa tipoTarifa;
+    
+    @Column(name = "qtd_tickets", nullable = false)
+    @Builder.Default
+    private Long quantidadeTickets = 0L;
+    
+    @Column(name = "qtd_fechados", nullable = false)
+    @Builder.Default
+    private Long quantidadeFechados = 0L;
+    
+    @Column(precision = 14, scale = 2, nullable = false)
+    @Builder.Default
+    private BigDecimal receita = BigDecimal.ZERO;
+}
@@ -0,0 +1,13 @@
+package br.edu.fiap.soa.estacionamento.domain;
+
+/**
+ * Tipos de evento do registro de eventos do estacionamento
+ */
+public enum TipoEvento {
+    ENTRADA,
+    SAIDA,
+    RESERVA_CRIADA,
+    RESERVA_CANCELADA,
+    RESERVA_UTILIZADA,
+    RESERVA_EXPIRADA
+}
@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 @Table(name = "veiculo", uniqueConstraints = @UniqueConstraint(name = "uk_veiculo_placa", columnNames = "placa"))
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Veiculo {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_veiculo")
+    @SequenceGenerator(name = "seq_veiculo", sequenceName = "seq_veiculo", allocationSize = 50)
     private Long id;
     @Column(length = 10, nullable = false)
     private String placa;
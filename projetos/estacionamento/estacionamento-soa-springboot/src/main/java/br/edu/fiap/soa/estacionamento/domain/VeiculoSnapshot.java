@@ -0,0 +1,34 @@
+package br.edu.fiap.soa.estacionamento.domain;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cópia imutável dos dados de um veículo, guardada no cache por placa
+ */
+@Value
+public class VeiculoSnapshot {
+    long id;
+    String placa;
+    String modelo;
+    String cor;
+    LocalDateTime dataCadastro;
+
+    public static VeiculoSnapshot de(Veiculo veiculo) {
+        return new VeiculoSnapshot(
+                veiculo.getId(),
+                veiculo.getPlaca(),
+                veiculo.getModelo(),
+                veiculo.getCor(),
+                veiculo.getDataCadastro());
+    }
+
+    /**
+     * Cria uma entidade desanexada: serve de referência em associações
+     * (só o id vai para a chave estrangeira) sem consultar o banco
+     */
+    public Veiculo toEntity() {
+        return new Veiculo(id, placa, modelo, cor, dataCadastro);
+    }
+}
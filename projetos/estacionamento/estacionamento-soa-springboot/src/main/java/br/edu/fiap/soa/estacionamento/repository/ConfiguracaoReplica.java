@@ -0,0 +1,62 @@
+package br.edu.fiap.soa.estacionamento.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Pool separado para relatórios e exportações numa réplica de leitura.
+ * <p>
+ * Só entra com {@code estacionamento.leitura.datasource.url}; sem ela vale o
+ * DataSource padrão do Spring Boot. O pool principal continua configurado
+ * por {@code spring.datasource.*} e o de leitura por
+ * {@code estacionamento.leitura.datasource.*} (inclusive {@code hikari.*}),
+ * então uma consulta pesada esgota o pool de leitura, não o dos portões.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "estacionamento.leitura.datasource", name = "url")
+public class ConfiguracaoReplica {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourceEscrita(DataSourceProperties propriedades) {
+        HikariDataSource dataSource = propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("escrita");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("estacionamento.leitura.datasource.hikari")
+    public HikariDataSource dataSourceLeitura(@Value("${estacionamento.leitura.datasource.url}") String url,
+                                              @Value("${estacionamento.leitura.datasource.username:}") String usuario,
+                                              @Value("${estacionamento.leitura.datasource.password:}") String senha) {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url).username(usuario).password(senha).build();
+        dataSource.setPoolName("leitura");
+        dataSource.setMaximumPoolSize(5);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("dataSourceEscrita") DataSource escrita,
+                                 @Qualifier("dataSourceLeitura") DataSource leitura) {
+        return new LazyConnectionDataSourceProxy(new RoteamentoDataSource(escrita, leitura));
+    }
+
+    @Bean
+    public RoteamentoDataSource.Interceptador interceptadorLeituraReplica() {
+        return new RoteamentoDataSource.Interceptador();
+    }
+}
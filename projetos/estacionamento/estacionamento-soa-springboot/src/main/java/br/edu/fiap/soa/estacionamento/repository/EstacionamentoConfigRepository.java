@@ -10,4 +10,7 @@ public interface EstacionamentoConfigRepository extends JpaRepository<Estacionam
     
     @Query("SELECT e FROM EstacionamentoConfig e WHERE e.ativo = true ORDER BY e.id DESC")
     Optional<EstacionamentoConfig> findActiveConfig();
+    
+    @Query("SELECT MAX(e.id) FROM EstacionamentoConfig e WHERE e.ativo = true")
+    Long findActiveConfigVersion();
 }
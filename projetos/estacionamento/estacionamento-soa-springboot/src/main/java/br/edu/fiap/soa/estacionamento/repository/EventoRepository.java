@@ -0,0 +1,26 @@
+package br.edu.fiap.soa.estacionamento.repository;
+
+import br.edu.fiap.soa.estacionamento.domain.EventoEstacionamento;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Registro de eventos append-only: só inclusão e leitura em ordem de id
+ * (não estende JpaRepository para não expor update nem delete)
+ */
+public interface EventoRepository extends Repository<EventoEstacionamento, Long> {
+
+    <S extends EventoEstacionamento> S save(S evento);
+
+    <S extends EventoEstacionamento> List<S> saveAll(Iterable<S> eventos);
+
+    // Projeção por construtor: a reprodução percorre o registro todo sem acumular entidades gerenciadas
+    @Query("SELECT new br.edu.fiap.soa.estacionamento.domain.EventoEstacionamento(e.id, e.tipo, e.momento, " +
+           "e.ticketId, e.reservaId, e.veiculoId, e.vaga, e.tipoTarifa, e.valor, e.dataInicio, e.dataFim) " +
+           "FROM EventoEstacionamento e WHERE e.id > :apos ORDER BY e.id")
+    List<EventoEstacionamento> findApos(@Param("apos") Long apos, Pageable pagina);
+}
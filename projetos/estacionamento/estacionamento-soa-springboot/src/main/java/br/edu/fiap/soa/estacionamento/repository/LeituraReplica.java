@@ -0,0 +1,22 @@
+package br.edu.fiap.soa.estacionamento.repository;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca consultas que podem ler da réplica: as transações {@code readOnly}
+ * abertas dentro do método (ou da classe) usam o pool de leitura quando
+ * {@code estacionamento.leitura.datasource.url} está configurada.
+ * <p>
+ * Sem a marca, mesmo transações somente leitura ficam no banco principal:
+ * o Spring Data abre uma transação {@code readOnly} em toda chamada de
+ * repositório, e o caminho dos portões precisa ler o que acabou de gravar.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface LeituraReplica {
+}
@@ -2,17 +2,44 @@ package br.edu.fiap.soa.estacionamento.repository;
 
 import br.edu.fiap.soa.estacionamento.domain.Reserva;
 import br.edu.fiap.soa.estacionamento.domain.StatusReserva;
+import br.edu.fiap.soa.estacionamento.web.dto.ReservaResponse;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ReservaRepository extends JpaRepository<Reserva, Long> {
     
     List<Reserva> findByStatus(StatusReserva status);
     
+    // Listagem paginada por cursor e exportação das reservas ativas, já projetadas em DTO
+    @Query("SELECT new br.edu.fiap.soa.estacionamento.web.dto.ReservaResponse(" +
+           "r.id, r.veiculo.placa, r.vaga, r.dataReserva, r.dataInicio, r.dataFim, r.status) " +
+           "FROM Reserva r WHERE r.status = 'ATIVA' AND r.id > :apos ORDER BY r.id")
+    List<ReservaResponse> findAtivasApos(@Param("apos") Long apos, Pageable pagina);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new br.edu.fiap.soa.estacionamento.web.dto.ReservaResponse(" +
+           "r.id, r.veiculo.placa, r.vaga, r.dataReserva, r.dataInicio, r.dataFim, r.status) " +
+           "FROM Reserva r WHERE r.status = 'ATIVA' ORDER BY r.id")
+    Stream<ReservaResponse> streamAtivas();
+    
+    @Query("SELECT new br.edu.fiap.soa.estacionamento.web.dto.ReservaResponse(" +
+           "r.id, r.veiculo.placa, r.vaga, r.dataReserva, r.dataInicio, r.dataFim, r.status) " +
+           "FROM Reserva r WHERE r.veiculo.id = :veiculoId AND r.status = 'ATIVA' ORDER BY r.id")
+    List<ReservaResponse> findAtivasPorVeiculo(@Param("veiculoId") Long veiculoId);
+    
     @Query("SELECT r FROM Reserva r WHERE r.vaga = :vaga AND r.status = 'ATIVA' " +
            "AND :dataInicio < r.dataFim AND :dataFim > r.dataInicio")
     List<Reserva> findReservasConflitantes(@Param("vaga") String vaga, 
@@ -23,4 +50,26 @@ public interface ReservaRepository extends JpaRepository<Reserva, Long> {
     List<Reserva> findReservasExpiradas(@Param("now") LocalDateTime now);
     
     List<Reserva> findByVeiculoIdAndStatus(Long veiculoId, StatusReserva status);
+    
+    @Query("SELECT r.id, r.veiculo.id, r.vaga, r.dataInicio, r.dataFim FROM Reserva r WHERE r.status = 'ATIVA'")
+    List<Object[]> findIntervalosAtivos();
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reserva r WHERE r.id IN :ids AND r.status = 'ATIVA'")
+    List<Reserva> findAtivasParaUtilizar(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE Reserva r SET r.status = 'UTILIZADA' WHERE r.id = :id AND r.status = 'ATIVA'")
+    int marcarUtilizada(@Param("id") Long id);
+    
+    @Query("SELECT r.id FROM Reserva r WHERE r.status = 'ATIVA' AND r.dataFim < :now ORDER BY r.id")
+    List<Long> findIdsExpirados(@Param("now") LocalDateTime now, Pageable pagina);
+    
+    @Modifying
+    @Query("UPDATE Reserva r SET r.status = 'EXPIRADA' WHERE r.id IN :ids AND r.status = 'ATIVA'")
+    int expirar(@Param("ids") List<Long> ids);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r.id FROM Reserva r WHERE r.id IN :ids AND r.status = 'ATIVA'")
+    List<Long> findAtivasParaExpirar(@Param("ids") List<Long> ids);
 }
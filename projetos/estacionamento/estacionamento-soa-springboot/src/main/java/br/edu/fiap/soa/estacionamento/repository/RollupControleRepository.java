@@ -0,0 +1,21 @@
+package br.edu.fiap.soa.estacionamento.repository;
+
+import br.edu.fiap.soa.estacionamento.domain.RollupControle;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface RollupControleRepository extends JpaRepository<RollupControle, Long> {
+    
+    // Serializa o job entre nós: apenas um processa a próxima janela
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM RollupControle c WHERE c.id = :id")
+    Optional<RollupControle> findParaAtualizar(@Param("id") Long id);
+    
+    @Query("SELECT c.versao FROM RollupControle c WHERE c.id = :id")
+    Long findVersao(@Param("id") Long id);
+}
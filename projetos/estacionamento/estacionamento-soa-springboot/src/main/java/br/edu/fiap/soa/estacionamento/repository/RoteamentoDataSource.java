@@ -0,0 +1,64 @@
+package br.edu.fiap.soa.estacionamento.repository;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Escolhe entre o banco principal e a réplica de leitura a cada conexão.
+ * <p>
+ * Vai para a réplica apenas a transação {@code readOnly} aberta dentro de um
+ * método {@link LeituraReplica}. Fica atrás de um
+ * {@code LazyConnectionDataSourceProxy}: a conexão só é obtida no primeiro
+ * comando, depois que a transação já marcou se é somente leitura.
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+
+    public enum Destino { ESCRITA, LEITURA }
+
+    private static final ThreadLocal<Boolean> REPLICA = new ThreadLocal<>();
+
+    public RoteamentoDataSource(DataSource escrita, DataSource leitura) {
+        setTargetDataSources(Map.of(Destino.ESCRITA, escrita, Destino.LEITURA, leitura));
+        setDefaultTargetDataSource(escrita);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Destino das conexões obtidas agora nesta thread
+     */
+    public static Destino destinoAtual() {
+        return Boolean.TRUE.equals(REPLICA.get()) && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                ? Destino.LEITURA : Destino.ESCRITA;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return destinoAtual();
+    }
+
+    /**
+     * Liga a réplica durante os métodos {@link LeituraReplica}
+     */
+    @Aspect
+    public static class Interceptador {
+
+        @Around("@within(br.edu.fiap.soa.estacionamento.repository.LeituraReplica) || " +
+                "@annotation(br.edu.fiap.soa.estacionamento.repository.LeituraReplica)")
+        public Object naReplica(ProceedingJoinPoint ponto) throws Throwable {
+            Boolean anterior = REPLICA.get();
+            REPLICA.set(Boolean.TRUE);
+            try {
+                return ponto.proceed();
+            } finally {
+                if (anterior == null) REPLICA.remove();
+                else REPLICA.set(anterior);
+            }
+        }
+    }
+}
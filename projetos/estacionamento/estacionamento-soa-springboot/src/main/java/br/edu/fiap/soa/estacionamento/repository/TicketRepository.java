@@ -1,20 +1,60 @@
 package br.edu.fiap.soa.estacionamento.repository;
 import br.edu.fiap.soa.estacionamento.domain.Ticket;
 import br.edu.fiap.soa.estacionamento.domain.TicketStatus;
+import br.edu.fiap.soa.estacionamento.web.dto.TicketResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
     List<Ticket> findByStatus(TicketStatus status);
     boolean existsByVeiculoIdAndStatus(Long veiculoId, TicketStatus status);
     
+    // Carrega o veículo junto, já que toda resposta de ticket expõe a placa
+    @EntityGraph(attributePaths = "veiculo")
+    Optional<Ticket> findComVeiculoById(Long id);
+    
+    // Listagem paginada por cursor e exportação dos tickets abertos, já projetados em DTO
+    @Query("SELECT new br.edu.fiap.soa.estacionamento.web.dto.TicketResponse(" +
+           "t.id, t.veiculo.placa, t.vaga, t.entrada, t.saida, t.valor, t.status) " +
+           "FROM Ticket t WHERE t.status = 'ABERTO' AND t.id > :apos ORDER BY t.id")
+    List<TicketResponse> findAbertosApos(@Param("apos") Long apos, Pageable pagina);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new br.edu.fiap.soa.estacionamento.web.dto.TicketResponse(" +
+           "t.id, t.veiculo.placa, t.vaga, t.entrada, t.saida, t.valor, t.status) " +
+           "FROM Ticket t WHERE t.status = 'ABERTO' ORDER BY t.id")
+    Stream<TicketResponse> streamAbertos();
+    
+    // Tickets abertos envolvidos em um lote de eventos de portão, em uma única consulta
+    @Query("SELECT t FROM Ticket t JOIN FETCH t.veiculo v WHERE t.status = 'ABERTO' " +
+           "AND (t.id IN :ids OR v.placa IN :placas OR t.vaga IN :vagas)")
+    List<Ticket> findAbertosDoLote(@Param("ids") Collection<Long> ids,
+                                  @Param("placas") Collection<String> placas,
+                                  @Param("vagas") Collection<String> vagas);
+    
     // Novos métodos para relatórios e controle de lotação
     @Query("SELECT COUNT(t) FROM Ticket t WHERE t.status = 'ABERTO'")
     Long countTicketsAbertos();
+
+    @Query("SELECT t.vaga FROM Ticket t WHERE t.status = 'ABERTO'")
+    List<String> findVagasAbertas();
+
+    // Linhas: id, veiculoId, placa, vaga, entrada, tipoTarifa — base dos tickets abertos em memória
+    @Query("SELECT t.id, t.veiculo.id, t.veiculo.placa, t.vaga, t.entrada, t.tipoTarifa FROM Ticket t " +
+           "WHERE t.status = 'ABERTO'")
+    List<Object[]> findResumoAbertos();
     
     @Query("SELECT t FROM Ticket t WHERE t.entrada BETWEEN :inicio AND :fim")
     List<Ticket> findByPeriodo(@Param("inicio") LocalDateTime inicio, 
@@ -25,4 +65,40 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
                                        @Param("fim") LocalDateTime fim);
     
     List<Ticket> findByVaga(String vaga);
+    
+    // Consultas do rollup incremental
+    @Query("SELECT MIN(t.entrada) FROM Ticket t")
+    LocalDateTime findMenorEntrada();
+
+    @Query("SELECT MIN(t.entrada) FROM Ticket t WHERE t.status = 'ABERTO'")
+    LocalDateTime findMenorEntradaAberta();
+    
+    @Query("SELECT t.entrada, t.vaga, t.tipoTarifa FROM Ticket t WHERE t.entrada > :desde AND t.entrada <= :ate")
+    List<Object[]> findEntradasRollup(@Param("desde") LocalDateTime desde,
+                                     @Param("ate") LocalDateTime ate);
+    
+    @Query("SELECT t.entrada, t.vaga, t.tipoTarifa, t.valor FROM Ticket t " +
+           "WHERE t.status = 'FECHADO' AND t.saida > :desde AND t.saida <= :ate")
+    List<Object[]> findFechamentosRollup(@Param("desde") LocalDateTime desde,
+                                        @Param("ate") LocalDateTime ate);
+    
+    // Linhas: vaga, tipoTarifa, tickets, fechados, receita — fragmentos fora dos buckets
+    @Query("SELECT t.vaga, t.tipoTarifa, COUNT(t), " +
+           "SUM(CASE WHEN t.status = 'FECHADO' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN t.status = 'FECHADO' THEN t.valor ELSE NULL END) " +
+           "FROM Ticket t WHERE (t.entrada >= :inicio AND t.entrada < :corteInicio) " +
+           "OR (t.entrada >= :corteFim AND t.entrada <= :fim) " +
+           "GROUP BY t.vaga, t.tipoTarifa")
+    List<Object[]> agregarFragmentos(@Param("inicio") LocalDateTime inicio,
+                                    @Param("corteInicio") LocalDateTime corteInicio,
+                                    @Param("corteFim") LocalDateTime corteFim,
+                                    @Param("fim") LocalDateTime fim);
+    
+    // Linhas: vaga, tipoTarifa, fechados, receita — tickets dos buckets fechados após a marca d'água
+    @Query("SELECT t.vaga, t.tipoTarifa, COUNT(t), SUM(t.valor) FROM Ticket t " +
+           "WHERE t.status = 'FECHADO' AND t.entrada >= :inicio AND t.entrada < :fim AND t.saida > :marca " +
+           "GROUP BY t.vaga, t.tipoTarifa")
+    List<Object[]> agregarFechadosAposMarca(@Param("inicio") LocalDateTime inicio,
+                                           @Param("fim") LocalDateTime fim,
+                                           @Param("marca") LocalDateTime marca);
 }
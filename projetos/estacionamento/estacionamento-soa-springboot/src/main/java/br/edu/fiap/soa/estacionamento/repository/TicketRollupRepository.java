@@ -0,0 +1,31 @@
+package br.edu.fiap.soa.estacionamento.repository;
+
+import br.edu.fiap.soa.estacionamento.domain.GranularidadeRollup;
+import br.edu.fiap.soa.estacionamento.domain.TicketRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface TicketRollupRepository extends JpaRepository<TicketRollup, Long> {
+    
+    List<TicketRollup> findByGranularidadeAndInicioIn(GranularidadeRollup granularidade,
+                                                     Collection<LocalDateTime> inicios);
+    
+    // Linhas: vaga, tipoTarifa, tickets, fechados, receita
+    @Query("SELECT r.vaga, r.tipoTarifa, SUM(r.quantidadeTickets), SUM(r.quantidadeFechados), SUM(r.receita) " +
+           "FROM TicketRollup r WHERE " +
+           "(r.granularidade = 'DIA' AND r.inicio >= :diaInicio AND r.inicio < :diaFim) OR " +
+           "(r.granularidade = 'HORA' AND ((r.inicio >= :horaInicio1 AND r.inicio < :horaFim1) OR " +
+           "                               (r.inicio >= :horaInicio2 AND r.inicio < :horaFim2))) " +
+           "GROUP BY r.vaga, r.tipoTarifa")
+    List<Object[]> somarBuckets(@Param("diaInicio") LocalDateTime diaInicio,
+                                @Param("diaFim") LocalDateTime diaFim,
+                                @Param("horaInicio1") LocalDateTime horaInicio1,
+                                @Param("horaFim1") LocalDateTime horaFim1,
+                                @Param("horaInicio2") LocalDateTime horaInicio2,
+                                @Param("horaFim2") LocalDateTime horaFim2);
+}
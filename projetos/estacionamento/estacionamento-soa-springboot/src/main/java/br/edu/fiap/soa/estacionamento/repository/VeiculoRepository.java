@@ -1,8 +1,27 @@
 package br.edu.fiap.soa.estacionamento.repository;
 import br.edu.fiap.soa.estacionamento.domain.Veiculo;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 public interface VeiculoRepository extends JpaRepository<Veiculo, Long> {
     Optional<Veiculo> findByPlaca(String placa);
     boolean existsByPlaca(String placa);
+    List<Veiculo> findByPlacaIn(Collection<String> placas);
+    
+    // Listagem paginada por cursor e exportação; a projeção por construtor não gera entidades gerenciadas
+    @Query("SELECT v FROM Veiculo v WHERE v.id > :apos ORDER BY v.id")
+    List<Veiculo> findApos(@Param("apos") Long apos, Pageable pagina);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new br.edu.fiap.soa.estacionamento.domain.Veiculo(v.id, v.placa, v.modelo, v.cor, v.dataCadastro) " +
+           "FROM Veiculo v ORDER BY v.id")
+    Stream<Veiculo> streamTodos();
 }
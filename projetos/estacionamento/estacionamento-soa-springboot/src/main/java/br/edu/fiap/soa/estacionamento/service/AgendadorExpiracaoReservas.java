@@ -0,0 +1,94 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Agenda a expiração de reservas para logo após o próximo vencimento
+ * conhecido pelo {@link IndiceReservas}, em vez de varrer o banco em
+ * intervalos fixos. Uma varredura de segurança com intervalo longo cobre
+ * reservas criadas por outras instâncias.
+ */
+@Component
+public class AgendadorExpiracaoReservas {
+
+    private static final Logger log = LoggerFactory.getLogger(AgendadorExpiracaoReservas.class);
+    // Intervalo mínimo entre execuções, mesmo com vencimento já passado
+    private static final Duration ESPERA_MINIMA = Duration.ofSeconds(1);
+
+    private final ReservaService reservaService;
+    private final IndiceReservas indiceReservas;
+    private final TaskScheduler taskScheduler;
+    // Lock explícito: a expiração faz JDBC e synchronized fixaria a thread virtual à portadora
+    private final ReentrantLock execucao = new ReentrantLock();
+
+    private ScheduledFuture<?> agendamento;
+    private LocalDateTime agendadoPara;
+
+    public AgendadorExpiracaoReservas(ReservaService reservaService,
+                                      IndiceReservas indiceReservas,
+                                      TaskScheduler taskScheduler) {
+        this.reservaService = reservaService;
+        this.indiceReservas = indiceReservas;
+        this.taskScheduler = taskScheduler;
+        indiceReservas.aoIndexarVencimento(this::antecipar);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        executar();
+    }
+
+    /**
+     * Varredura de segurança; o disparo normal vem do próximo vencimento
+     */
+    @Scheduled(fixedDelayString = "${estacionamento.reservas.expiracao.varredura-ms:3600000}",
+               initialDelayString = "${estacionamento.reservas.expiracao.varredura-ms:3600000}")
+    public void executar() {
+        execucao.lock();
+        try {
+            reservaService.expirarReservas();
+        } catch (RuntimeException e) {
+            // Sem reagendar: a varredura de segurança ou a próxima reserva tentam de novo
+            log.warn("Falha ao expirar reservas", e);
+            reagendar(null);
+            return;
+        } finally {
+            execucao.unlock();
+        }
+        reagendar(indiceReservas.getProximoVencimento());
+    }
+
+    private synchronized void antecipar(LocalDateTime vencimento) {
+        if (agendadoPara == null || vencimento.isBefore(agendadoPara)) {
+            reagendar(vencimento);
+        }
+    }
+
+    private synchronized void reagendar(LocalDateTime vencimento) {
+        if (agendamento != null) {
+            agendamento.cancel(false);
+            agendamento = null;
+        }
+        agendadoPara = vencimento;
+        if (vencimento == null) {
+            return;
+        }
+        // A reserva expira quando dataFim < agora, então dispara um segundo depois
+        Instant disparo = vencimento.plusSeconds(1).atZone(ZoneId.systemDefault()).toInstant();
+        Instant minimo = Instant.now().plus(ESPERA_MINIMA);
+        agendamento = taskScheduler.schedule(this::executar, disparo.isBefore(minimo) ? minimo : disparo);
+    }
+}
@@ -0,0 +1,51 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import br.edu.fiap.soa.estacionamento.domain.TipoTarifa;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Totais de tickets de um período, somados a partir de buckets e fragmentos
+ */
+public class AgregadoPeriodo {
+
+    private final Map<String, Long> ticketsPorVaga = new HashMap<>();
+    private final Map<TipoTarifa, BigDecimal> receitaPorTarifa = new EnumMap<>(TipoTarifa.class);
+    private long totalFechados;
+    private BigDecimal receitaTotal = BigDecimal.ZERO;
+
+    /**
+     * Soma uma linha agregada (vaga, tipoTarifa, tickets, fechados, receita)
+     */
+    void somar(String vaga, TipoTarifa tipoTarifa, long tickets, long fechados, BigDecimal receita) {
+        TipoTarifa tipo = tipoTarifa != null ? tipoTarifa : TipoTarifa.HORARIA;
+        if (tickets != 0) {
+            ticketsPorVaga.merge(vaga, tickets, Long::sum);
+        }
+        totalFechados += fechados;
+        if (receita != null && receita.signum() != 0) {
+            receitaTotal = receitaTotal.add(receita);
+            receitaPorTarifa.merge(tipo, receita, BigDecimal::add);
+        }
+    }
+
+    public Map<String, Long> getTicketsPorVaga() {
+        return Collections.unmodifiableMap(ticketsPorVaga);
+    }
+
+    public Map<TipoTarifa, BigDecimal> getReceitaPorTarifa() {
+        return Collections.unmodifiableMap(receitaPorTarifa);
+    }
+
+    public long getTotalFechados() {
+        return totalFechados;
+    }
+
+    public BigDecimal getReceitaTotal() {
+        return receitaTotal;
+    }
+}
@@ -0,0 +1,29 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utilitário para adiar efeitos em memória até o commit da transação corrente
+ */
+public final class AposCommit {
+
+    private AposCommit() {
+    }
+
+    /**
+     * Executa a ação após o commit; sem transação ativa, executa imediatamente
+     */
+    public static void executar(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+}
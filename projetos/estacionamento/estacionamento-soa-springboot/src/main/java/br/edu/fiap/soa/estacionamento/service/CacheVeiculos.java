@@ -0,0 +1,95 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import br.edu.fiap.soa.estacionamento.domain.Veiculo;
+import br.edu.fiap.soa.estacionamento.domain.VeiculoSnapshot;
+import br.edu.fiap.soa.estacionamento.repository.VeiculoRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Cache de leitura (read-through) de veículos por placa.
+ * <p>
+ * Caffeine com despejo por tamanho (W-TinyLFU) e por tempo: placas
+ * conhecidas ficam {@code ttl-segundos}; placas desconhecidas ficam em cache
+ * negativo por {@code ttl-negativo-segundos}, o que absorve rajadas de
+ * consultas de placas inexistentes. Cadastros entram no cache e alterações
+ * ou exclusões o invalidam, sempre após o commit. Outros nós só enxergam
+ * alterações depois do TTL.
+ */
+@Component
+public class CacheVeiculos implements MeterBinder {
+
+    private final VeiculoRepository veiculoRepository;
+    private final Cache<String, Optional<VeiculoSnapshot>> cache;
+
+    public CacheVeiculos(VeiculoRepository veiculoRepository,
+                         @Value("${estacionamento.veiculos.cache.tamanho:10000}") long tamanho,
+                         @Value("${estacionamento.veiculos.cache.ttl-segundos:1800}") long ttlSegundos,
+                         @Value("${estacionamento.veiculos.cache.ttl-negativo-segundos:10}") long ttlNegativoSegundos) {
+        this.veiculoRepository = veiculoRepository;
+        long ttl = Duration.ofSeconds(ttlSegundos).toNanos();
+        long ttlNegativo = Duration.ofSeconds(ttlNegativoSegundos).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanho)
+                .expireAfter(new Expiry<String, Optional<VeiculoSnapshot>>() {
+                    @Override
+                    public long expireAfterCreate(String placa, Optional<VeiculoSnapshot> veiculo, long agora) {
+                        return veiculo.isPresent() ? ttl : ttlNegativo;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String placa, Optional<VeiculoSnapshot> veiculo, long agora,
+                                                  long restante) {
+                        return veiculo.isPresent() ? ttl : ttlNegativo;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String placa, Optional<VeiculoSnapshot> veiculo, long agora,
+                                                long restante) {
+                        return restante;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Busca o veículo pela placa, consultando o banco só em caso de falta.
+     * O veículo devolvido é uma entidade desanexada, nova a cada chamada.
+     */
+    public Optional<Veiculo> buscar(String placa) {
+        return cache.get(placa, p -> veiculoRepository.findByPlaca(p).map(VeiculoSnapshot::de))
+                .map(VeiculoSnapshot::toEntity);
+    }
+
+    /**
+     * Coloca no cache um veículo recém-cadastrado, após o commit; substitui
+     * uma eventual entrada negativa da placa
+     */
+    public void registrarAposCommit(Veiculo veiculo) {
+        VeiculoSnapshot snapshot = VeiculoSnapshot.de(veiculo);
+        AposCommit.executar(() -> cache.put(snapshot.getPlaca(), Optional.of(snapshot)));
+    }
+
+    /**
+     * Remove a placa do cache após o commit de uma alteração ou exclusão
+     */
+    public void invalidarAposCommit(String placa) {
+        AposCommit.executar(() -> cache.invalidate(placa));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // cache_gets{result=hit|miss}, cache_evictions, cache_size...
+        CaffeineCacheMetrics.monitor(registry, cache, "veiculos");
+    }
+}
@@ -0,0 +1,94 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import br.edu.fiap.soa.estacionamento.domain.ConfiguracaoSnapshot;
+import br.edu.fiap.soa.estacionamento.domain.EstacionamentoConfig;
+import br.edu.fiap.soa.estacionamento.repository.EstacionamentoConfigRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mantém em memória a configuração ativa do estacionamento.
+ * <p>
+ * A troca é atômica: leitores sempre veem um snapshot completo. Alterações
+ * feitas neste nó são publicadas após o commit; alterações feitas por outros
+ * nós são detectadas consultando periodicamente a versão ativa no banco.
+ */
+@Component
+public class ConfiguracaoCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfiguracaoCache.class);
+
+    private final EstacionamentoConfigRepository configRepository;
+    private final AtomicReference<ConfiguracaoSnapshot> atual = new AtomicReference<>();
+    private volatile Runnable ouvinte = () -> { };
+
+    public ConfiguracaoCache(EstacionamentoConfigRepository configRepository) {
+        this.configRepository = configRepository;
+    }
+
+    /**
+     * Retorna o snapshot ativo, carregando do banco apenas na primeira chamada
+     */
+    public ConfiguracaoSnapshot get() {
+        ConfiguracaoSnapshot snapshot = atual.get();
+        return snapshot != null ? snapshot : recarregar();
+    }
+
+    /**
+     * Define quem é avisado quando a configuração ativa muda (ex.: total de vagas)
+     */
+    public void aoAlterar(Runnable ouvinte) {
+        this.ouvinte = ouvinte;
+    }
+
+    /**
+     * Publica uma nova configuração após o commit da transação corrente
+     */
+    public void publicarAposCommit(EstacionamentoConfig config) {
+        ConfiguracaoSnapshot novo = ConfiguracaoSnapshot.de(config);
+        AposCommit.executar(() -> publicar(novo));
+    }
+
+    /**
+     * Verifica se outro nó ativou uma configuração diferente
+     */
+    @Scheduled(fixedDelayString = "${estacionamento.config.verificacao-ms:30000}",
+               initialDelayString = "${estacionamento.config.verificacao-ms:30000}")
+    public void verificarVersao() {
+        Long versaoBanco = configRepository.findActiveConfigVersion();
+        ConfiguracaoSnapshot snapshot = atual.get();
+        if (versaoBanco != null && (snapshot == null || snapshot.getVersao() != versaoBanco)) {
+            log.info("Nova versão de configuração detectada no banco: {}", versaoBanco);
+            recarregar();
+        }
+    }
+
+    private ConfiguracaoSnapshot recarregar() {
+        EstacionamentoConfig config = configRepository.findActiveConfig()
+                .orElseThrow(() -> new RuntimeException("Configuração do estacionamento não encontrada"));
+        ConfiguracaoSnapshot novo = ConfiguracaoSnapshot.de(config);
+        // A leitura do banco pode ter começado antes de uma publicação mais nova
+        ConfiguracaoSnapshot anterior = atual.getAndUpdate(vigente -> maisRecente(vigente, novo));
+        ConfiguracaoSnapshot vigente = maisRecente(anterior, novo);
+        if (anterior != null && vigente == novo) {
+            ouvinte.run();
+        }
+        return vigente;
+    }
+
+    private void publicar(ConfiguracaoSnapshot novo) {
+        ConfiguracaoSnapshot vigente = atual.accumulateAndGet(novo, ConfiguracaoCache::maisRecente);
+        if (vigente == novo) {
+            ouvinte.run();
+        }
+    }
+
+    // Versões são ids crescentes: nunca volta para uma configuração mais antiga
+    private static ConfiguracaoSnapshot maisRecente(ConfiguracaoSnapshot anterior, ConfiguracaoSnapshot candidato) {
+        return anterior == null || candidato.getVersao() >= anterior.getVersao() ? candidato : anterior;
+    }
+}
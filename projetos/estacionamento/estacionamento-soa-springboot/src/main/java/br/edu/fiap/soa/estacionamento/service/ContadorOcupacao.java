@@ -0,0 +1,262 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Contador em memória de tickets abertos (vagas ocupadas).
+ * <p>
+ * É semeado a partir do banco na inicialização, alterado somente após o commit
+ * de check-in/check-out e reconciliado periodicamente com o banco, de modo que
+ * consultas de status e lotação não geram queries. Mantém junto o
+ * {@link MapaVagas}, com a ocupação de cada vaga.
+ * <p>
+ * A reconciliação aplica a diferença entre o banco e a memória, e só a
+ * partir de uma leitura durante a qual nenhuma alteração estava em voo
+ * (do beforeCommit ao fim da transação) nem foi aplicada; assim um check-in
+ * ou check-out concorrente nunca é descartado. Saídas adiadas, feitas fora
+ * de transação, marcam-se em voo com {@link #iniciarAlteracao()}. Depois de
+ * algumas reconciliações adiadas seguidas, a leitura segura por um instante
+ * novas alterações em voo, espera as atuais terminarem e lê assim mesmo.
+ * <p>
+ * As alterações são aplicadas no afterCommit, que roda antes de todo
+ * afterCompletion: quando {@link ControleAdmissao} solta a trava da vaga, o
+ * {@link MapaVagas} já mostra a vaga ocupada ao próximo check-in.
+ */
+@Component
+public class ContadorOcupacao {
+
+    private static final Logger log = LoggerFactory.getLogger(ContadorOcupacao.class);
+    private static final int TENTATIVAS_LEITURA = 5;
+    private static final long PAUSA_LEITURA_NS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final int ADIAMENTOS_ANTES_DE_SEGURAR = 3;
+    private static final long ESPERA_ESVAZIAR_NS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final TicketRepository ticketRepository;
+    private final ControleAdmissao controleAdmissao;
+    private final MapaVagas mapaVagas;
+    private final TicketsAbertos ticketsAbertos;
+    private final AtomicLong ocupadas = new AtomicLong();
+    // Alterações entre o beforeCommit e a aplicação em memória, e contador de mudanças
+    private final AtomicInteger emVoo = new AtomicInteger();
+    private final AtomicLong versao = new AtomicLong();
+    // Leitura na trava de escrita segura novas alterações em voo; marcá-las usa a de leitura
+    private final ReentrantReadWriteLock novasAlteracoes = new ReentrantReadWriteLock();
+    private final AtomicInteger adiamentos = new AtomicInteger();
+    private volatile Runnable ouvinte = () -> { };
+
+    // Os abertos em memória só decidem saídas com a gravação adiada ligada
+    @Value("${estacionamento.checkout.write-behind.habilitado:false}")
+    private boolean gravacaoAdiada;
+
+    public ContadorOcupacao(TicketRepository ticketRepository, ControleAdmissao controleAdmissao,
+                            MapaVagas mapaVagas, TicketsAbertos ticketsAbertos) {
+        this.ticketRepository = ticketRepository;
+        this.controleAdmissao = controleAdmissao;
+        this.mapaVagas = mapaVagas;
+        this.ticketsAbertos = ticketsAbertos;
+    }
+
+    /**
+     * Retorna o número de vagas ocupadas sem consultar o banco
+     */
+    public long getOcupadas() {
+        return ocupadas.get();
+    }
+
+    /**
+     * Define quem é avisado a cada mudança do contador (ex.: transmissão em tempo real).
+     * O aviso roda na thread que aplicou a mudança, então deve ser barato.
+     */
+    public void aoAlterar(Runnable ouvinte) {
+        this.ouvinte = ouvinte;
+    }
+
+    /**
+     * Registra uma entrada na vaga; aplicada somente após o commit da transação corrente
+     */
+    public void registrarEntrada(String vaga) {
+        aplicarAposCommit(() -> {
+            ocupadas.incrementAndGet();
+            mapaVagas.ocupar(vaga);
+        });
+    }
+
+    /**
+     * Registra a saída da vaga; aplicada somente após o commit da transação corrente
+     */
+    public void registrarSaida(String vaga) {
+        aplicarAposCommit(() -> {
+            ocupadas.updateAndGet(atual -> Math.max(0, atual - 1));
+            mapaVagas.liberar(vaga);
+        });
+    }
+
+    /**
+     * Marca como em voo uma alteração feita fora de transação (saída adiada:
+     * aceitação ou gravação), até {@link #concluirAlteracao()}; a
+     * reconciliação não aproveita leituras que a atravessem
+     */
+    public void iniciarAlteracao() {
+        novasAlteracoes.readLock().lock();
+        try {
+            emVoo.incrementAndGet();
+            versao.incrementAndGet();
+        } finally {
+            novasAlteracoes.readLock().unlock();
+        }
+    }
+
+    public void concluirAlteracao() {
+        emVoo.decrementAndGet();
+        versao.incrementAndGet();
+    }
+
+    /**
+     * Semeia o contador assim que a aplicação sobe
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        reconciliar();
+    }
+
+    /**
+     * Corrige eventuais divergências (ex.: alterações feitas direto no banco)
+     */
+    @Scheduled(fixedDelayString = "${estacionamento.ocupacao.reconciliacao-ms:60000}",
+               initialDelayString = "${estacionamento.ocupacao.reconciliacao-ms:60000}")
+    public void reconciliar() {
+        Leitura leitura = lerSemAlteracoes(TENTATIVAS_LEITURA);
+        if (leitura == null) {
+            int seguidos = adiamentos.incrementAndGet();
+            if (seguidos < ADIAMENTOS_ANTES_DE_SEGURAR) {
+                log.info("Reconciliação da ocupação adiada: alterações concorrentes durante a leitura");
+                return;
+            }
+            leitura = lerSegurandoAlteracoes();
+            if (leitura == null) {
+                log.warn("Reconciliação da ocupação adiada {} vezes seguidas: alterações em voo não terminaram em {} ms",
+                        seguidos, TimeUnit.NANOSECONDS.toMillis(ESPERA_ESVAZIAR_NS));
+                return;
+            }
+        }
+        adiamentos.set(0);
+        List<String> vagas = new ArrayList<>(leitura.vagas());
+        if (gravacaoAdiada) {
+            ticketsAbertos.reconstruir();
+        }
+        // Saídas adiadas ainda constam como abertas no banco; lidas na mesma
+        // janela estável, nenhuma foi gravada entre as duas leituras
+        leitura.pendentes().forEach(pendente -> vagas.remove(pendente.vaga()));
+        long banco = vagas.size();
+        mapaVagas.sincronizar(vagas, leitura.marcaVagas());
+        // Alterações aplicadas depois da leitura são posteriores a ela: soma só a diferença
+        long diferenca = banco - leitura.ocupadas();
+        long atual = ocupadas.addAndGet(diferenca);
+        controleAdmissao.sincronizar(banco, leitura.confirmadas());
+        if (diferenca != 0) {
+            log.info("Ocupação reconciliada com o banco: {} -> {}", atual - diferenca, atual);
+            ouvinte.run();
+        }
+    }
+
+    // Lê as vagas abertas e a ocupação em memória correspondente; nula se
+    // nenhuma tentativa ficou livre de alterações
+    private Leitura lerSemAlteracoes(int tentativas) {
+        for (int tentativa = 0; tentativa < tentativas; tentativa++) {
+            long versaoAntes = versao.get();
+            if (emVoo.get() == 0) {
+                long memoria = ocupadas.get();
+                long confirmadas = controleAdmissao.getConfirmadas();
+                long marcaVagas = mapaVagas.getMarca();
+                Collection<TicketsAbertos.Aberto> pendentes = ticketsAbertos.getFechamentosPendentes();
+                List<String> vagas = ticketRepository.findVagasAbertas();
+                if (versao.get() == versaoAntes) {
+                    return new Leitura(memoria, confirmadas, marcaVagas, pendentes, vagas);
+                }
+            }
+            LockSupport.parkNanos(PAUSA_LEITURA_NS);
+        }
+        return null;
+    }
+
+    // Segura novas alterações em voo e espera as atuais terminarem; nula se
+    // não terminarem a tempo
+    private Leitura lerSegurandoAlteracoes() {
+        novasAlteracoes.writeLock().lock();
+        try {
+            long limite = System.nanoTime() + ESPERA_ESVAZIAR_NS;
+            while (emVoo.get() > 0) {
+                if (System.nanoTime() - limite > 0) {
+                    return null;
+                }
+                LockSupport.parkNanos(PAUSA_LEITURA_NS);
+            }
+            return lerSemAlteracoes(1);
+        } finally {
+            novasAlteracoes.writeLock().unlock();
+        }
+    }
+
+    // Como AposCommit, mas marca a alteração em voo do beforeCommit até o fim da transação
+    private void aplicarAposCommit(Runnable alteracao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            iniciarAlteracao();
+            try {
+                aplicar(alteracao);
+            } finally {
+                concluirAlteracao();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean emCommit;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                iniciarAlteracao();
+                emCommit = true;
+            }
+
+            // Antes dos afterCompletion, que soltam a trava da vaga
+            @Override
+            public void afterCommit() {
+                aplicar(alteracao);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (emCommit) {
+                    concluirAlteracao();
+                }
+            }
+        });
+    }
+
+    private void aplicar(Runnable alteracao) {
+        alteracao.run();
+        versao.incrementAndGet();
+        ouvinte.run();
+    }
+
+    private record Leitura(long ocupadas, long confirmadas, long marcaVagas,
+                           Collection<TicketsAbertos.Aberto> pendentes, List<String> vagas) {
+    }
+}
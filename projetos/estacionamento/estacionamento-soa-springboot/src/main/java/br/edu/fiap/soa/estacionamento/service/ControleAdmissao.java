@@ -0,0 +1,215 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Controle de admissão do check-in, sem serializar no banco.
+ * <p>
+ * Mantém um pool de permissões (vagas ocupadas + check-ins em andamento)
+ * limitado pelo total de vagas do snapshot de configuração ativo, portanto o
+ * limite acompanha alterações de configuração sem reinicialização. Cada vaga
+ * é protegida por uma trava de uma faixa fixa de locks, mantida até o fim da
+ * transação, para que a mesma vaga física não receba dois tickets. Quem
+ * precisa de várias vagas de uma vez (lotes dos portões) trava as faixas
+ * antes, em ordem crescente, com {@link #travarVagas}.
+ * <p>
+ * As permissões confirmadas (tickets abertos) são contadas à parte das
+ * pendentes, e a reconciliação com o banco soma só a diferença: admissões
+ * e liberações que terminam depois da leitura do banco não se perdem.
+ * <p>
+ * O controle vale para o nó local; entre nós a proteção continua sendo a
+ * do banco.
+ */
+@Component
+public class ControleAdmissao {
+
+    private static final int FAIXAS = 64;
+    private static final long ESPERA_TRAVA_MS = 5000;
+
+    private final ConfiguracaoCache configuracaoCache;
+    private final ReentrantLock[] travas = new ReentrantLock[FAIXAS];
+    private final AtomicLong emUso = new AtomicLong();
+    private final AtomicInteger pendentes = new AtomicInteger();
+    private final AtomicLong confirmadas = new AtomicLong();
+
+    public ControleAdmissao(ConfiguracaoCache configuracaoCache) {
+        this.configuracaoCache = configuracaoCache;
+        for (int i = 0; i < FAIXAS; i++) {
+            travas[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Reserva uma permissão e trava a vaga até o fim da transação corrente.
+     * No commit a permissão passa a representar o ticket aberto; no rollback
+     * ela é devolvida.
+     */
+    public void admitirNaTransacao(String vaga) {
+        Admissao admissao = admitir(vaga);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            admissao.confirmar();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    admissao.confirmar();
+                } else {
+                    admissao.cancelar();
+                }
+            }
+        });
+    }
+
+    /**
+     * Reserva uma permissão e trava a vaga; o chamador deve encerrar a
+     * admissão com {@link Admissao#confirmar()} ou {@link Admissao#cancelar()}
+     * na mesma thread.
+     */
+    public Admissao admitir(String vaga) {
+        int capacidade = configuracaoCache.get().getTotalVagas();
+        long atual;
+        do {
+            atual = emUso.get();
+            if (atual >= capacidade) {
+                throw new RuntimeException("Estacionamento lotado - " + atual + "/" + capacidade + " vagas ocupadas");
+            }
+        } while (!emUso.compareAndSet(atual, atual + 1));
+        pendentes.incrementAndGet();
+
+        ReentrantLock trava = travaDa(vaga);
+        try {
+            if (!trava.tryLock(ESPERA_TRAVA_MS, TimeUnit.MILLISECONDS)) {
+                devolver();
+                throw new RuntimeException("Vaga " + vaga + " em processamento por outro check-in");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            devolver();
+            throw new RuntimeException("Check-in interrompido", e);
+        }
+        return new Admissao(trava);
+    }
+
+    /**
+     * Trava de uma vez as faixas das vagas informadas, em ordem crescente,
+     * para que dois lotes não se bloqueiem mutuamente. As admissões dessas
+     * vagas na mesma thread reaproveitam as travas já obtidas.
+     *
+     * @return ação que solta as travas, a executar na mesma thread
+     */
+    public Runnable travarVagas(Collection<String> vagas) {
+        int[] faixas = vagas.stream().mapToInt(this::faixaDa).distinct().sorted().toArray();
+        List<ReentrantLock> obtidas = new ArrayList<>(faixas.length);
+        try {
+            for (int faixa : faixas) {
+                if (!travas[faixa].tryLock(ESPERA_TRAVA_MS, TimeUnit.MILLISECONDS)) {
+                    throw new RuntimeException("Vagas do lote em processamento por outro check-in");
+                }
+                obtidas.add(travas[faixa]);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            obtidas.forEach(ReentrantLock::unlock);
+            throw new RuntimeException("Lote interrompido", e);
+        } catch (RuntimeException e) {
+            obtidas.forEach(ReentrantLock::unlock);
+            throw e;
+        }
+        return () -> obtidas.forEach(ReentrantLock::unlock);
+    }
+
+    /**
+     * Devolve a permissão de um ticket fechado, após o commit do check-out
+     */
+    public void liberarAposCommit() {
+        AposCommit.executar(() -> {
+            confirmadas.updateAndGet(atual -> Math.max(0, atual - 1));
+            emUso.updateAndGet(atual -> Math.max(0, atual - 1));
+        });
+    }
+
+    /**
+     * Realinha o pool com o número de tickets abertos no banco
+     *
+     * @param confirmadasNaLeitura {@link #getConfirmadas()} lido sem alterações
+     *                             em andamento, junto com a leitura do banco
+     */
+    public void sincronizar(long ocupadasNoBanco, long confirmadasNaLeitura) {
+        long diferenca = ocupadasNoBanco - confirmadasNaLeitura;
+        if (diferenca != 0) {
+            confirmadas.addAndGet(diferenca);
+            emUso.addAndGet(diferenca);
+        }
+    }
+
+    /**
+     * Permissões de check-ins já confirmados (tickets abertos)
+     */
+    public long getConfirmadas() {
+        return confirmadas.get();
+    }
+
+    /**
+     * Permissões em uso (tickets abertos + check-ins em andamento)
+     */
+    public long getEmUso() {
+        return emUso.get();
+    }
+
+    private ReentrantLock travaDa(String vaga) {
+        return travas[faixaDa(vaga)];
+    }
+
+    private int faixaDa(String vaga) {
+        return Math.floorMod(vaga.hashCode(), FAIXAS);
+    }
+
+    private void devolver() {
+        pendentes.decrementAndGet();
+        emUso.decrementAndGet();
+    }
+
+    /**
+     * Admissão em andamento: mantém a permissão e a trava da vaga
+     */
+    public final class Admissao {
+        private final ReentrantLock trava;
+        private boolean encerrada;
+
+        private Admissao(ReentrantLock trava) {
+            this.trava = trava;
+        }
+
+        public void confirmar() {
+            encerrar(true);
+        }
+
+        public void cancelar() {
+            encerrar(false);
+        }
+
+        private void encerrar(boolean confirmada) {
+            if (encerrada) return;
+            encerrada = true;
+            trava.unlock();
+            if (confirmada) {
+                confirmadas.incrementAndGet();
+                pendentes.decrementAndGet();
+            } else {
+                devolver();
+            }
+        }
+    }
+}
@@ -2,7 +2,6 @@ package br.edu.fiap.soa.estacionamento.service;
 
 import br.edu.fiap.soa.estacionamento.domain.EstacionamentoConfig;
 import br.edu.fiap.soa.estacionamento.repository.EstacionamentoConfigRepository;
-import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,36 +14,36 @@ import java.math.BigDecimal;
 public class EstacionamentoService {
     
     private final EstacionamentoConfigRepository configRepository;
-    private final TicketRepository ticketRepository;
+    private final ConfiguracaoCache configuracaoCache;
+    private final ContadorOcupacao contadorOcupacao;
     
     public EstacionamentoService(EstacionamentoConfigRepository configRepository,
-                               TicketRepository ticketRepository) {
+                               ConfiguracaoCache configuracaoCache,
+                               ContadorOcupacao contadorOcupacao) {
         this.configRepository = configRepository;
-        this.ticketRepository = ticketRepository;
+        this.configuracaoCache = configuracaoCache;
+        this.contadorOcupacao = contadorOcupacao;
     }
     
     /**
      * Verifica se há vagas disponíveis
      */
     public boolean temVagasDisponiveis() {
-        EstacionamentoConfig config = getConfiguracaoAtiva();
-        Long ticketsAbertos = ticketRepository.countTicketsAbertos();
-        
-        return ticketsAbertos < config.getTotalVagas();
+        return contadorOcupacao.getOcupadas() < getTotalVagas();
     }
     
     /**
-     * Retorna o número de vagas ocupadas
+     * Retorna o número de vagas ocupadas (contador em memória, sem query)
      */
     public Long getVagasOcupadas() {
-        return ticketRepository.countTicketsAbertos();
+        return contadorOcupacao.getOcupadas();
     }
     
     /**
      * Retorna o número total de vagas
      */
     public Integer getTotalVagas() {
-        return getConfiguracaoAtiva().getTotalVagas();
+        return configuracaoCache.get().getTotalVagas();
     }
     
     /**
@@ -74,11 +73,10 @@ public class EstacionamentoService {
     }
     
     /**
-     * Retorna a configuração ativa do estacionamento
+     * Retorna a configuração ativa do estacionamento (cópia do snapshot em memória)
      */
     public EstacionamentoConfig getConfiguracaoAtiva() {
-        return configRepository.findActiveConfig()
-                .orElseThrow(() -> new RuntimeException("Configuração do estacionamento não encontrada"));
+        return configuracaoCache.get().toEntity();
     }
     
     /**
@@ -106,6 +104,8 @@ public class EstacionamentoService {
                 .ativo(true)
                 .build();
         
-        return configRepository.save(novaConfig);
+        EstacionamentoConfig salva = configRepository.save(novaConfig);
+        configuracaoCache.publicarAposCommit(salva);
+        return salva;
     }
 }
@@ -0,0 +1,406 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import br.edu.fiap.soa.estacionamento.domain.EventoEstacionamento;
+import br.edu.fiap.soa.estacionamento.domain.Ticket;
+import br.edu.fiap.soa.estacionamento.domain.TicketStatus;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import br.edu.fiap.soa.estacionamento.web.dto.TicketResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Saída com gravação adiada (write-behind), ligada por
+ * {@code estacionamento.checkout.write-behind.habilitado}.
+ * <p>
+ * A saída é decidida e precificada com o estado em memória
+ * ({@link TicketsAbertos} e tarifas em cache) e respondida na hora. O
+ * fechamento vai para um diário local, gravado (com fsync, por padrão) antes
+ * da resposta, e para uma fila que uma thread grava no banco em lotes. Se o
+ * processo cair, o diário é regravado na próxima subida; tickets já fechados
+ * são ignorados, então regravar um fechamento não tem efeito.
+ * <p>
+ * A fila é limitada: cheia, a saída espera um pouco por espaço e depois volta
+ * ao caminho síncrono, que anda no ritmo do banco (contrapressão). Tickets
+ * abertos em outro nó também seguem pelo caminho síncrono.
+ */
+@Component
+public class FilaFechamentos implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(FilaFechamentos.class);
+    private static final long ESPERA_GRAVACAO_MS = 5000;
+    private static final long PAUSA_APOS_FALHA_MS = 1000;
+
+    private final TicketRepository ticketRepository;
+    private final TicketsAbertos ticketsAbertos;
+    private final TarifaService tarifaService;
+    private final ContadorOcupacao contadorOcupacao;
+    private final ControleAdmissao controleAdmissao;
+    private final RegistroEventos registroEventos;
+    private final RollupService rollupService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<Fechamento> fila = new LinkedBlockingQueue<>();
+    // Diário e fila na mesma ordem: quando a fila esvazia, todo o diário já está no banco
+    private final ReentrantLock escrita = new ReentrantLock();
+    private final AtomicLong aceitas = new AtomicLong();
+    private final AtomicLong recusadas = new AtomicLong();
+    private final AtomicLong gravadas = new AtomicLong();
+
+    @Value("${estacionamento.checkout.write-behind.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${estacionamento.checkout.write-behind.diario:dados/saidas.diario}")
+    private String caminhoDiario = "dados/saidas.diario";
+
+    @Value("${estacionamento.checkout.write-behind.fsync:true}")
+    private boolean fsync = true;
+
+    @Value("${estacionamento.checkout.write-behind.capacidade:10000}")
+    private int capacidade = 10000;
+
+    @Value("${estacionamento.checkout.write-behind.espera-ms:50}")
+    private long esperaMs = 50;
+
+    @Value("${estacionamento.checkout.write-behind.lote:200}")
+    private int tamanhoLote = 200;
+
+    private Semaphore vagasFila;
+    private FileChannel diario;
+    private Thread gravador;
+    private volatile boolean ativa;
+    private volatile boolean prazoEsgotado;
+
+    public FilaFechamentos(TicketRepository ticketRepository,
+                           TicketsAbertos ticketsAbertos,
+                           TarifaService tarifaService,
+                           ContadorOcupacao contadorOcupacao,
+                           ControleAdmissao controleAdmissao,
+                           RegistroEventos registroEventos,
+                           RollupService rollupService,
+                           PlatformTransactionManager transactionManager) {
+        this.ticketRepository = ticketRepository;
+        this.ticketsAbertos = ticketsAbertos;
+        this.tarifaService = tarifaService;
+        this.contadorOcupacao = contadorOcupacao;
+        this.controleAdmissao = controleAdmissao;
+        this.registroEventos = registroEventos;
+        this.rollupService = rollupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Saída registrada em {@code ticketId}, com {@code saida} e {@code valor} já decididos
+     */
+    record Fechamento(long ticketId, LocalDateTime saida, BigDecimal valor) {
+
+        String linha() {
+            return ticketId + ";" + saida + ";" + valor + "\n";
+        }
+
+        static Fechamento de(String linha) {
+            String[] campos = linha.split(";");
+            return new Fechamento(Long.parseLong(campos[0]), LocalDateTime.parse(campos[1]), new BigDecimal(campos[2]));
+        }
+    }
+
+    /**
+     * Regrava o diário deixado por uma execução anterior e, se o modo estiver
+     * ligado, abre o diário e inicia a gravação em segundo plano
+     */
+    @PostConstruct
+    public void iniciar() throws IOException {
+        Path caminho = Path.of(caminhoDiario);
+        recuperar(caminho);
+        if (!habilitado) return;
+        if (caminho.getParent() != null) {
+            Files.createDirectories(caminho.getParent());
+        }
+        diario = FileChannel.open(caminho, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        vagasFila = new Semaphore(capacidade);
+        ativa = true;
+        gravador = new Thread(this::gravarContinuamente, "saidas-write-behind");
+        gravador.setDaemon(true);
+        gravador.start();
+        log.info("Saídas com gravação adiada: diário em {} (fsync={}, capacidade={})",
+                caminho.toAbsolutePath(), fsync, capacidade);
+    }
+
+    /**
+     * Para de aceitar saídas e grava o que restou na fila; o que não couber no
+     * prazo continua no diário para a próxima subida
+     */
+    @PreDestroy
+    public void encerrar() throws IOException, InterruptedException {
+        if (!ativa) return;
+        ativa = false;
+        gravador.join(ESPERA_GRAVACAO_MS);
+        if (gravador.isAlive()) {
+            // Não começa outro lote com o contexto fechando; o resto fica no diário
+            prazoEsgotado = true;
+            log.warn("Encerrando com {} saídas ainda não gravadas; serão recuperadas do diário", fila.size());
+        }
+        diario.close();
+    }
+
+    /**
+     * Tenta a saída adiada do ticket
+     *
+     * @return resposta do check-out; vazio quando a saída deve seguir pelo caminho síncrono
+     */
+    public Optional<TicketResponse> fechar(Long ticketId) {
+        if (!ativa) return Optional.empty();
+        TicketsAbertos.Aberto aberto;
+        LocalDateTime saida = LocalDateTime.now();
+        BigDecimal valor;
+        // Da tomada do ticket à liberação da vaga a reconciliação não lê pela metade
+        contadorOcupacao.iniciarAlteracao();
+        try {
+            aberto = ticketsAbertos.reservarFechamento(ticketId);
+            if (aberto == null) return Optional.empty();
+            try {
+                valor = tarifaService.calcularValor(aberto.entrada(), saida, aberto.tipoTarifa());
+            } catch (RuntimeException e) {
+                ticketsAbertos.desfazerFechamento(ticketId);
+                throw e;
+            }
+            if (!enfileirar(new Fechamento(ticketId, saida, valor))) {
+                ticketsAbertos.desfazerFechamento(ticketId);
+                recusadas.incrementAndGet();
+                return Optional.empty();
+            }
+            // Sem transação: contador, mapa e lotação são atualizados na hora
+            contadorOcupacao.registrarSaida(aberto.vaga());
+            controleAdmissao.liberarAposCommit();
+        } finally {
+            contadorOcupacao.concluirAlteracao();
+        }
+        aceitas.incrementAndGet();
+        return Optional.of(TicketResponse.builder()
+                .id(ticketId)
+                .placa(aberto.placa())
+                .vaga(aberto.vaga())
+                .entrada(aberto.entrada())
+                .saida(saida)
+                .valor(valor)
+                .status(TicketStatus.FECHADO)
+                .build());
+    }
+
+    /**
+     * Espera a gravação das saídas adiadas do veículo (ex.: reentrada logo após a saída)
+     */
+    public void aguardarVeiculo(Long veiculoId) {
+        aguardar(() -> !ticketsAbertos.isFechandoVeiculo(veiculoId));
+    }
+
+    /**
+     * Espera a gravação de todas as saídas adiadas aceitas até agora
+     */
+    public void aguardarGravacao() {
+        aguardar(() -> ticketsAbertos.getFechamentosPendentes().isEmpty());
+    }
+
+    public int getPendentes() {
+        return fila.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("estacionamento.checkout.write.behind.pendentes", this, FilaFechamentos::getPendentes)
+                .description("Saídas aceitas aguardando gravação no banco")
+                .register(registry);
+        contador(registry, "aceita", aceitas);
+        contador(registry, "recusada", recusadas);
+        contador(registry, "gravada", gravadas);
+    }
+
+    private static void contador(MeterRegistry registry, String resultado, AtomicLong valor) {
+        FunctionCounter.builder("estacionamento.checkout.write.behind", valor, AtomicLong::get)
+                .tag("resultado", resultado)
+                .description("Saídas adiadas: aceitas, recusadas (fila cheia) e gravadas no banco")
+                .register(registry);
+    }
+
+    // Com a fila cheia além da espera (ou falha no diário) a saída volta ao caminho síncrono
+    private boolean enfileirar(Fechamento fechamento) {
+        try {
+            if (!vagasFila.tryAcquire(esperaMs, TimeUnit.MILLISECONDS)) return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        escrita.lock();
+        try {
+            ByteBuffer linha = StandardCharsets.UTF_8.encode(fechamento.linha());
+            while (linha.hasRemaining()) {
+                diario.write(linha);
+            }
+            if (fsync) {
+                diario.force(false);
+            }
+            fila.add(fechamento);
+            return true;
+        } catch (IOException e) {
+            // Uma linha gravada pela metade é descartada na recuperação; inteira,
+            // é ignorada porque a saída síncrona terá fechado o ticket
+            log.warn("Falha ao gravar o diário de saídas; seguindo pelo caminho síncrono", e);
+            vagasFila.release();
+            return false;
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    private void gravarContinuamente() {
+        List<Fechamento> lote = new ArrayList<>(tamanhoLote);
+        while ((ativa || !fila.isEmpty()) && !prazoEsgotado) {
+            try {
+                Fechamento primeiro = fila.poll(100, TimeUnit.MILLISECONDS);
+                if (primeiro == null) continue;
+                lote.add(primeiro);
+                fila.drainTo(lote, tamanhoLote - 1);
+                // Do commit à saída de "fechando" o ticket não consta nem no banco nem nas pendentes
+                contadorOcupacao.iniciarAlteracao();
+                try {
+                    if (!gravarComRetentativa(lote)) return;
+                    lote.forEach(f -> ticketsAbertos.concluirFechamento(f.ticketId()));
+                } finally {
+                    contadorOcupacao.concluirAlteracao();
+                }
+                vagasFila.release(lote.size());
+                gravadas.addAndGet(lote.size());
+                lote.clear();
+                compactarDiario();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Repete o lote até o banco aceitar; no encerramento desiste e deixa o lote no diário
+    private boolean gravarComRetentativa(List<Fechamento> lote) throws InterruptedException {
+        while (true) {
+            try {
+                gravar(lote);
+                return true;
+            } catch (RuntimeException e) {
+                if (!ativa) {
+                    log.warn("{} saídas ficam no diário para a próxima subida", lote.size() + fila.size());
+                    return false;
+                }
+                log.warn("Falha ao gravar {} saídas adiadas; nova tentativa em {} ms",
+                        lote.size(), PAUSA_APOS_FALHA_MS, e);
+                Thread.sleep(PAUSA_APOS_FALHA_MS);
+            }
+        }
+    }
+
+    private void gravar(List<Fechamento> lote) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, Fechamento> porTicket = new HashMap<>();
+            lote.forEach(f -> porTicket.putIfAbsent(f.ticketId(), f));
+            List<Ticket> fechados = new ArrayList<>();
+            for (Ticket ticket : ticketRepository.findAllById(porTicket.keySet())) {
+                // Regravação do diário ou ticket já fechado por outro caminho
+                if (ticket.getStatus() != TicketStatus.ABERTO) continue;
+                Fechamento fechamento = porTicket.get(ticket.getId());
+                ticket.setSaida(fechamento.saida());
+                ticket.setValor(fechamento.valor());
+                ticket.setStatus(TicketStatus.FECHADO);
+                fechados.add(ticket);
+            }
+            registroEventos.registrar(fechados.stream().map(EventoEstacionamento::saida).toList());
+            // A saída pode ter ficado atrás da marca d'água do rollup enquanto esperava na fila
+            rollupService.registrarRetroativos(List.of(), fechados);
+        });
+    }
+
+    // Fila vazia com a escrita travada: tudo que está no diário já foi gravado
+    private void compactarDiario() {
+        escrita.lock();
+        try {
+            if (fila.isEmpty()) {
+                diario.truncate(0);
+            }
+        } catch (IOException e) {
+            log.warn("Falha ao compactar o diário de saídas", e);
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    private void recuperar(Path caminho) throws IOException {
+        if (!Files.exists(caminho)) return;
+        String conteudo = Files.readString(caminho, StandardCharsets.UTF_8);
+        // Só linhas terminadas em quebra de linha: a última pode ter sido cortada pela queda
+        int fim = conteudo.lastIndexOf('\n') + 1;
+        if (fim < conteudo.length()) {
+            log.warn("Linha incompleta no fim do diário de saídas descartada: {}", conteudo.substring(fim));
+        }
+        List<Fechamento> pendentes = new ArrayList<>();
+        for (String linha : conteudo.substring(0, fim).split("\n")) {
+            if (linha.isEmpty()) continue;
+            try {
+                pendentes.add(Fechamento.de(linha));
+            } catch (RuntimeException e) {
+                log.warn("Linha inválida no diário de saídas descartada: {}", linha);
+            }
+        }
+        for (int i = 0; i < pendentes.size(); i += tamanhoLote) {
+            gravar(pendentes.subList(i, Math.min(pendentes.size(), i + tamanhoLote)));
+        }
+        Files.write(caminho, new byte[0]);
+        if (!pendentes.isEmpty()) {
+            log.info("{} saídas do diário regravadas no banco", pendentes.size());
+        }
+    }
+
+    private static void aguardar(BooleanSupplier pronto) {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ESPERA_GRAVACAO_MS);
+        while (!pronto.getAsBoolean()) {
+            if (System.nanoTime() - limite > 0) {
+                throw new RuntimeException("Saídas anteriores ainda não foram gravadas, tente novamente");
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrompido aguardando a gravação das saídas");
+            }
+        }
+    }
+}
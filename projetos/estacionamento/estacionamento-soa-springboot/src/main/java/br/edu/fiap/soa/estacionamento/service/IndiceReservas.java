@@ -0,0 +1,371 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import br.edu.fiap.soa.estacionamento.repository.ReservaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Índice em memória das reservas ATIVAS, organizado por vaga em conjuntos
+ * ordenados pelo início do intervalo.
+ * <p>
+ * Como cada vaga guarda também a maior duração já indexada, uma consulta só
+ * precisa examinar os intervalos que começam entre {@code inicio - maiorDuracao}
+ * e {@code fim}: detecção de conflito e busca da reserva válida agora custam
+ * O(log n + k), sem query. O índice é reconstruído do banco na subida e
+ * periodicamente, preservando as alterações feitas durante a reconstrução:
+ * a leitura do banco corre sem bloquear ninguém, e a cópia das alterações
+ * recentes mais a troca dos mapas acontecem com a trava de escrita, que
+ * reservas, vínculos e remoções respeitam pela trava de leitura.
+ * <p>
+ * O índice é local ao nó, como {@link ControleAdmissao}: numa instância só
+ * ele é toda a verificação de conflito. Com várias, a propriedade
+ * {@code estacionamento.reservas.multi-no} faz a criação da reserva conferir
+ * também o banco, na mesma transação.
+ */
+@Component
+public class IndiceReservas {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceReservas.class);
+
+    private final ReservaRepository reservaRepository;
+    private final AtomicLong sequencia = new AtomicLong();
+    private final ReentrantLock reconstrucaoTrava = new ReentrantLock();
+    private final ReentrantReadWriteLock trocaTrava = new ReentrantReadWriteLock();
+    private volatile Map<String, Agenda> porVaga = new ConcurrentHashMap<>();
+    private volatile Map<Long, Intervalo> porId = new ConcurrentHashMap<>();
+    private volatile NavigableSet<Intervalo> vencimentos = new ConcurrentSkipListSet<>(Intervalo.POR_FIM);
+    private volatile Reconstrucao reconstrucao;
+    private volatile Consumer<LocalDateTime> ouvinteVencimento = fim -> { };
+
+    public IndiceReservas(ReservaRepository reservaRepository) {
+        this.reservaRepository = reservaRepository;
+    }
+
+    /**
+     * Reserva o intervalo na vaga se não houver conflito com reservas ativas.
+     * A entrada é desfeita automaticamente se a transação corrente não
+     * for confirmada; use {@link #vincular} após salvar a reserva.
+     */
+    public Intervalo reservar(String vaga, LocalDateTime inicio, LocalDateTime fim) {
+        Intervalo intervalo = new Intervalo(sequencia.incrementAndGet(), vaga, inicio, fim);
+        trocaTrava.readLock().lock();
+        try {
+            Agenda agenda = porVaga.computeIfAbsent(vaga, v -> new Agenda());
+            synchronized (agenda) {
+                if (agenda.temConflito(inicio, fim)) {
+                    throw new RuntimeException("Vaga já reservada no período solicitado");
+                }
+                agenda.adicionar(intervalo);
+            }
+            vencimentos.add(intervalo);
+        } finally {
+            trocaTrava.readLock().unlock();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        descartar(intervalo);
+                    }
+                }
+            });
+        }
+        return intervalo;
+    }
+
+    /**
+     * Associa o intervalo reservado à reserva persistida
+     */
+    public void vincular(Intervalo intervalo, Long reservaId, Long veiculoId) {
+        trocaTrava.readLock().lock();
+        try {
+            intervalo.veiculoId = veiculoId;
+            intervalo.reservaId = reservaId;
+            porId.put(reservaId, intervalo);
+        } finally {
+            trocaTrava.readLock().unlock();
+        }
+        ouvinteVencimento.accept(intervalo.fim);
+    }
+
+    /**
+     * Remove a reserva do índice após o commit (cancelada, utilizada ou expirada)
+     */
+    public void removerAposCommit(Long reservaId) {
+        AposCommit.executar(() -> remover(reservaId));
+    }
+
+    /**
+     * Remove reservas com fim anterior ao instante informado que continuam no
+     * índice, por exemplo expiradas por outra instância. Intervalos vencidos
+     * que nunca foram vinculados a uma reserva também saem.
+     */
+    public void removerVencidas(LocalDateTime agora) {
+        Intervalo ate = new Intervalo(Long.MIN_VALUE, null, null, agora);
+        for (Intervalo intervalo : vencimentos.headSet(ate, false)) {
+            if (intervalo.reservaId != null) {
+                remover(intervalo.reservaId);
+            } else {
+                descartar(intervalo);
+            }
+        }
+    }
+
+    /**
+     * Menor data de fim entre as reservas indexadas, ou null se não houver.
+     * Intervalos ainda sem reserva não contam: o vínculo avisa o vencimento.
+     */
+    public LocalDateTime getProximoVencimento() {
+        for (Intervalo intervalo : vencimentos) {
+            if (intervalo.reservaId != null) {
+                return intervalo.fim;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Registra quem deve ser avisado quando uma reserva com novo vencimento é indexada
+     */
+    public void aoIndexarVencimento(Consumer<LocalDateTime> ouvinte) {
+        this.ouvinteVencimento = ouvinte;
+    }
+
+    /**
+     * Reserva ativa do veículo para a vaga, válida no instante informado
+     */
+    public Optional<Long> buscarValida(Long veiculoId, String vaga, LocalDateTime agora) {
+        Agenda agenda = porVaga.get(vaga);
+        if (agenda == null) return Optional.empty();
+        synchronized (agenda) {
+            return agenda.candidatos(agora, agora).stream()
+                    .filter(i -> i.reservaId != null && veiculoId.equals(i.veiculoId))
+                    .filter(i -> !agora.isBefore(i.inicio) && !agora.isAfter(i.fim))
+                    .map(i -> i.reservaId)
+                    .findFirst();
+        }
+    }
+
+    /**
+     * Indica se há reserva ativa que cubra o instante informado na vaga
+     */
+    public boolean isReservada(String vaga, LocalDateTime agora) {
+        Agenda agenda = porVaga.get(vaga);
+        if (agenda == null) return false;
+        synchronized (agenda) {
+            return agenda.candidatos(agora, agora).stream()
+                    .anyMatch(i -> !agora.isBefore(i.inicio) && !agora.isAfter(i.fim));
+        }
+    }
+
+    /**
+     * Vagas com alguma reserva ativa indexada
+     */
+    public Set<String> getVagas() {
+        return Set.copyOf(porVaga.keySet());
+    }
+
+    /**
+     * Número de reservas ativas indexadas
+     */
+    public int getTotal() {
+        return porId.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void inicializar() {
+        reconstruir();
+    }
+
+    /**
+     * Reconstrói o índice a partir das reservas ATIVAS do banco
+     */
+    @Scheduled(fixedDelayString = "${estacionamento.reservas.reconstrucao-ms:300000}",
+               initialDelayString = "${estacionamento.reservas.reconstrucao-ms:300000}")
+    public void reconstruir() {
+        // Lock explícito: a leitura do banco não deve fixar threads virtuais à portadora
+        reconstrucaoTrava.lock();
+        try {
+            Reconstrucao emAndamento = new Reconstrucao(sequencia.get());
+            reconstrucao = emAndamento;
+
+            Map<String, Agenda> novoPorVaga = new ConcurrentHashMap<>();
+            Map<Long, Intervalo> novoPorId = new ConcurrentHashMap<>();
+            NavigableSet<Intervalo> novosVencimentos = new ConcurrentSkipListSet<>(Intervalo.POR_FIM);
+            for (Object[] linha : reservaRepository.findIntervalosAtivos()) {
+                Long id = (Long) linha[0];
+                if (emAndamento.removidas.contains(id)) continue;
+                Intervalo intervalo = new Intervalo(sequencia.incrementAndGet(), (String) linha[2],
+                        (LocalDateTime) linha[3], (LocalDateTime) linha[4]);
+                intervalo.reservaId = id;
+                intervalo.veiculoId = (Long) linha[1];
+                novoPorVaga.computeIfAbsent(intervalo.vaga, v -> new Agenda()).adicionar(intervalo);
+                novoPorId.put(id, intervalo);
+                novosVencimentos.add(intervalo);
+            }
+
+            // Da cópia à troca nenhuma reserva, vínculo ou descarte cai nos mapas antigos
+            trocaTrava.writeLock().lock();
+            try {
+                // Mantém reservas criadas durante a leitura que ainda não estavam no banco
+                for (Agenda agenda : porVaga.values()) {
+                    for (Intervalo intervalo : agenda.intervalos) {
+                        boolean recente = intervalo.sequencia > emAndamento.sequenciaInicial;
+                        boolean pendente = intervalo.reservaId == null;
+                        if ((recente || pendente) && (intervalo.reservaId == null || !novoPorId.containsKey(intervalo.reservaId))) {
+                            novoPorVaga.computeIfAbsent(intervalo.vaga, v -> new Agenda()).adicionar(intervalo);
+                            novosVencimentos.add(intervalo);
+                            if (intervalo.reservaId != null) novoPorId.put(intervalo.reservaId, intervalo);
+                        }
+                    }
+                }
+                emAndamento.removidas.forEach(id -> {
+                    Intervalo intervalo = novoPorId.remove(id);
+                    if (intervalo != null) {
+                        novoPorVaga.get(intervalo.vaga).remover(intervalo);
+                        novosVencimentos.remove(intervalo);
+                    }
+                });
+
+                porVaga = novoPorVaga;
+                porId = novoPorId;
+                vencimentos = novosVencimentos;
+                reconstrucao = null;
+            } finally {
+                trocaTrava.writeLock().unlock();
+            }
+            log.debug("Índice de reservas reconstruído com {} reservas ativas", novoPorId.size());
+            LocalDateTime proximo = getProximoVencimento();
+            if (proximo != null) {
+                ouvinteVencimento.accept(proximo);
+            }
+        } finally {
+            reconstrucaoTrava.unlock();
+        }
+    }
+
+    private void remover(Long reservaId) {
+        trocaTrava.readLock().lock();
+        try {
+            Reconstrucao emAndamento = reconstrucao;
+            if (emAndamento != null) {
+                emAndamento.removidas.add(reservaId);
+            }
+            Intervalo intervalo = porId.remove(reservaId);
+            if (intervalo != null) {
+                descartar(intervalo);
+            }
+        } finally {
+            trocaTrava.readLock().unlock();
+        }
+    }
+
+    private void descartar(Intervalo intervalo) {
+        trocaTrava.readLock().lock();
+        try {
+            vencimentos.remove(intervalo);
+            Agenda agenda = porVaga.get(intervalo.vaga);
+            if (agenda == null) return;
+            synchronized (agenda) {
+                agenda.remover(intervalo);
+            }
+        } finally {
+            trocaTrava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Intervalo reservado de uma vaga
+     */
+    public static final class Intervalo {
+        private static final Comparator<Intervalo> POR_FIM = Comparator
+                .comparing((Intervalo i) -> i.fim)
+                .thenComparingLong(i -> i.sequencia);
+
+        private final long sequencia;
+        private final String vaga;
+        private final LocalDateTime inicio;
+        private final LocalDateTime fim;
+        private volatile Long reservaId;
+        private volatile Long veiculoId;
+
+        private Intervalo(long sequencia, String vaga, LocalDateTime inicio, LocalDateTime fim) {
+            this.sequencia = sequencia;
+            this.vaga = vaga;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        public LocalDateTime getFim() {
+            return fim;
+        }
+    }
+
+    private static final class Agenda {
+        private static final Comparator<Intervalo> ORDEM = Comparator
+                .comparing((Intervalo i) -> i.inicio)
+                .thenComparingLong(i -> i.sequencia);
+
+        private final NavigableSet<Intervalo> intervalos = new TreeSet<>(ORDEM);
+        private Duration maiorDuracao = Duration.ZERO;
+
+        void adicionar(Intervalo intervalo) {
+            intervalos.add(intervalo);
+            Duration duracao = Duration.between(intervalo.inicio, intervalo.fim);
+            if (duracao.compareTo(maiorDuracao) > 0) {
+                maiorDuracao = duracao;
+            }
+        }
+
+        void remover(Intervalo intervalo) {
+            intervalos.remove(intervalo);
+        }
+
+        // Mesmo critério de ReservaRepository.findReservasConflitantes
+        boolean temConflito(LocalDateTime inicio, LocalDateTime fim) {
+            return candidatos(inicio, fim).stream()
+                    .anyMatch(i -> inicio.isBefore(i.fim) && fim.isAfter(i.inicio));
+        }
+
+        // Intervalos que começam em [inicio - maiorDuracao, fim]
+        NavigableSet<Intervalo> candidatos(LocalDateTime inicio, LocalDateTime fim) {
+            Intervalo de = new Intervalo(Long.MIN_VALUE, null, inicio.minus(maiorDuracao), null);
+            Intervalo ate = new Intervalo(Long.MAX_VALUE, null, fim, null);
+            return intervalos.subSet(de, true, ate, true);
+        }
+    }
+
+    private static final class Reconstrucao {
+        private final long sequenciaInicial;
+        private final Set<Long> removidas = ConcurrentHashMap.newKeySet();
+
+        Reconstrucao(long sequenciaInicial) {
+            this.sequenciaInicial = sequenciaInicial;
+        }
+    }
+}
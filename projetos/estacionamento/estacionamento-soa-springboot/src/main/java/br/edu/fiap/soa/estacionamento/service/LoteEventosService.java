@@ -0,0 +1,361 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import br.edu.fiap.soa.estacionamento.domain.*;
+import br.edu.fiap.soa.estacionamento.repository.ReservaRepository;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import br.edu.fiap.soa.estacionamento.repository.VeiculoRepository;
+import br.edu.fiap.soa.estacionamento.web.dto.EventoPortaoRequest;
+import br.edu.fiap.soa.estacionamento.web.dto.ResultadoEventoDTO;
+import br.edu.fiap.soa.estacionamento.web.dto.TicketResponse;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Processa lotes de eventos de entrada/saída enviados pelos controladores de
+ * portão (ex.: eventos acumulados durante queda de link).
+ * <p>
+ * O lote inteiro roda em uma transação com poucas idas ao banco: veículos,
+ * tickets abertos e reservas são resolvidos com consultas {@code IN}, os
+ * eventos são aplicados em memória na ordem recebida e os tickets são
+ * gravados juntos no flush. Eventos inválidos não interrompem o lote: cada
+ * item recebe seu próprio resultado. Se o banco recusar o lote, os eventos
+ * são reprocessados um a um. As vagas de entrada do lote são travadas juntas,
+ * em ordem, antes da leitura dos tickets abertos.
+ */
+@Service
+public class LoteEventosService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoteEventosService.class);
+    private static final long TOLERANCIA_RELOGIO_SEGUNDOS = 300;
+
+    private final TicketRepository ticketRepository;
+    private final VeiculoRepository veiculoRepository;
+    private final ReservaRepository reservaRepository;
+    private final TarifaService tarifaService;
+    private final ContadorOcupacao contadorOcupacao;
+    private final ControleAdmissao controleAdmissao;
+    private final IndiceReservas indiceReservas;
+    private final RollupService rollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheVeiculos cacheVeiculos;
+    private final RegistroEventos registroEventos;
+    private final TicketsAbertos ticketsAbertos;
+    private final FilaFechamentos filaFechamentos;
+
+    public LoteEventosService(TicketRepository ticketRepository,
+                              VeiculoRepository veiculoRepository,
+                              ReservaRepository reservaRepository,
+                              TarifaService tarifaService,
+                              ContadorOcupacao contadorOcupacao,
+                              ControleAdmissao controleAdmissao,
+                              IndiceReservas indiceReservas,
+                              RollupService rollupService,
+                              PlatformTransactionManager transactionManager,
+                              CacheVeiculos cacheVeiculos,
+                              RegistroEventos registroEventos,
+                              TicketsAbertos ticketsAbertos,
+                              FilaFechamentos filaFechamentos) {
+        this.ticketRepository = ticketRepository;
+        this.veiculoRepository = veiculoRepository;
+        this.reservaRepository = reservaRepository;
+        this.tarifaService = tarifaService;
+        this.contadorOcupacao = contadorOcupacao;
+        this.controleAdmissao = controleAdmissao;
+        this.indiceReservas = indiceReservas;
+        this.rollupService = rollupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheVeiculos = cacheVeiculos;
+        this.registroEventos = registroEventos;
+        this.ticketsAbertos = ticketsAbertos;
+        this.filaFechamentos = filaFechamentos;
+    }
+
+    @Timed(value = "estacionamento.ticket", extraTags = {"operacao", "lote"})
+    public List<ResultadoEventoDTO> processar(List<EventoPortaoRequest> eventos) {
+        // O lote lê os tickets abertos do banco: saídas adiadas precisam estar gravadas
+        filaFechamentos.aguardarGravacao();
+        try {
+            return transactionTemplate.execute(status -> new Lote(eventos, 0).executar());
+        } catch (DataAccessException e) {
+            log.warn("Lote de {} eventos recusado pelo banco, reprocessando individualmente", eventos.size(), e);
+        }
+        List<ResultadoEventoDTO> resultados = new ArrayList<>();
+        for (int i = 0; i < eventos.size(); i++) {
+            int indice = i;
+            try {
+                resultados.addAll(transactionTemplate.execute(status -> new Lote(List.of(eventos.get(indice)), indice).executar()));
+            } catch (DataAccessException e) {
+                resultados.add(falha(indice, "Erro ao gravar evento: " + e.getMostSpecificCause().getMessage()));
+            }
+        }
+        return resultados;
+    }
+
+    private static ResultadoEventoDTO falha(int indice, String erro) {
+        return ResultadoEventoDTO.builder().indice(indice).sucesso(false).erro(erro).build();
+    }
+
+    private static TicketResponse paraResponse(Ticket t) {
+        return TicketResponse.builder().id(t.getId()).placa(t.getVeiculo().getPlaca()).vaga(t.getVaga())
+                .entrada(t.getEntrada()).saida(t.getSaida()).valor(t.getValor()).status(t.getStatus()).build();
+    }
+
+    /**
+     * Estado de um lote dentro da transação
+     */
+    private final class Lote {
+        private final List<EventoPortaoRequest> eventos;
+        private final int deslocamento;
+        private final LocalDateTime agora = LocalDateTime.now();
+
+        private final Map<String, Veiculo> veiculosPorPlaca = new HashMap<>();
+        private final Map<Long, Ticket> abertosPorId = new HashMap<>();
+        private final Map<Long, Ticket> abertosPorVeiculo = new HashMap<>();
+        private final Set<String> vagasOcupadas = new HashSet<>();
+
+        private final List<Ticket> novos = new ArrayList<>();
+        private final List<Ticket> fechados = new ArrayList<>();
+        private final Map<Ticket, Long> reservaCandidata = new HashMap<>();
+        private final List<ControleAdmissao.Admissao> admissoes = new ArrayList<>();
+        private Runnable soltarVagas = () -> { };
+        private final Ticket[] ticketPorEvento;
+        private final String[] erroPorEvento;
+
+        Lote(List<EventoPortaoRequest> eventos, int deslocamento) {
+            this.eventos = eventos;
+            this.deslocamento = deslocamento;
+            this.ticketPorEvento = new Ticket[eventos.size()];
+            this.erroPorEvento = new String[eventos.size()];
+        }
+
+        List<ResultadoEventoDTO> executar() {
+            encerrarAdmissoesNoFimDaTransacao();
+            travarVagasDeEntrada();
+            carregar();
+            for (int i = 0; i < eventos.size(); i++) {
+                try {
+                    EventoPortaoRequest evento = eventos.get(i);
+                    ticketPorEvento[i] = evento.getTipo() == EventoPortaoRequest.Tipo.ENTRADA
+                            ? entrada(evento)
+                            : saida(evento);
+                } catch (RuntimeException e) {
+                    erroPorEvento[i] = e.getMessage();
+                }
+            }
+            vincularReservas();
+            ticketRepository.saveAll(novos);
+            registrarEventos();
+            rollupService.registrarRetroativos(novos, fechados);
+            ticketRepository.flush();
+
+            List<ResultadoEventoDTO> resultados = new ArrayList<>(eventos.size());
+            for (int i = 0; i < eventos.size(); i++) {
+                resultados.add(erroPorEvento[i] != null
+                        ? falha(deslocamento + i, erroPorEvento[i])
+                        : ResultadoEventoDTO.builder().indice(deslocamento + i).sucesso(true)
+                            .ticket(paraResponse(ticketPorEvento[i])).build());
+            }
+            return resultados;
+        }
+
+        // Faixas travadas em ordem até o fim da transação: lotes concorrentes não se travam mutuamente
+        private void travarVagasDeEntrada() {
+            Set<String> vagas = new HashSet<>();
+            for (EventoPortaoRequest evento : eventos) {
+                if (evento.getTipo() == EventoPortaoRequest.Tipo.ENTRADA && evento.getVaga() != null) {
+                    vagas.add(evento.getVaga());
+                }
+            }
+            soltarVagas = controleAdmissao.travarVagas(vagas);
+        }
+
+        // Duas consultas para o lote todo: veículos por placa e tickets abertos envolvidos
+        private void carregar() {
+            Set<String> placas = new HashSet<>();
+            Set<String> vagas = new HashSet<>();
+            Set<Long> ticketIds = new HashSet<>();
+            for (EventoPortaoRequest evento : eventos) {
+                if (evento.getPlaca() != null) placas.add(evento.getPlaca());
+                if (evento.getVaga() != null) vagas.add(evento.getVaga());
+                if (evento.getTicketId() != null) ticketIds.add(evento.getTicketId());
+            }
+            if (!placas.isEmpty()) {
+                veiculoRepository.findByPlacaIn(placas).forEach(v -> veiculosPorPlaca.put(v.getPlaca(), v));
+            }
+            if (!placas.isEmpty() || !vagas.isEmpty() || !ticketIds.isEmpty()) {
+                // Listas vazias no IN não são aceitas por todos os bancos
+                ticketRepository.findAbertosDoLote(
+                        ticketIds.isEmpty() ? Set.of(-1L) : ticketIds,
+                        placas.isEmpty() ? Set.of("") : placas,
+                        vagas.isEmpty() ? Set.of("") : vagas
+                ).forEach(this::abrir);
+            }
+        }
+
+        private Ticket entrada(EventoPortaoRequest evento) {
+            if (evento.getPlaca() == null || evento.getPlaca().isBlank()
+                    || evento.getVaga() == null || evento.getVaga().isBlank()) {
+                throw new RuntimeException("Placa e vaga são obrigatórias na entrada");
+            }
+            LocalDateTime entrada = horario(evento);
+            String vaga = evento.getVaga();
+
+            ControleAdmissao.Admissao admissao = controleAdmissao.admitir(vaga);
+            try {
+                if (vagasOcupadas.contains(vaga)) {
+                    throw new RuntimeException("Vaga " + vaga + " já está ocupada");
+                }
+                Veiculo veiculo = veiculosPorPlaca.computeIfAbsent(evento.getPlaca(), placa -> {
+                    Veiculo novo = new Veiculo();
+                    novo.setPlaca(placa);
+                    novo.setModelo(evento.getModelo());
+                    novo.setCor(evento.getCor());
+                    Veiculo salvo = veiculoRepository.save(novo);
+                    cacheVeiculos.registrarAposCommit(salvo);
+                    return salvo;
+                });
+                if (abertosPorVeiculo.containsKey(veiculo.getId())) {
+                    throw new RuntimeException("Já existe um ticket ABERTO para este veículo");
+                }
+
+                Ticket ticket = Ticket.builder()
+                        .veiculo(veiculo)
+                        .vaga(vaga)
+                        .entrada(entrada)
+                        .status(TicketStatus.ABERTO)
+                        .tipoTarifa(evento.getTipoTarifa() != null ? evento.getTipoTarifa() : TipoTarifa.HORARIA)
+                        .build();
+                indiceReservas.buscarValida(veiculo.getId(), vaga, entrada)
+                        .ifPresent(reservaId -> reservaCandidata.put(ticket, reservaId));
+                novos.add(ticket);
+                abrir(ticket);
+                admissoes.add(admissao);
+                contadorOcupacao.registrarEntrada(vaga);
+                return ticket;
+            } catch (RuntimeException e) {
+                admissao.cancelar();
+                throw e;
+            }
+        }
+
+        private Ticket saida(EventoPortaoRequest evento) {
+            Ticket ticket;
+            if (evento.getTicketId() != null) {
+                ticket = abertosPorId.get(evento.getTicketId());
+            } else if (evento.getPlaca() != null && veiculosPorPlaca.containsKey(evento.getPlaca())) {
+                ticket = abertosPorVeiculo.get(veiculosPorPlaca.get(evento.getPlaca()).getId());
+            } else {
+                throw new RuntimeException("Informe ticketId ou placa na saída");
+            }
+            if (ticket == null) {
+                throw new RuntimeException("Nenhum ticket ABERTO para o evento de saída");
+            }
+            LocalDateTime saida = horario(evento);
+            if (saida.isBefore(ticket.getEntrada())) {
+                throw new RuntimeException("Saída anterior à entrada do ticket");
+            }
+
+            BigDecimal valor = tarifaService.calcularValor(ticket.getEntrada(), saida, ticket.getTipoTarifa());
+            ticket.setSaida(saida);
+            ticket.setValor(valor);
+            ticket.setStatus(TicketStatus.FECHADO);
+            fechar(ticket);
+            fechados.add(ticket);
+            contadorOcupacao.registrarSaida(ticket.getVaga());
+            controleAdmissao.liberarAposCommit();
+            return ticket;
+        }
+
+        private LocalDateTime horario(EventoPortaoRequest evento) {
+            LocalDateTime ocorridoEm = evento.getOcorridoEm();
+            if (ocorridoEm == null) {
+                return agora;
+            }
+            if (ocorridoEm.isAfter(agora.plusSeconds(TOLERANCIA_RELOGIO_SEGUNDOS))) {
+                throw new RuntimeException("Horário do evento está no futuro");
+            }
+            return ocorridoEm;
+        }
+
+        private void abrir(Ticket ticket) {
+            if (ticket.getId() != null) abertosPorId.put(ticket.getId(), ticket);
+            abertosPorVeiculo.put(ticket.getVeiculo().getId(), ticket);
+            vagasOcupadas.add(ticket.getVaga());
+        }
+
+        private void fechar(Ticket ticket) {
+            if (ticket.getId() != null) abertosPorId.remove(ticket.getId());
+            abertosPorVeiculo.remove(ticket.getVeiculo().getId());
+            vagasOcupadas.remove(ticket.getVaga());
+        }
+
+        // Eventos e tickets abertos em memória, na ordem do lote; os INSERTs
+        // seguem no mesmo flush dos tickets
+        private void registrarEventos() {
+            List<EventoEstacionamento> registro = new ArrayList<>();
+            for (int i = 0; i < eventos.size(); i++) {
+                if (erroPorEvento[i] != null) continue;
+                Ticket ticket = ticketPorEvento[i];
+                if (eventos.get(i).getTipo() == EventoPortaoRequest.Tipo.ENTRADA) {
+                    if (ticket.getReserva() != null) {
+                        registro.add(EventoEstacionamento.reserva(TipoEvento.RESERVA_UTILIZADA,
+                                ticket.getReserva().getId(), ticket.getEntrada()));
+                    }
+                    registro.add(EventoEstacionamento.entrada(ticket));
+                    ticketsAbertos.registrarAposCommit(ticket);
+                } else {
+                    registro.add(EventoEstacionamento.saida(ticket));
+                    ticketsAbertos.removerAposCommit(ticket.getId());
+                }
+            }
+            registroEventos.registrar(registro);
+        }
+
+        // Uma consulta com trava para todas as reservas candidatas; o status muda no flush
+        private void vincularReservas() {
+            if (reservaCandidata.isEmpty()) return;
+            Map<Long, Reserva> ativas = new HashMap<>();
+            reservaRepository.findAtivasParaUtilizar(new HashSet<>(reservaCandidata.values()))
+                    .forEach(r -> ativas.put(r.getId(), r));
+            reservaCandidata.forEach((ticket, reservaId) -> {
+                Reserva reserva = ativas.remove(reservaId);
+                if (reserva == null) return;
+                reserva.setStatus(StatusReserva.UTILIZADA);
+                ticket.setReserva(reserva);
+                indiceReservas.removerAposCommit(reservaId);
+            });
+        }
+
+        private void encerrarAdmissoesNoFimDaTransacao() {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    for (ControleAdmissao.Admissao admissao : admissoes) {
+                        if (status == STATUS_COMMITTED) {
+                            admissao.confirmar();
+                        } else {
+                            admissao.cancelar();
+                        }
+                    }
+                    soltarVagas.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import br.edu.fiap.soa.estacionamento.web.dto.VagaStatusDTO;
+import br.edu.fiap.soa.estacionamento.web.dto.VagaStatusDTO.Situacao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Mapa de ocupação por vaga, em memória.
+ * <p>
+ * Cada vaga recebe um número fixo (interning) e a ocupação é um bit num
+ * {@link AtomicLongArray}; as vagas são agrupadas por setor (prefixo sem os
+ * dígitos finais, ex.: "A" em "A12") e ordenadas pelo número dentro do setor.
+ * Leituras não travam nem consultam o banco. Reservas ativas no instante
+ * da consulta vêm do {@link IndiceReservas}.
+ * <p>
+ * Com {@code estacionamento.vagas} (ex.: {@code A1-A40,B1-B20,VIP1}) o mapa
+ * conhece todas as vagas desde o início; sem ela, conhece as vagas que já
+ * apareceram em tickets abertos, reservas ativas ou check-ins.
+ * <p>
+ * Cada escrita carimba a vaga com um número de sequência; a sincronização
+ * com o banco só sobrescreve as vagas sem escrita posterior à leitura.
+ */
+@Component
+public class MapaVagas {
+
+    private final IndiceReservas indiceReservas;
+    private volatile Mapa mapa;
+    // Sequência das escritas, protegida pelo monitor do mapa
+    private long sequencia;
+
+    public MapaVagas(IndiceReservas indiceReservas,
+                     @Value("${estacionamento.vagas:}") String layout) {
+        this.indiceReservas = indiceReservas;
+        this.mapa = new Mapa(List.of(), Map.of(), new AtomicLongArray(1), new long[0]).comVagas(expandir(layout));
+    }
+
+    /**
+     * Indica se há ticket aberto na vaga
+     */
+    public boolean isOcupada(String vaga) {
+        Mapa atual = mapa;
+        Integer indice = atual.indices.get(vaga);
+        return indice != null && atual.ocupada(indice);
+    }
+
+    /**
+     * Situação da vaga agora: ocupada, reservada ou livre
+     */
+    public VagaStatusDTO consultar(String vaga) {
+        Mapa atual = mapa;
+        Integer indice = atual.indices.get(vaga);
+        Situacao situacao = indice != null && atual.ocupada(indice) ? Situacao.OCUPADA
+                : indiceReservas.isReservada(vaga, LocalDateTime.now()) ? Situacao.RESERVADA
+                : Situacao.LIVRE;
+        return VagaStatusDTO.builder()
+                .vaga(vaga)
+                .setor(setor(vaga))
+                .situacao(situacao)
+                .conhecida(indice != null)
+                .build();
+    }
+
+    /**
+     * Vagas livres e sem reserva no momento, em ordem de setor e número
+     *
+     * @param setor prefixo do setor; nulo ou vazio lista todos
+     */
+    public List<String> listarLivres(String setor, int limite) {
+        Mapa atual = mapa;
+        LocalDateTime agora = LocalDateTime.now();
+        List<String> livres = new ArrayList<>();
+        for (Map.Entry<String, int[]> entrada : atual.setores.entrySet()) {
+            if (setor != null && !setor.isEmpty() && !entrada.getKey().equalsIgnoreCase(setor)) continue;
+            for (int indice : entrada.getValue()) {
+                if (livres.size() >= limite) return livres;
+                if (disponivel(atual, indice, agora)) livres.add(atual.nomes.get(indice));
+            }
+        }
+        return livres;
+    }
+
+    /**
+     * Vaga livre mais próxima da referência, no mesmo setor (pela numeração)
+     *
+     * @param referencia vaga de referência (ex.: "A12") ou apenas o setor ("A")
+     */
+    public VagaStatusDTO buscarProxima(String referencia) {
+        Mapa atual = mapa;
+        String setor = setor(referencia);
+        int[] vagas = atual.setores.get(setor);
+        if (vagas == null) {
+            throw new RuntimeException("Setor " + setor + " não encontrado");
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        int numero = numero(referencia);
+        // Parte da posição da referência e avança pelo lado de número mais próximo
+        int direita = numero < 0 ? 0 : posicao(atual, vagas, numero);
+        int esquerda = direita - 1;
+        while (esquerda >= 0 || direita < vagas.length) {
+            boolean usarDireita = esquerda < 0 || direita < vagas.length
+                    && atual.numeros[vagas[direita]] - numero <= numero - atual.numeros[vagas[esquerda]];
+            int i = usarDireita ? direita++ : esquerda--;
+            if (disponivel(atual, vagas[i], agora)) {
+                return consultar(atual.nomes.get(vagas[i]));
+            }
+        }
+        throw new RuntimeException("Nenhuma vaga livre no setor " + setor);
+    }
+
+    /**
+     * Número de vagas conhecidas pelo mapa
+     */
+    public int getTotalConhecidas() {
+        return mapa.nomes.size();
+    }
+
+    /**
+     * Marca a vaga como ocupada; chamado após o commit do check-in
+     */
+    public void ocupar(String vaga) {
+        marcar(vaga, true);
+    }
+
+    /**
+     * Marca a vaga como livre; chamado após o commit do check-out
+     */
+    public void liberar(String vaga) {
+        marcar(vaga, false);
+    }
+
+    /**
+     * Marca da última escrita; lida antes de consultar o banco para {@link #sincronizar}
+     */
+    public synchronized long getMarca() {
+        return sequencia;
+    }
+
+    /**
+     * Substitui a ocupação pelas vagas com ticket aberto no banco e registra
+     * as vagas de reservas ativas. Vagas escritas depois de {@code desde}
+     * mantêm o bit atual: a consulta ao banco não enxergou essa alteração.
+     *
+     * @param desde {@link #getMarca()} lida antes da consulta ao banco
+     */
+    public synchronized void sincronizar(Collection<String> vagasOcupadas, long desde) {
+        Set<String> conhecer = new HashSet<>(vagasOcupadas);
+        conhecer.addAll(indiceReservas.getVagas());
+        Mapa atual = mapa.comVagas(conhecer);
+        boolean[] noBanco = new boolean[atual.nomes.size()];
+        for (String vaga : vagasOcupadas) {
+            noBanco[atual.indices.get(vaga)] = true;
+        }
+        AtomicLongArray bits = new AtomicLongArray(atual.ocupadas.length());
+        for (int indice = 0; indice < noBanco.length; indice++) {
+            boolean ocupada = atual.alteradaEm[indice] > desde ? atual.ocupada(indice) : noBanco[indice];
+            if (ocupada) {
+                bits.set(indice >>> 6, bits.get(indice >>> 6) | 1L << indice);
+            }
+        }
+        mapa = new Mapa(atual.nomes, atual.indices, bits, atual.alteradaEm);
+    }
+
+    private boolean disponivel(Mapa atual, int indice, LocalDateTime agora) {
+        return !atual.ocupada(indice) && !indiceReservas.isReservada(atual.nomes.get(indice), agora);
+    }
+
+    // Escritas são raras perto das leituras: serializá-las evita perder um bit
+    // marcado no array antigo enquanto uma vaga nova é internada
+    private synchronized void marcar(String vaga, boolean ocupada) {
+        Integer indice = mapa.indices.get(vaga);
+        if (indice == null) {
+            if (!ocupada) return;
+            mapa = mapa.comVagas(List.of(vaga));
+            indice = mapa.indices.get(vaga);
+        }
+        AtomicLongArray bits = mapa.ocupadas;
+        long bit = 1L << indice;
+        int palavra = indice >>> 6;
+        bits.set(palavra, ocupada ? bits.get(palavra) | bit : bits.get(palavra) & ~bit);
+        mapa.alteradaEm[indice] = ++sequencia;
+    }
+
+    private static int posicao(Mapa atual, int[] vagas, int numero) {
+        int baixo = 0;
+        int alto = vagas.length;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (atual.numeros[vagas[meio]] < numero) baixo = meio + 1;
+            else alto = meio;
+        }
+        return baixo;
+    }
+
+    static String setor(String vaga) {
+        int fim = vaga.length();
+        while (fim > 0 && Character.isDigit(vaga.charAt(fim - 1))) fim--;
+        return vaga.substring(0, fim).toUpperCase();
+    }
+
+    static int numero(String vaga) {
+        String setor = setor(vaga);
+        if (setor.length() == vaga.length() || vaga.length() - setor.length() > 9) return -1;
+        return Integer.parseInt(vaga.substring(setor.length()));
+    }
+
+    /**
+     * Expande o layout configurado: vagas avulsas ou faixas {@code A1-A40}
+     */
+    static List<String> expandir(String layout) {
+        List<String> vagas = new ArrayList<>();
+        if (layout == null || layout.isBlank()) return vagas;
+        for (String item : layout.split(",")) {
+            String trecho = item.trim();
+            if (trecho.isEmpty()) continue;
+            int traco = trecho.indexOf('-', 1);
+            if (traco < 0) {
+                vagas.add(trecho);
+                continue;
+            }
+            String de = trecho.substring(0, traco).trim();
+            String ate = trecho.substring(traco + 1).trim();
+            if (numero(de) < 0 || numero(ate) < numero(de) || !setor(de).equals(setor(ate))) {
+                throw new IllegalArgumentException("Faixa de vagas inválida: " + trecho);
+            }
+            String prefixo = de.substring(0, setor(de).length());
+            String digitos = de.substring(prefixo.length());
+            // Mantém zeros à esquerda: A01-A20 gera A01, A02, ...
+            String formato = digitos.startsWith("0") ? "%0" + digitos.length() + "d" : "%d";
+            for (int n = numero(de); n <= numero(ate); n++) {
+                vagas.add(prefixo + String.format(formato, n));
+            }
+        }
+        return vagas;
+    }
+
+    /**
+     * Estado imutável exceto pelos bits e carimbos; trocado inteiro quando uma vaga nova é internada
+     */
+    private static final class Mapa {
+        final List<String> nomes;
+        final Map<String, Integer> indices;
+        final Map<String, int[]> setores;
+        final int[] numeros;
+        final AtomicLongArray ocupadas;
+        // Sequência da última escrita de cada vaga, alterada só sob o monitor do MapaVagas
+        final long[] alteradaEm;
+
+        Mapa(List<String> nomes, Map<String, Integer> indices, AtomicLongArray ocupadas, long[] alteradaEm) {
+            this.nomes = nomes;
+            this.indices = indices;
+            this.ocupadas = ocupadas;
+            this.alteradaEm = alteradaEm;
+            this.numeros = new int[nomes.size()];
+            Map<String, List<Integer>> porSetor = new HashMap<>();
+            for (int i = 0; i < nomes.size(); i++) {
+                numeros[i] = numero(nomes.get(i));
+                porSetor.computeIfAbsent(setor(nomes.get(i)), s -> new ArrayList<>()).add(i);
+            }
+            Map<String, int[]> setores = new TreeMap<>();
+            porSetor.forEach((setor, lista) -> setores.put(setor, lista.stream()
+                    .sorted((a, b) -> Integer.compare(numeros[a], numeros[b]))
+                    .mapToInt(Integer::intValue).toArray()));
+            this.setores = setores;
+        }
+
+        boolean ocupada(int indice) {
+            return (ocupadas.get(indice >>> 6) & 1L << indice) != 0;
+        }
+
+        /** Cópia com as vagas novas acrescentadas (mantém os bits já marcados) */
+        Mapa comVagas(Collection<String> vagas) {
+            List<String> novosNomes = null;
+            Map<String, Integer> novosIndices = null;
+            for (String vaga : vagas) {
+                if ((novosIndices != null ? novosIndices : indices).containsKey(vaga)) continue;
+                if (novosNomes == null) {
+                    novosNomes = new ArrayList<>(nomes);
+                    novosIndices = new HashMap<>(indices);
+                }
+                novosIndices.put(vaga, novosNomes.size());
+                novosNomes.add(vaga);
+            }
+            if (novosNomes == null) return this;
+            AtomicLongArray bits = new AtomicLongArray(Math.max(1, (novosNomes.size() + 63) >>> 6));
+            for (int i = 0; i < ocupadas.length(); i++) {
+                bits.set(i, ocupadas.get(i));
+            }
+            return new Mapa(List.copyOf(novosNomes), Map.copyOf(novosIndices), bits,
+                    Arrays.copyOf(alteradaEm, novosNomes.size()));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import br.edu.fiap.soa.estacionamento.domain.RollupControle;
+import br.edu.fiap.soa.estacionamento.domain.Ticket;
+import br.edu.fiap.soa.estacionamento.repository.RollupControleRepository;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Define até onde os relatórios por período já não mudam.
+ * <p>
+ * Receita e uso das vagas somam os tickets pela entrada, então um período
+ * só está consolidado quando nenhum ticket com entrada nele segue aberto:
+ * o limite é a entrada aberta mais antiga (em memória neste nó, e lida do
+ * banco na subida e a cada verificação), recuado pela margem
+ * {@code margem-segundos} (réplica atrasada, tickets abertos em outros nós
+ * desde a última leitura). Lotes retroativos dos portões que caem antes do
+ * limite mudam a geração: neste nó após o commit, nos demais quando a
+ * consulta periódica percebe a nova versão em rollup_controle.
+ */
+@Component
+public class MarcaRelatorios {
+
+    private static final Logger log = LoggerFactory.getLogger(MarcaRelatorios.class);
+
+    private final TicketsAbertos ticketsAbertos;
+    private final TicketRepository ticketRepository;
+    private final RollupControleRepository controleRepository;
+    private final AtomicLong geracao = new AtomicLong();
+    private volatile Long versaoVista;
+    private volatile LocalDateTime menorEntradaBanco;
+
+    @Value("${estacionamento.relatorios.cache.margem-segundos:600}")
+    private long margemSegundos;
+
+    public MarcaRelatorios(TicketsAbertos ticketsAbertos, TicketRepository ticketRepository,
+                           RollupControleRepository controleRepository) {
+        this.ticketsAbertos = ticketsAbertos;
+        this.ticketRepository = ticketRepository;
+        this.controleRepository = controleRepository;
+    }
+
+    /**
+     * Instante até o qual (exclusive) os tickets por entrada não mudam mais
+     */
+    public LocalDateTime getConsolidadoAte() {
+        LocalDateTime limite = LocalDateTime.now().minusSeconds(margemSegundos);
+        // Sem gravação adiada os abertos em memória não são relidos do banco: vale a menor das duas
+        for (LocalDateTime menorEntrada : new LocalDateTime[]{ticketsAbertos.getMenorEntrada(), menorEntradaBanco}) {
+            if (menorEntrada != null && menorEntrada.isBefore(limite)) limite = menorEntrada;
+        }
+        return limite;
+    }
+
+    /**
+     * Geração dos dados consolidados: respostas de gerações anteriores não valem mais
+     */
+    public long getGeracao() {
+        return geracao.get();
+    }
+
+    /**
+     * Indica se o lote grava tickets com entrada em período já consolidado
+     */
+    public boolean alteraConsolidado(List<Ticket> entradas, List<Ticket> fechamentos) {
+        LocalDateTime menor = null;
+        for (List<Ticket> tickets : List.of(entradas, fechamentos)) {
+            for (Ticket ticket : tickets) {
+                if (menor == null || ticket.getEntrada().isBefore(menor)) menor = ticket.getEntrada();
+            }
+        }
+        // Só percorre os abertos quando o lote tem entradas antigas o bastante
+        return menor != null
+                && menor.isBefore(LocalDateTime.now().minusSeconds(margemSegundos))
+                && menor.isBefore(getConsolidadoAte());
+    }
+
+    /**
+     * Avança a geração deste nó após o commit da transação corrente
+     */
+    public void invalidarAposCommit() {
+        AposCommit.executar(geracao::incrementAndGet);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        verificarVersao();
+    }
+
+    /**
+     * Relê a entrada aberta mais antiga e verifica se outro nó gravou um lote
+     * retroativo em período consolidado
+     */
+    @Scheduled(fixedDelayString = "${estacionamento.relatorios.cache.verificacao-ms:30000}",
+               initialDelayString = "${estacionamento.relatorios.cache.verificacao-ms:30000}")
+    public void verificarVersao() {
+        menorEntradaBanco = ticketRepository.findMenorEntradaAberta();
+        Long versaoBanco = controleRepository.findVersao(RollupControle.ID);
+        Long anterior = versaoVista;
+        versaoVista = versaoBanco;
+        if (anterior != null && !Objects.equals(anterior, versaoBanco)) {
+            log.info("Relatórios consolidados alterados em outro nó (versão {})", versaoBanco);
+            geracao.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Medidores do estado em memória (ocupação, admissão, reservas, mapa de vagas).
+ * São lidos a cada coleta, sem consultar o banco; os tempos dos métodos vêm de
+ * {@code @Timed} e os das consultas, das métricas de repositório do Spring Data.
+ */
+@Component
+public class MetricasEstacionamento implements MeterBinder {
+
+    private final ContadorOcupacao contadorOcupacao;
+    private final ConfiguracaoCache configuracaoCache;
+    private final ControleAdmissao controleAdmissao;
+    private final IndiceReservas indiceReservas;
+    private final MapaVagas mapaVagas;
+    private final ReservaService reservaService;
+
+    public MetricasEstacionamento(ContadorOcupacao contadorOcupacao,
+                                  ConfiguracaoCache configuracaoCache,
+                                  ControleAdmissao controleAdmissao,
+                                  IndiceReservas indiceReservas,
+                                  MapaVagas mapaVagas,
+                                  ReservaService reservaService) {
+        this.contadorOcupacao = contadorOcupacao;
+        this.configuracaoCache = configuracaoCache;
+        this.controleAdmissao = controleAdmissao;
+        this.indiceReservas = indiceReservas;
+        this.mapaVagas = mapaVagas;
+        this.reservaService = reservaService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("estacionamento.vagas.ocupadas", contadorOcupacao, ContadorOcupacao::getOcupadas)
+                .description("Tickets abertos (contador em memória)")
+                .register(registry);
+        Gauge.builder("estacionamento.vagas.total", configuracaoCache, MetricasEstacionamento::totalVagas)
+                .description("Total de vagas da configuração ativa")
+                .register(registry);
+        Gauge.builder("estacionamento.admissao.em.uso", controleAdmissao, ControleAdmissao::getEmUso)
+                .description("Permissões de lotação em uso: tickets abertos + check-ins em andamento")
+                .register(registry);
+        Gauge.builder("estacionamento.reservas.ativas", indiceReservas, IndiceReservas::getTotal)
+                .description("Reservas ativas no índice em memória")
+                .register(registry);
+        Gauge.builder("estacionamento.vagas.conhecidas", mapaVagas, MapaVagas::getTotalConhecidas)
+                .description("Vagas no mapa de ocupação")
+                .register(registry);
+        FunctionCounter.builder("estacionamento.reservas.expiradas", reservaService,
+                        s -> s.getMetricasExpiracao().getTotalExpiradas())
+                .description("Reservas expiradas desde a subida")
+                .register(registry);
+    }
+
+    // Sem configuração ativa a coleta não deve falhar
+    private static double totalVagas(ConfiguracaoCache cache) {
+        try {
+            return cache.get().getTotalVagas();
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import br.edu.fiap.soa.estacionamento.domain.EventoEstacionamento;
+import br.edu.fiap.soa.estacionamento.repository.EventoRepository;
+import br.edu.fiap.soa.estacionamento.web.dto.PaginaDTO;
+import br.edu.fiap.soa.estacionamento.web.dto.ProjecaoEventosDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Registro append-only dos eventos do estacionamento (entradas, saídas e
+ * ciclo de vida das reservas).
+ * <p>
+ * Os eventos são gravados na mesma transação que altera ticket e reserva:
+ * o registro e as projeções nunca divergem, e os INSERTs seguem no mesmo
+ * lote JDBC do flush. Ticket, reserva e ocupação continuam sendo as tabelas
+ * de leitura; a reprodução do registro reconstrói esse estado (ou alimenta
+ * um relatório novo) sem tocar nelas.
+ * <p>
+ * É um compromisso, não uma troca de escritas por anexos: as tabelas de
+ * leitura continuam com leitura-alteração-escrita e cada operação grava um
+ * INSERT a mais no registro. Em troca, o histórico completo fica disponível
+ * para reprodução.
+ * <p>
+ * A ordem é a dos ids. Ids vêm da sequence em blocos e transações
+ * concorrentes podem confirmar fora de ordem, então um leitor incremental
+ * que já passou de um id pode não ver um evento confirmado depois; a
+ * reprodução completa não tem esse problema.
+ */
+@Service
+public class RegistroEventos {
+
+    private final EventoRepository eventoRepository;
+
+    @Value("${estacionamento.eventos.reproducao.lote:5000}")
+    private int tamanhoLote = 5000;
+
+    public RegistroEventos(EventoRepository eventoRepository) {
+        this.eventoRepository = eventoRepository;
+    }
+
+    /**
+     * Acrescenta eventos ao registro, na transação corrente
+     */
+    public void registrar(EventoEstacionamento... eventos) {
+        registrar(List.of(eventos));
+    }
+
+    public void registrar(List<EventoEstacionamento> eventos) {
+        if (!eventos.isEmpty()) {
+            eventoRepository.saveAll(eventos);
+        }
+    }
+
+    public PaginaDTO<EventoEstacionamento> listar(Long apos, int limite) {
+        int tamanho = PaginaDTO.limitar(limite);
+        return PaginaDTO.de(eventoRepository.findApos(apos != null ? apos : 0L, PageRequest.of(0, tamanho + 1)),
+                tamanho, EventoEstacionamento::getId);
+    }
+
+    /**
+     * Percorre o registro em ordem, em páginas por cursor
+     *
+     * @param apos id a partir do qual reproduzir (exclusivo); 0 reproduz tudo
+     * @return id do último evento entregue, ou {@code apos} se não houver nenhum
+     */
+    public long reproduzir(long apos, Consumer<EventoEstacionamento> destino) {
+        long cursor = apos;
+        List<EventoEstacionamento> pagina;
+        do {
+            pagina = eventoRepository.findApos(cursor, PageRequest.of(0, tamanhoLote));
+            for (EventoEstacionamento evento : pagina) {
+                destino.accept(evento);
+                cursor = evento.getId();
+            }
+        } while (pagina.size() == tamanhoLote);
+        return cursor;
+    }
+
+    /**
+     * Reconstrói ocupação, reservas ativas e receita só a partir do registro
+     */
+    public ProjecaoEventosDTO projetar() {
+        long inicio = System.nanoTime();
+        Projecao projecao = new Projecao();
+        long ultimo = reproduzir(0, projecao::aplicar);
+        return ProjecaoEventosDTO.builder()
+                .eventos(projecao.eventos)
+                .ultimoEvento(ultimo > 0 ? ultimo : null)
+                .ticketsAbertos(projecao.abertos.size())
+                .ticketsFechados(projecao.fechados)
+                .reservasAtivas(projecao.reservasAtivas.size())
+                .receita(projecao.receita)
+                .vagasOcupadas(projecao.abertos.values().stream().distinct().sorted().toList())
+                .duracaoMs(Duration.ofNanos(System.nanoTime() - inicio).toMillis())
+                .build();
+    }
+
+    private static final class Projecao {
+        final Map<Long, String> abertos = new HashMap<>();
+        final Set<Long> reservasAtivas = new HashSet<>();
+        long eventos;
+        long fechados;
+        BigDecimal receita = BigDecimal.ZERO;
+
+        void aplicar(EventoEstacionamento evento) {
+            eventos++;
+            switch (evento.getTipo()) {
+                case ENTRADA -> abertos.put(evento.getTicketId(), evento.getVaga());
+                case SAIDA -> {
+                    abertos.remove(evento.getTicketId());
+                    fechados++;
+                    if (evento.getValor() != null) receita = receita.add(evento.getValor());
+                }
+                case RESERVA_CRIADA -> reservasAtivas.add(evento.getReservaId());
+                case RESERVA_CANCELADA, RESERVA_UTILIZADA, RESERVA_EXPIRADA ->
+                        reservasAtivas.remove(evento.getReservaId());
+            }
+        }
+    }
+}
@@ -1,119 +1,139 @@
 package br.edu.fiap.soa.estacionamento.service;
 
-import br.edu.fiap.soa.estacionamento.domain.Ticket;
-import br.edu.fiap.soa.estacionamento.domain.TicketStatus;
-import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import br.edu.fiap.soa.estacionamento.repository.LeituraReplica;
+import br.edu.fiap.soa.estacionamento.web.dto.RelatorioConsolidadoDTO;
 import br.edu.fiap.soa.estacionamento.web.dto.RelatorioOcupacaoDTO;
 import br.edu.fiap.soa.estacionamento.web.dto.RelatorioReceitaDTO;
 import br.edu.fiap.soa.estacionamento.web.dto.RelatorioVagasDTO;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
- * Service responsável por gerar relatórios
+ * Service responsável por gerar relatórios.
+ * <p>
+ * Tudo aqui é leitura: com a réplica configurada, as consultas saem do pool
+ * de leitura e não disputam conexões com check-in e check-out.
  */
 @Service
+@LeituraReplica
+@Transactional(readOnly = true)
 public class RelatorioService {
     
-    private final TicketRepository ticketRepository;
+    private final RollupService rollupService;
     private final EstacionamentoService estacionamentoService;
     
-    public RelatorioService(TicketRepository ticketRepository,
+    public RelatorioService(RollupService rollupService,
                           EstacionamentoService estacionamentoService) {
-        this.ticketRepository = ticketRepository;
+        this.rollupService = rollupService;
         this.estacionamentoService = estacionamentoService;
     }
     
     /**
      * Relatório de receita por período
      */
+    @Timed(value = "estacionamento.relatorio", extraTags = {"operacao", "receita"})
     public RelatorioReceitaDTO getRelatorioReceita(LocalDateTime inicio, LocalDateTime fim) {
-        List<Ticket> tickets = ticketRepository.findByPeriodo(inicio, fim);
-        
-        BigDecimal receitaTotal = tickets.stream()
-                .filter(t -> t.getStatus() == TicketStatus.FECHADO && t.getValor() != null)
-                .map(Ticket::getValor)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        long totalTickets = tickets.stream()
-                .filter(t -> t.getStatus() == TicketStatus.FECHADO)
-                .count();
-          BigDecimal ticketMedio = totalTickets > 0 
-                ? receitaTotal.divide(BigDecimal.valueOf(totalTickets), 2, RoundingMode.HALF_UP)
-                : BigDecimal.ZERO;
-        
-        return RelatorioReceitaDTO.builder()
-                .periodo(inicio + " até " + fim)
-                .receitaTotal(receitaTotal)
-                .totalTickets(totalTickets)
-                .ticketMedio(ticketMedio)
-                .build();
+        // Buckets pré-agregados + bordas do período, sem materializar os tickets
+        return montarReceita(periodo(inicio, fim), rollupService.agregar(inicio, fim));
     }
     
     /**
-     * Relatório de ocupação atual
+     * Relatório de ocupação atual (contadores em memória, sem queries)
      */
+    @Timed(value = "estacionamento.relatorio", extraTags = {"operacao", "ocupacao"})
     public RelatorioOcupacaoDTO getRelatorioOcupacao() {
+        int total = estacionamentoService.getTotalVagas();
+        long ocupadas = estacionamentoService.getVagasOcupadas();
+        
         return RelatorioOcupacaoDTO.builder()
-                .totalVagas(estacionamentoService.getTotalVagas())
-                .vagasOcupadas(estacionamentoService.getVagasOcupadas())
-                .vagasLivres(estacionamentoService.getVagasLivres())
-                .taxaOcupacao(estacionamentoService.getTaxaOcupacao())
-                .lotado(estacionamentoService.isLotado())
+                .totalVagas(total)
+                .vagasOcupadas(ocupadas)
+                .vagasLivres(total - ocupadas)
+                .taxaOcupacao(total == 0 ? 0.0 : (double) ocupadas / total * 100.0)
+                .lotado(ocupadas >= total)
                 .build();
     }
     
     /**
      * Relatório de uso das vagas
      */
+    @Timed(value = "estacionamento.relatorio", extraTags = {"operacao", "vagas"})
     public RelatorioVagasDTO getRelatorioVagas(LocalDateTime inicio, LocalDateTime fim) {
-        List<Object[]> dadosVagas = ticketRepository.getRelatorioUsoVagas(inicio, fim);
+        return montarVagas(periodo(inicio, fim), rollupService.agregar(inicio, fim));
+    }
+    
+    /**
+     * Relatório consolidado: receita e uso de vagas saem da mesma agregação
+     * do período e a ocupação dos contadores em memória
+     */
+    @Timed(value = "estacionamento.relatorio", extraTags = {"operacao", "consolidado"})
+    public RelatorioConsolidadoDTO getRelatorioConsolidado(LocalDateTime inicio, LocalDateTime fim) {
+        String periodo = periodo(inicio, fim);
+        AgregadoPeriodo agregado = rollupService.agregar(inicio, fim);
         
-        Map<String, Long> usoVagas = new HashMap<>();
-        for (Object[] linha : dadosVagas) {
-            String vaga = (String) linha[0];
-            Long count = ((Number) linha[1]).longValue();
-            usoVagas.put(vaga, count);
-        }
+        return RelatorioConsolidadoDTO.builder()
+                .receita(montarReceita(periodo, agregado))
+                .ocupacao(getRelatorioOcupacao())
+                .vagas(montarVagas(periodo, agregado))
+                .receitaPorTarifa(agregado.getReceitaPorTarifa())
+                .build();
+    }
+    
+    private RelatorioReceitaDTO montarReceita(String periodo, AgregadoPeriodo agregado) {
+        BigDecimal receitaTotal = agregado.getReceitaTotal();
+        long totalTickets = agregado.getTotalFechados();
         
-        // Vaga mais utilizada
-        String vagaMaisUsada = usoVagas.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("N/A");
+        BigDecimal ticketMedio = totalTickets > 0 
+                ? receitaTotal.divide(BigDecimal.valueOf(totalTickets), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
         
-        // Vaga menos utilizada
-        String vagaMenosUsada = usoVagas.entrySet().stream()
-                .min(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("N/A");
+        return RelatorioReceitaDTO.builder()
+                .periodo(periodo)
+                .receitaTotal(receitaTotal)
+                .totalTickets(totalTickets)
+                .ticketMedio(ticketMedio)
+                .build();
+    }
+    
+    private RelatorioVagasDTO montarVagas(String periodo, AgregadoPeriodo agregado) {
+        Map<String, Long> usoVagas = new HashMap<>(agregado.getTicketsPorVaga());
+        
+        // Mais e menos utilizada numa única passada
+        String vagaMaisUsada = "N/A";
+        String vagaMenosUsada = "N/A";
+        long maior = Long.MIN_VALUE;
+        long menor = Long.MAX_VALUE;
+        long totalUsos = 0;
+        for (Map.Entry<String, Long> uso : usoVagas.entrySet()) {
+            long usos = uso.getValue();
+            totalUsos += usos;
+            if (usos > maior) {
+                maior = usos;
+                vagaMaisUsada = uso.getKey();
+            }
+            if (usos < menor) {
+                menor = usos;
+                vagaMenosUsada = uso.getKey();
+            }
+        }
         
         return RelatorioVagasDTO.builder()
-                .periodo(inicio + " até " + fim)
+                .periodo(periodo)
                 .usoVagas(usoVagas)
                 .vagaMaisUsada(vagaMaisUsada)
                 .vagaMenosUsada(vagaMenosUsada)
-                .totalUsos(usoVagas.values().stream().mapToLong(Long::longValue).sum())
+                .totalUsos(totalUsos)
                 .build();
     }
     
-    /**
-     * Relatório consolidado
-     */
-    public Map<String, Object> getRelatorioConsolidado(LocalDateTime inicio, LocalDateTime fim) {
-        Map<String, Object> relatorio = new HashMap<>();
-        
-        relatorio.put("receita", getRelatorioReceita(inicio, fim));
-        relatorio.put("ocupacao", getRelatorioOcupacao());
-        relatorio.put("vagas", getRelatorioVagas(inicio, fim));
-        
-        return relatorio;
+    private static String periodo(LocalDateTime inicio, LocalDateTime fim) {
+        return inicio + " até " + fim;
     }
 }
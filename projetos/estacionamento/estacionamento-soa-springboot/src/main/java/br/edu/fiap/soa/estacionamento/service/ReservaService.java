@@ -1,14 +1,28 @@
 package br.edu.fiap.soa.estacionamento.service;
 
 import br.edu.fiap.soa.estacionamento.domain.*;
+import br.edu.fiap.soa.estacionamento.repository.LeituraReplica;
 import br.edu.fiap.soa.estacionamento.repository.ReservaRepository;
 import br.edu.fiap.soa.estacionamento.repository.VeiculoRepository;
-import org.springframework.scheduling.annotation.Scheduled;
+import br.edu.fiap.soa.estacionamento.web.dto.ExpiracaoReservasDTO;
+import br.edu.fiap.soa.estacionamento.web.dto.PaginaDTO;
+import br.edu.fiap.soa.estacionamento.web.dto.ReservaResponse;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service responsável pelo gerenciamento de reservas
@@ -16,19 +30,48 @@ import java.util.List;
 @Service
 public class ReservaService {
     
+    private static final Logger log = LoggerFactory.getLogger(ReservaService.class);
+    
     private final ReservaRepository reservaRepository;
     private final VeiculoRepository veiculoRepository;
     private final EstacionamentoService estacionamentoService;
+    private final IndiceReservas indiceReservas;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheVeiculos cacheVeiculos;
+    private final RegistroEventos registroEventos;
+    
+    // Métricas da expiração
+    private final AtomicLong totalExpiradas = new AtomicLong();
+    private final AtomicLong execucoesExpiracao = new AtomicLong();
+    private volatile LocalDateTime ultimaExpiracao;
+    private volatile int ultimaQuantidadeExpirada;
+    private volatile long ultimaDuracaoExpiracaoMs;
+    
+    @Value("${estacionamento.reservas.expiracao.lote:500}")
+    private int tamanhoLoteExpiracao = 500;
+    
+    // O índice de reservas é de cada nó: com vários, a criação confere também o banco
+    @Value("${estacionamento.reservas.multi-no:false}")
+    private boolean multiNo;
     
     public ReservaService(ReservaRepository reservaRepository, 
                          VeiculoRepository veiculoRepository,
-                         EstacionamentoService estacionamentoService) {
+                         EstacionamentoService estacionamentoService,
+                         IndiceReservas indiceReservas,
+                         PlatformTransactionManager transactionManager,
+                         CacheVeiculos cacheVeiculos,
+                         RegistroEventos registroEventos) {
         this.reservaRepository = reservaRepository;
         this.veiculoRepository = veiculoRepository;
         this.estacionamentoService = estacionamentoService;
+        this.indiceReservas = indiceReservas;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheVeiculos = cacheVeiculos;
+        this.registroEventos = registroEventos;
     }
     
     @Transactional
+    @Timed(value = "estacionamento.reserva", extraTags = {"operacao", "criar"})
     public Reserva criarReserva(String placa, String vaga, LocalDateTime dataInicio, LocalDateTime dataFim) {
         // Validações
         if (dataInicio.isBefore(LocalDateTime.now())) {
@@ -39,14 +82,14 @@ public class ReservaService {
             throw new RuntimeException("Data de fim deve ser posterior à data de início");
         }
         
-        // Verifica se a vaga está disponível no período
-        List<Reserva> conflitos = reservaRepository.findReservasConflitantes(vaga, dataInicio, dataFim);
-        if (!conflitos.isEmpty()) {
+        // Verifica se a vaga está disponível no período e segura o intervalo até o commit
+        IndiceReservas.Intervalo intervalo = indiceReservas.reservar(vaga, dataInicio, dataFim);
+        if (multiNo && !reservaRepository.findReservasConflitantes(vaga, dataInicio, dataFim).isEmpty()) {
             throw new RuntimeException("Vaga já reservada no período solicitado");
         }
         
-        // Busca ou cria o veículo
-        Veiculo veiculo = veiculoRepository.findByPlaca(placa)
+        // Busca o veículo (cache de placas, inclusive placas desconhecidas)
+        Veiculo veiculo = cacheVeiculos.buscar(placa)
                 .orElseThrow(() -> new RuntimeException("Veículo não encontrado. Cadastre primeiro."));
         
         // Cria a reserva
@@ -58,10 +101,14 @@ public class ReservaService {
                 .status(StatusReserva.ATIVA)
                 .build();
         
-        return reservaRepository.save(reserva);
+        Reserva salva = reservaRepository.save(reserva);
+        indiceReservas.vincular(intervalo, salva.getId(), veiculo.getId());
+        registroEventos.registrar(EventoEstacionamento.reservaCriada(salva));
+        return salva;
     }
     
     @Transactional
+    @Timed(value = "estacionamento.reserva", extraTags = {"operacao", "cancelar"})
     public void cancelarReserva(Long reservaId) {
         Reserva reserva = reservaRepository.findById(reservaId)
                 .orElseThrow(() -> new RuntimeException("Reserva não encontrada"));
@@ -72,9 +119,12 @@ public class ReservaService {
         
         reserva.setStatus(StatusReserva.CANCELADA);
         reservaRepository.save(reserva);
+        indiceReservas.removerAposCommit(reservaId);
+        registroEventos.registrar(EventoEstacionamento.reserva(TipoEvento.RESERVA_CANCELADA, reservaId, LocalDateTime.now()));
     }
     
     @Transactional
+    @Timed(value = "estacionamento.reserva", extraTags = {"operacao", "utilizar"})
     public void utilizarReserva(Long reservaId) {
         Reserva reserva = reservaRepository.findById(reservaId)
                 .orElseThrow(() -> new RuntimeException("Reserva não encontrada"));
@@ -90,27 +140,86 @@ public class ReservaService {
         
         reserva.setStatus(StatusReserva.UTILIZADA);
         reservaRepository.save(reserva);
+        indiceReservas.removerAposCommit(reservaId);
+        registroEventos.registrar(EventoEstacionamento.reserva(TipoEvento.RESERVA_UTILIZADA, reservaId, agora));
     }
     
-    public List<Reserva> listarReservasAtivas() {
-        return reservaRepository.findByStatus(StatusReserva.ATIVA);
+    @Timed(value = "estacionamento.reserva", extraTags = {"operacao", "listar-ativas"})
+    public PaginaDTO<ReservaResponse> listarReservasAtivas(Long apos, int limite) {
+        int tamanho = PaginaDTO.limitar(limite);
+        List<ReservaResponse> itens = reservaRepository.findAtivasApos(apos != null ? apos : 0L, PageRequest.of(0, tamanho + 1));
+        return PaginaDTO.de(itens, tamanho, ReservaResponse::getId);
     }
     
-    public List<Reserva> listarReservasPorVeiculo(Long veiculoId) {
-        return reservaRepository.findByVeiculoIdAndStatus(veiculoId, StatusReserva.ATIVA);
+    @LeituraReplica
+    @Transactional(readOnly = true)
+    @Timed(value = "estacionamento.reserva", extraTags = {"operacao", "exportar-ativas"})
+    public void exportarReservasAtivas(Consumer<ReservaResponse> destino) {
+        try (Stream<ReservaResponse> reservas = reservaRepository.streamAtivas()) {
+            reservas.forEach(destino);
+        }
+    }
+    
+    @Timed(value = "estacionamento.reserva", extraTags = {"operacao", "listar-por-veiculo"})
+    public List<ReservaResponse> listarReservasPorVeiculo(Long veiculoId) {
+        return reservaRepository.findAtivasPorVeiculo(veiculoId);
     }
     
     /**
-     * Job para expirar reservas automaticamente
+     * Expira as reservas vencidas em lotes de UPDATE, cada um em sua própria
+     * transação curta. O agendamento fica com {@link AgendadorExpiracaoReservas}.
+     *
+     * @return quantidade de reservas expiradas
      */
-    @Scheduled(fixedRate = 300000) // A cada 5 minutos
-    @Transactional
-    public void expirarReservas() {
-        List<Reserva> reservasExpiradas = reservaRepository.findReservasExpiradas(LocalDateTime.now());
+    @Timed(value = "estacionamento.reserva", extraTags = {"operacao", "expirar"})
+    public int expirarReservas() {
+        LocalDateTime agora = LocalDateTime.now();
+        long inicio = System.nanoTime();
+        int expiradas = 0;
+        Lote lote;
+        do {
+            lote = transactionTemplate.execute(status -> expirarLote(agora));
+            expiradas += lote.expiradas();
+        } while (lote.selecionadas() == tamanhoLoteExpiracao);
+        indiceReservas.removerVencidas(agora);
         
-        for (Reserva reserva : reservasExpiradas) {
-            reserva.setStatus(StatusReserva.EXPIRADA);
-            reservaRepository.save(reserva);
+        long duracaoMs = Duration.ofNanos(System.nanoTime() - inicio).toMillis();
+        totalExpiradas.addAndGet(expiradas);
+        execucoesExpiracao.incrementAndGet();
+        ultimaExpiracao = agora;
+        ultimaQuantidadeExpirada = expiradas;
+        ultimaDuracaoExpiracaoMs = duracaoMs;
+        if (expiradas > 0) {
+            log.info("{} reservas expiradas em {} ms", expiradas, duracaoMs);
+        }
+        return expiradas;
+    }
+    
+    public ExpiracaoReservasDTO getMetricasExpiracao() {
+        return ExpiracaoReservasDTO.builder()
+                .totalExpiradas(totalExpiradas.get())
+                .execucoes(execucoesExpiracao.get())
+                .ultimaExecucao(ultimaExpiracao)
+                .ultimaQuantidade(ultimaQuantidadeExpirada)
+                .ultimaDuracaoMs(ultimaDuracaoExpiracaoMs)
+                .proximoVencimento(indiceReservas.getProximoVencimento())
+                .build();
+    }
+    
+    private Lote expirarLote(LocalDateTime agora) {
+        List<Long> candidatas = reservaRepository.findIdsExpirados(agora, PageRequest.of(0, tamanhoLoteExpiracao));
+        if (candidatas.isEmpty()) {
+            return new Lote(0, 0);
         }
+        // Trava as que seguem ATIVAS: o UPDATE muda exatamente estas, e só elas geram evento
+        List<Long> ids = reservaRepository.findAtivasParaExpirar(candidatas);
+        int expiradas = ids.isEmpty() ? 0 : reservaRepository.expirar(ids);
+        candidatas.forEach(indiceReservas::removerAposCommit);
+        registroEventos.registrar(ids.stream()
+                .map(id -> EventoEstacionamento.reserva(TipoEvento.RESERVA_EXPIRADA, id, agora))
+                .toList());
+        return new Lote(candidatas.size(), expiradas);
     }
+    
+    private record Lote(int selecionadas, int expiradas) { }
 }
@@ -0,0 +1,300 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import br.edu.fiap.soa.estacionamento.domain.GranularidadeRollup;
+import br.edu.fiap.soa.estacionamento.domain.RollupControle;
+import br.edu.fiap.soa.estacionamento.domain.Ticket;
+import br.edu.fiap.soa.estacionamento.domain.TicketRollup;
+import br.edu.fiap.soa.estacionamento.domain.TipoTarifa;
+import br.edu.fiap.soa.estacionamento.repository.RollupControleRepository;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import br.edu.fiap.soa.estacionamento.repository.TicketRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Service responsável pelos buckets pré-agregados (rollup) de tickets.
+ * <p>
+ * Um job incremental soma, a partir da marca d'água, as novas entradas e os
+ * novos fechamentos nos buckets por hora e por dia da entrada. Os relatórios
+ * combinam os buckets inteiramente contidos no período com consultas apenas
+ * nas bordas, de modo que o custo não cresce com o tamanho do histórico.
+ */
+@Service
+public class RollupService {
+    
+    private static final Logger log = LoggerFactory.getLogger(RollupService.class);
+    private static final int MAX_TENTATIVAS_LEITURA = 3;
+    
+    private final TicketRepository ticketRepository;
+    private final TicketRollupRepository rollupRepository;
+    private final RollupControleRepository controleRepository;
+    private final MarcaRelatorios marcaRelatorios;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${estacionamento.rollup.margem-segundos:120}")
+    private long margemSegundos;
+    
+    @Value("${estacionamento.rollup.janela-max-horas:24}")
+    private long janelaMaxHoras;
+    
+    public RollupService(TicketRepository ticketRepository,
+                         TicketRollupRepository rollupRepository,
+                         RollupControleRepository controleRepository,
+                         MarcaRelatorios marcaRelatorios,
+                         PlatformTransactionManager transactionManager) {
+        this.ticketRepository = ticketRepository;
+        this.rollupRepository = rollupRepository;
+        this.controleRepository = controleRepository;
+        this.marcaRelatorios = marcaRelatorios;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Job incremental: processa janelas limitadas, cada uma em sua transação,
+     * até alcançar o instante atual menos a margem de segurança para commits
+     * em andamento
+     */
+    @Scheduled(fixedDelayString = "${estacionamento.rollup.intervalo-ms:60000}",
+               initialDelayString = "${estacionamento.rollup.intervalo-ms:60000}")
+    public void atualizar() {
+        LocalDateTime limite = LocalDateTime.now().minusSeconds(margemSegundos);
+        while (Boolean.TRUE.equals(transactionTemplate.execute(status -> processarJanela(limite)))) {
+            // continua até alcançar o limite
+        }
+    }
+    
+    /**
+     * Soma direto nos buckets as entradas e os fechamentos com horário já
+     * coberto pela marca d'água (eventos retroativos, ex.: replay dos
+     * portões), que o job incremental não veria mais. Deve rodar na transação
+     * que grava os tickets: a trava do controle impede que o job avance a
+     * marca sobre eles antes do commit. Também invalida as respostas em
+     * cache dos relatórios quando o lote cai em período já consolidado.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarRetroativos(List<Ticket> entradas, List<Ticket> fechamentos) {
+        // Horários recentes continuam com o job, que só lê até agora - margem
+        LocalDateTime recente = LocalDateTime.now().minusSeconds(margemSegundos / 2);
+        boolean haRetroativos = entradas.stream().anyMatch(t -> !t.getEntrada().isAfter(recente))
+                || fechamentos.stream().anyMatch(t -> !t.getSaida().isAfter(recente));
+        boolean alteraConsolidado = marcaRelatorios.alteraConsolidado(entradas, fechamentos);
+        if (alteraConsolidado) {
+            marcaRelatorios.invalidarAposCommit();
+        }
+        if (!haRetroativos && !alteraConsolidado) {
+            return;
+        }
+        RollupControle controle = controleRepository.findParaAtualizar(RollupControle.ID).orElse(null);
+        if (controle != null && alteraConsolidado) {
+            // Avisa os outros nós (MarcaRelatorios.verificarVersao)
+            controle.setVersao(controle.getVersao() + 1);
+        }
+        if (controle == null) {
+            // O job ainda não rodou: a primeira execução começa pelo ticket mais antigo
+            return;
+        }
+        LocalDateTime marca = controle.getProcessadoAte();
+        
+        Map<ChaveBucket, TicketRollup> deltas = new HashMap<>();
+        for (Ticket ticket : entradas) {
+            if (ticket.getEntrada().isAfter(marca)) continue;
+            Object[] linha = {ticket.getEntrada(), ticket.getVaga(), ticket.getTipoTarifa()};
+            for (GranularidadeRollup granularidade : GranularidadeRollup.values()) {
+                TicketRollup delta = delta(deltas, granularidade, linha);
+                delta.setQuantidadeTickets(delta.getQuantidadeTickets() + 1);
+            }
+        }
+        for (Ticket ticket : fechamentos) {
+            if (ticket.getSaida().isAfter(marca)) continue;
+            Object[] linha = {ticket.getEntrada(), ticket.getVaga(), ticket.getTipoTarifa()};
+            BigDecimal valor = ticket.getValor() != null ? ticket.getValor() : BigDecimal.ZERO;
+            for (GranularidadeRollup granularidade : GranularidadeRollup.values()) {
+                TicketRollup delta = delta(deltas, granularidade, linha);
+                delta.setQuantidadeFechados(delta.getQuantidadeFechados() + 1);
+                delta.setReceita(delta.getReceita().add(valor));
+            }
+        }
+        aplicar(deltas);
+    }
+    
+    /**
+     * Soma os tickets com entrada em [inicio, fim] usando buckets completos e
+     * consultas apenas nos fragmentos não cobertos
+     */
+    public AgregadoPeriodo agregar(LocalDateTime inicio, LocalDateTime fim) {
+        for (int tentativa = 1; ; tentativa++) {
+            LocalDateTime marca = getMarcaDagua();
+            AgregadoPeriodo agregado = agregar(inicio, fim, marca);
+            // Se o job avançou durante a leitura, buckets e fragmentos podem se sobrepor
+            if (Objects.equals(marca, getMarcaDagua()) || tentativa == MAX_TENTATIVAS_LEITURA) {
+                return agregado;
+            }
+        }
+    }
+    
+    private AgregadoPeriodo agregar(LocalDateTime inicio, LocalDateTime fim, LocalDateTime marca) {
+        AgregadoPeriodo agregado = new AgregadoPeriodo();
+        
+        // Faixa coberta por buckets de hora completos: [corteInicio, corteFim)
+        LocalDateTime corteInicio = tetoHora(inicio);
+        LocalDateTime corteFim = fim.truncatedTo(ChronoUnit.HOURS);
+        if (marca != null && marca.truncatedTo(ChronoUnit.HOURS).isBefore(corteFim)) {
+            corteFim = marca.truncatedTo(ChronoUnit.HOURS);
+        }
+        if (marca == null || !corteInicio.isBefore(corteFim)) {
+            corteInicio = inicio;
+            corteFim = inicio;
+        }
+        
+        if (corteInicio.isBefore(corteFim)) {
+            LocalDateTime diaInicio = tetoDia(corteInicio);
+            LocalDateTime diaFim = corteFim.truncatedTo(ChronoUnit.DAYS);
+            List<Object[]> buckets = diaInicio.isBefore(diaFim)
+                    ? rollupRepository.somarBuckets(diaInicio, diaFim, corteInicio, diaInicio, diaFim, corteFim)
+                    : rollupRepository.somarBuckets(corteInicio, corteInicio, corteInicio, corteFim, corteFim, corteFim);
+            somarLinhas(agregado, buckets);
+            
+            for (Object[] linha : ticketRepository.agregarFechadosAposMarca(corteInicio, corteFim, marca)) {
+                agregado.somar((String) linha[0], (TipoTarifa) linha[1], 0,
+                        ((Number) linha[2]).longValue(), (BigDecimal) linha[3]);
+            }
+        }
+        
+        somarLinhas(agregado, ticketRepository.agregarFragmentos(inicio, corteInicio, corteFim, fim));
+        return agregado;
+    }
+    
+    private Boolean processarJanela(LocalDateTime limite) {
+        RollupControle controle = controleRepository.findParaAtualizar(RollupControle.ID)
+                .orElseGet(this::criarControle);
+        LocalDateTime desde = controle.getProcessadoAte();
+        if (!desde.isBefore(limite)) {
+            return false;
+        }
+        LocalDateTime ate = desde.plusHours(janelaMaxHoras);
+        if (ate.isAfter(limite)) {
+            ate = limite;
+        }
+        
+        Map<ChaveBucket, TicketRollup> deltas = new HashMap<>();
+        for (Object[] linha : ticketRepository.findEntradasRollup(desde, ate)) {
+            for (GranularidadeRollup granularidade : GranularidadeRollup.values()) {
+                TicketRollup delta = delta(deltas, granularidade, linha);
+                delta.setQuantidadeTickets(delta.getQuantidadeTickets() + 1);
+            }
+        }
+        for (Object[] linha : ticketRepository.findFechamentosRollup(desde, ate)) {
+            BigDecimal valor = linha[3] != null ? (BigDecimal) linha[3] : BigDecimal.ZERO;
+            for (GranularidadeRollup granularidade : GranularidadeRollup.values()) {
+                TicketRollup delta = delta(deltas, granularidade, linha);
+                delta.setQuantidadeFechados(delta.getQuantidadeFechados() + 1);
+                delta.setReceita(delta.getReceita().add(valor));
+            }
+        }
+        aplicar(deltas);
+        
+        controle.setProcessadoAte(ate);
+        controleRepository.save(controle);
+        log.debug("Rollup processado até {} ({} buckets alterados)", ate, deltas.size());
+        return ate.isBefore(limite);
+    }
+    
+    private void aplicar(Map<ChaveBucket, TicketRollup> deltas) {
+        for (GranularidadeRollup granularidade : GranularidadeRollup.values()) {
+            Set<LocalDateTime> inicios = deltas.keySet().stream()
+                    .filter(chave -> chave.granularidade() == granularidade)
+                    .map(ChaveBucket::inicio)
+                    .collect(Collectors.toSet());
+            if (inicios.isEmpty()) continue;
+            
+            Map<ChaveBucket, TicketRollup> existentes = rollupRepository
+                    .findByGranularidadeAndInicioIn(granularidade, inicios).stream()
+                    .collect(Collectors.toMap(ChaveBucket::de, r -> r));
+            
+            deltas.forEach((chave, delta) -> {
+                if (chave.granularidade() != granularidade) return;
+                TicketRollup bucket = existentes.get(chave);
+                if (bucket == null) {
+                    rollupRepository.save(delta);
+                } else {
+                    bucket.setQuantidadeTickets(bucket.getQuantidadeTickets() + delta.getQuantidadeTickets());
+                    bucket.setQuantidadeFechados(bucket.getQuantidadeFechados() + delta.getQuantidadeFechados());
+                    bucket.setReceita(bucket.getReceita().add(delta.getReceita()));
+                }
+            });
+        }
+    }
+    
+    private static TicketRollup delta(Map<ChaveBucket, TicketRollup> deltas,
+                                      GranularidadeRollup granularidade, Object[] linha) {
+        LocalDateTime entrada = (LocalDateTime) linha[0];
+        String vaga = (String) linha[1];
+        TipoTarifa tipo = linha[2] != null ? (TipoTarifa) linha[2] : TipoTarifa.HORARIA;
+        ChaveBucket chave = new ChaveBucket(granularidade, granularidade.inicioDoBucket(entrada), vaga, tipo);
+        return deltas.computeIfAbsent(chave, c -> TicketRollup.builder()
+                .granularidade(c.granularidade())
+                .inicio(c.inicio())
+                .vaga(c.vaga())
+                .tipoTarifa(c.tipoTarifa())
+                .build());
+    }
+    
+    private RollupControle criarControle() {
+        // Primeira execução: começa logo antes do ticket mais antigo
+        LocalDateTime menorEntrada = ticketRepository.findMenorEntrada();
+        LocalDateTime inicio = menorEntrada != null
+                ? menorEntrada.truncatedTo(ChronoUnit.HOURS).minusSeconds(1)
+                : LocalDateTime.now().minusSeconds(margemSegundos);
+        return new RollupControle(RollupControle.ID, inicio);
+    }
+    
+    private LocalDateTime getMarcaDagua() {
+        return controleRepository.findById(RollupControle.ID)
+                .map(RollupControle::getProcessadoAte)
+                .orElse(null);
+    }
+    
+    private static void somarLinhas(AgregadoPeriodo agregado, List<Object[]> linhas) {
+        for (Object[] linha : linhas) {
+            agregado.somar((String) linha[0], (TipoTarifa) linha[1],
+                    ((Number) linha[2]).longValue(),
+                    linha[3] != null ? ((Number) linha[3]).longValue() : 0L,
+                    (BigDecimal) linha[4]);
+        }
+    }
+    
+    private static LocalDateTime tetoHora(LocalDateTime instante) {
+        LocalDateTime hora = instante.truncatedTo(ChronoUnit.HOURS);
+        return hora.equals(instante) ? hora : hora.plusHours(1);
+    }
+    
+    private static LocalDateTime tetoDia(LocalDateTime instante) {
+        LocalDateTime dia = instante.truncatedTo(ChronoUnit.DAYS);
+        return dia.equals(instante) ? dia : dia.plusDays(1);
+    }
+    
+    private record ChaveBucket(GranularidadeRollup granularidade, LocalDateTime inicio,
+                               String vaga, TipoTarifa tipoTarifa) {
+        static ChaveBucket de(TicketRollup bucket) {
+            return new ChaveBucket(bucket.getGranularidade(), bucket.getInicio(),
+                    bucket.getVaga(), bucket.getTipoTarifa());
+        }
+    }
+}
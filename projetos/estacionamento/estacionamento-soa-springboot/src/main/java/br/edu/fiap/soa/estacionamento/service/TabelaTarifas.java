@@ -0,0 +1,121 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import br.edu.fiap.soa.estacionamento.domain.ConfiguracaoSnapshot;
+import br.edu.fiap.soa.estacionamento.domain.TipoTarifa;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Tabela de preços pré-compilada a partir de uma configuração.
+ * <p>
+ * As tarifas ficam em centavos ({@code long}) e o cálculo usa apenas
+ * aritmética primitiva; o único objeto criado é o {@link BigDecimal} do
+ * resultado. Produz os mesmos valores do cálculo em {@link BigDecimal} do
+ * {@link TarifaService}. Só é compilável quando todas as tarifas existem e
+ * são representáveis exatamente em centavos.
+ */
+public final class TabelaTarifas {
+
+    private static final long MINUTOS_FRACAO = 30;
+    private static final long MINUTOS_HORA = 60;
+    private static final long HORAS_DIA = 24;
+
+    private final long versao;
+    private final long centavos30Min;
+    private final long centavosHora;
+    private final long centavosDiaria;
+    private final long centavosMensal;
+
+    private TabelaTarifas(long versao, long centavos30Min, long centavosHora,
+                          long centavosDiaria, long centavosMensal) {
+        this.versao = versao;
+        this.centavos30Min = centavos30Min;
+        this.centavosHora = centavosHora;
+        this.centavosDiaria = centavosDiaria;
+        this.centavosMensal = centavosMensal;
+    }
+
+    /**
+     * Compila a configuração; retorna {@code null} se alguma tarifa não for
+     * representável em centavos
+     */
+    public static TabelaTarifas compilar(ConfiguracaoSnapshot config) {
+        Long t30 = centavos(config.getTarifa30Min());
+        Long hora = centavos(config.getTarifaHora());
+        Long diaria = centavos(config.getTarifaDiaria());
+        Long mensal = centavos(config.getTarifaMensal());
+        if (t30 == null || hora == null || diaria == null || mensal == null) {
+            return null;
+        }
+        return new TabelaTarifas(config.getVersao(), t30, hora, diaria, mensal);
+    }
+
+    /**
+     * Calcula o valor cobrado para a permanência entre entrada e saída
+     */
+    public BigDecimal calcular(LocalDateTime entrada, LocalDateTime saida, TipoTarifa tipoTarifa) {
+        return BigDecimal.valueOf(calcularCentavos(entrada, saida, tipoTarifa), 2);
+    }
+
+    /**
+     * Mesmo cálculo, em centavos
+     */
+    public long calcularCentavos(LocalDateTime entrada, LocalDateTime saida, TipoTarifa tipoTarifa) {
+        long segundos = segundosEntre(entrada, saida);
+        return switch (tipoTarifa) {
+            case FRACAO_30MIN -> porFracao(segundos / 60, centavos30Min);
+            case HORARIA -> porHora(segundos / 60, centavosHora);
+            case DIARIA -> porDiaria(segundos, centavosDiaria, centavosHora);
+            case MENSAL -> centavosMensal;
+        };
+    }
+
+    public long getVersao() {
+        return versao;
+    }
+
+    private static long porFracao(long minutos, long centavos) {
+        long fracoes = (minutos + MINUTOS_FRACAO - 1) / MINUTOS_FRACAO; // Arredonda para cima
+        if (fracoes <= 0) fracoes = 1;
+        return fracoes * centavos;
+    }
+
+    private static long porHora(long minutos, long centavos) {
+        long horas = (minutos + MINUTOS_HORA - 1) / MINUTOS_HORA; // Arredonda para cima
+        if (horas <= 0) horas = 1;
+        return horas * centavos;
+    }
+
+    private static long porDiaria(long segundos, long centavosDiaria, long centavosHora) {
+        long horas = segundos / 3600;
+        if (horas >= HORAS_DIA) {
+            // Diárias completas + horas extras (truncadas, como no cálculo original)
+            return (horas / HORAS_DIA) * centavosDiaria + (horas % HORAS_DIA) * centavosHora;
+        }
+        long valorHorario = porHora(segundos / 60, centavosHora);
+        return Math.min(valorHorario, centavosDiaria);
+    }
+
+    /**
+     * Segundos inteiros entre os instantes, com o mesmo arredondamento de
+     * {@code Duration.between(entrada, saida).getSeconds()}
+     */
+    private static long segundosEntre(LocalDateTime entrada, LocalDateTime saida) {
+        long segundos = saida.toEpochSecond(ZoneOffset.UTC) - entrada.toEpochSecond(ZoneOffset.UTC);
+        if (saida.getNano() < entrada.getNano()) {
+            segundos--;
+        }
+        return segundos;
+    }
+
+    private static Long centavos(BigDecimal valor) {
+        if (valor == null) return null;
+        try {
+            return valor.movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+}
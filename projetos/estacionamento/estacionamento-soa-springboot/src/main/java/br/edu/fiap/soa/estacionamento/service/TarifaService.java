@@ -1,8 +1,8 @@
 package br.edu.fiap.soa.estacionamento.service;
 
-import br.edu.fiap.soa.estacionamento.domain.EstacionamentoConfig;
+import br.edu.fiap.soa.estacionamento.domain.ConfiguracaoSnapshot;
 import br.edu.fiap.soa.estacionamento.domain.TipoTarifa;
-import br.edu.fiap.soa.estacionamento.repository.EstacionamentoConfigRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -16,19 +16,37 @@ import java.time.LocalDateTime;
 @Service
 public class TarifaService {
     
-    private final EstacionamentoConfigRepository configRepository;
+    private final ConfiguracaoCache configuracaoCache;
+    private volatile TabelaTarifas tabela;
     
-    public TarifaService(EstacionamentoConfigRepository configRepository) {
-        this.configRepository = configRepository;
+    public TarifaService(ConfiguracaoCache configuracaoCache) {
+        this.configuracaoCache = configuracaoCache;
     }
     
     /**
-     * Calcula o valor baseado no tipo de tarifa
+     * Calcula o valor baseado no tipo de tarifa, usando a tabela pré-compilada
+     * da configuração ativa
      */
+    @Timed(value = "estacionamento.tarifa", extraTags = {"operacao", "calcular"})
     public BigDecimal calcularValor(LocalDateTime entrada, LocalDateTime saida, TipoTarifa tipoTarifa) {
-        EstacionamentoConfig config = configRepository.findActiveConfig()
-                .orElseThrow(() -> new RuntimeException("Configuração do estacionamento não encontrada"));
-        
+        ConfiguracaoSnapshot config = configuracaoCache.get();
+        TabelaTarifas atual = tabela;
+        if (atual == null || atual.getVersao() != config.getVersao()) {
+            atual = TabelaTarifas.compilar(config);
+            if (atual == null) {
+                // Tarifa ausente ou com mais de 2 casas decimais: cálculo em BigDecimal
+                return calcularValorDecimal(config, entrada, saida, tipoTarifa);
+            }
+            tabela = atual;
+        }
+        return atual.calcular(entrada, saida, tipoTarifa);
+    }
+    
+    /**
+     * Cálculo de referência em BigDecimal
+     */
+    public BigDecimal calcularValorDecimal(ConfiguracaoSnapshot config, LocalDateTime entrada,
+                                           LocalDateTime saida, TipoTarifa tipoTarifa) {
         Duration duracao = Duration.between(entrada, saida);
         
         return switch (tipoTarifa) {
@@ -77,6 +95,7 @@ public class TarifaService {
     /**
      * Sugere o melhor tipo de tarifa baseado na duração estimada
      */
+    @Timed(value = "estacionamento.tarifa", extraTags = {"operacao", "sugerir"})
     public TipoTarifa sugerirMelhorTarifa(Duration duracaoEstimada) {
         long horas = duracaoEstimada.toHours();
         long minutos = duracaoEstimada.toMinutes();
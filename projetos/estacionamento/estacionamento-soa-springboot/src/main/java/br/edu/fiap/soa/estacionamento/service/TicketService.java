@@ -1,7 +1,11 @@
 package br.edu.fiap.soa.estacionamento.service;
 import br.edu.fiap.soa.estacionamento.domain.*; 
 import br.edu.fiap.soa.estacionamento.repository.*;
+import br.edu.fiap.soa.estacionamento.web.dto.PaginaDTO;
+import br.edu.fiap.soa.estacionamento.web.dto.TicketResponse;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Value; 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service; 
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal; 
@@ -10,6 +14,8 @@ import java.time.Duration;
 import java.time.LocalDateTime; 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service refatorado responsável pelo gerenciamento de tickets
@@ -21,6 +27,14 @@ public class TicketService {
     private final ReservaRepository reservaRepo;
     private final EstacionamentoService estacionamentoService;
     private final TarifaService tarifaService;
+    private final ContadorOcupacao contadorOcupacao;
+    private final ControleAdmissao controleAdmissao;
+    private final IndiceReservas indiceReservas;
+    private final MapaVagas mapaVagas;
+    private final CacheVeiculos cacheVeiculos;
+    private final RegistroEventos registroEventos;
+    private final TicketsAbertos ticketsAbertos;
+    private final FilaFechamentos filaFechamentos;
     
     @Value("${parking.hourly-rate:8.00}") 
     private BigDecimal hourlyRate;
@@ -29,12 +43,28 @@ public class TicketService {
                         VeiculoRepository veiculoRepo,
                         ReservaRepository reservaRepo,
                         EstacionamentoService estacionamentoService,
-                        TarifaService tarifaService) {
+                        TarifaService tarifaService,
+                        ContadorOcupacao contadorOcupacao,
+                        ControleAdmissao controleAdmissao,
+                        IndiceReservas indiceReservas,
+                        MapaVagas mapaVagas,
+                        CacheVeiculos cacheVeiculos,
+                        RegistroEventos registroEventos,
+                        TicketsAbertos ticketsAbertos,
+                        FilaFechamentos filaFechamentos) {
         this.ticketRepo = ticketRepo;
         this.veiculoRepo = veiculoRepo;
         this.reservaRepo = reservaRepo;
         this.estacionamentoService = estacionamentoService;
         this.tarifaService = tarifaService;
+        this.contadorOcupacao = contadorOcupacao;
+        this.controleAdmissao = controleAdmissao;
+        this.indiceReservas = indiceReservas;
+        this.mapaVagas = mapaVagas;
+        this.cacheVeiculos = cacheVeiculos;
+        this.registroEventos = registroEventos;
+        this.ticketsAbertos = ticketsAbertos;
+        this.filaFechamentos = filaFechamentos;
     }
     
     public void setHourlyRate(BigDecimal rate) { 
@@ -42,34 +72,48 @@ public class TicketService {
     }
     
     public Ticket obter(Long id) { 
-        return ticketRepo.findById(id).orElseThrow(() -> 
+        return ticketRepo.findComVeiculoById(id).orElseThrow(() -> 
             new RuntimeException("Ticket não encontrado")); 
     }
     
-    public List<Ticket> listarAbertos() { 
-        return ticketRepo.findByStatus(TicketStatus.ABERTO); 
+    public PaginaDTO<TicketResponse> listarAbertos(Long apos, int limite) {
+        int tamanho = PaginaDTO.limitar(limite);
+        List<TicketResponse> itens = ticketRepo.findAbertosApos(apos != null ? apos : 0L, PageRequest.of(0, tamanho + 1));
+        return PaginaDTO.de(itens, tamanho, TicketResponse::getId);
+    }
+    
+    @LeituraReplica
+    @Transactional(readOnly = true)
+    public void exportarAbertos(Consumer<TicketResponse> destino) {
+        try (Stream<TicketResponse> tickets = ticketRepo.streamAbertos()) {
+            tickets.forEach(destino);
+        }
     }
     
     @Transactional 
+    @Timed(value = "estacionamento.ticket", extraTags = {"operacao", "checkin"})
     public Ticket checkIn(String placa, String modelo, String cor, String vaga, TipoTarifa tipoTarifa) {
-        // Verifica lotação
-        if (estacionamentoService.isLotado()) {
-            throw new RuntimeException("Estacionamento lotado - " + 
-                estacionamentoService.getVagasOcupadas() + "/" + 
-                estacionamentoService.getTotalVagas() + " vagas ocupadas");
+        // Reserva uma vaga no pool de lotação e trava a vaga até o fim da transação
+        controleAdmissao.admitirNaTransacao(vaga);
+        
+        // Mapa em memória: com a trava da vaga, nenhum check-in concorrente deste nó a ocupa
+        if (mapaVagas.isOcupada(vaga)) {
+            throw new RuntimeException("Vaga " + vaga + " já está ocupada");
         }
         
-        // Busca ou cria o veículo
-        Veiculo veiculo = veiculoRepo.findByPlaca(placa)
+        // Busca (pelo cache de placas) ou cria o veículo
+        Veiculo veiculo = cacheVeiculos.buscar(placa)
             .orElseGet(() -> criarNovoVeiculo(placa, modelo, cor));
 
-        // Impede ticket ABERTO duplicado para o mesmo veículo
+        // Impede ticket ABERTO duplicado para o mesmo veículo (uma saída adiada
+        // do veículo precisa chegar ao banco antes)
+        filaFechamentos.aguardarVeiculo(veiculo.getId());
         if (ticketRepo.existsByVeiculoIdAndStatus(veiculo.getId(), TicketStatus.ABERTO)) {
             throw new RuntimeException("Já existe um ticket ABERTO para este veículo");
         }
         
-        // Verifica se há reserva ativa para o veículo
-        Reserva reserva = verificarReservaAtiva(veiculo.getId(), vaga);
+        // Verifica se há reserva ativa para o veículo e a marca como utilizada
+        Reserva reserva = utilizarReservaAtiva(veiculo.getId(), vaga);
         
         // Define tipo de tarifa padrão se não informado
         if (tipoTarifa == null) {
@@ -86,24 +130,27 @@ public class TicketService {
             .build();
         
         Ticket ticketSalvo = ticketRepo.save(ticket);
+        registroEventos.registrar(EventoEstacionamento.entrada(ticketSalvo));
+        ticketsAbertos.registrarAposCommit(ticketSalvo);
         
-        // Se havia reserva, marca como utilizada
-        if (reserva != null) {
-            reserva.setStatus(StatusReserva.UTILIZADA);
-            reservaRepo.save(reserva);
-        }
-        
+        contadorOcupacao.registrarEntrada(vaga);
         return ticketSalvo;
     }
     
     // Método com compatibilidade para chamadas antigas
     @Transactional 
+    @Timed(value = "estacionamento.ticket", extraTags = {"operacao", "checkin"})
     public Ticket checkIn(String placa, String modelo, String cor, String vaga) {
         return checkIn(placa, modelo, cor, vaga, TipoTarifa.HORARIA);
     }
     
     @Transactional 
+    @Timed(value = "estacionamento.ticket", extraTags = {"operacao", "checkout"})
     public Ticket checkOut(Long ticketId) {
+        // Antes da leitura: a saída adiada é gravada antes de deixar de constar como "fechando"
+        if (ticketsAbertos.isFechando(ticketId)) {
+            throw new RuntimeException("Ticket já está fechado");
+        }
         Ticket ticket = obter(ticketId);
         
         if (ticket.getStatus() == TicketStatus.FECHADO) {
@@ -118,7 +165,12 @@ public class TicketService {
         ticket.setValor(valor);
         ticket.setStatus(TicketStatus.FECHADO);
         
-        return ticketRepo.save(ticket);
+        Ticket ticketFechado = ticketRepo.save(ticket);
+        registroEventos.registrar(EventoEstacionamento.saida(ticketFechado));
+        ticketsAbertos.removerAposCommit(ticketId);
+        contadorOcupacao.registrarSaida(ticket.getVaga());
+        controleAdmissao.liberarAposCommit();
+        return ticketFechado;
     }
     
     // Método legado mantido para compatibilidade
@@ -131,18 +183,21 @@ public class TicketService {
         veiculo.setPlaca(placa);
         veiculo.setModelo(modelo);
         veiculo.setCor(cor);
-        return veiculoRepo.save(veiculo);
+        Veiculo salvo = veiculoRepo.save(veiculo);
+        cacheVeiculos.registrarAposCommit(salvo);
+        return salvo;
     }
     
-    private Reserva verificarReservaAtiva(Long veiculoId, String vaga) {
-        List<Reserva> reservas = reservaRepo.findByVeiculoIdAndStatus(veiculoId, StatusReserva.ATIVA);
-        
-        LocalDateTime agora = LocalDateTime.now();
-        
-        return reservas.stream()
-            .filter(r -> r.getVaga().equals(vaga))
-            .filter(r -> !agora.isBefore(r.getDataInicio()) && !agora.isAfter(r.getDataFim()))
-            .findFirst()
+    // Consulta o índice em memória; o UPDATE condicional garante que a reserva
+    // não foi cancelada ou utilizada por outra transação nesse meio tempo
+    private Reserva utilizarReservaAtiva(Long veiculoId, String vaga) {
+        return indiceReservas.buscarValida(veiculoId, vaga, LocalDateTime.now())
+            .filter(id -> reservaRepo.marcarUtilizada(id) == 1)
+            .map(id -> {
+                indiceReservas.removerAposCommit(id);
+                registroEventos.registrar(EventoEstacionamento.reserva(TipoEvento.RESERVA_UTILIZADA, id, LocalDateTime.now()));
+                return reservaRepo.getReferenceById(id);
+            })
             .orElse(null);
     }
 }
@@ -0,0 +1,162 @@
+package br.edu.fiap.soa.estacionamento.service;
+
+import br.edu.fiap.soa.estacionamento.domain.Ticket;
+import br.edu.fiap.soa.estacionamento.domain.TipoTarifa;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tickets abertos em memória, com o necessário para decidir e precificar a
+ * saída sem consultar o banco (usado pela {@link FilaFechamentos}).
+ * <p>
+ * Alterado após o commit de check-in/check-out e, com a gravação adiada
+ * ligada, reconstruído junto com a reconciliação do {@link ContadorOcupacao}. Tickets cuja saída já foi
+ * aceita mas ainda não foi gravada ficam em "fechando" até a gravação.
+ */
+@Component
+public class TicketsAbertos {
+
+    private final TicketRepository ticketRepository;
+    private final Map<Long, Aberto> abertos = new ConcurrentHashMap<>();
+    private final Map<Long, Aberto> fechando = new ConcurrentHashMap<>();
+    // Saídas recentes: impedem que a reconstrução traga de volta um ticket
+    // fechado depois da leitura do banco
+    private final Map<Long, Long> removidos = new ConcurrentHashMap<>();
+    // Lock explícito: a reconstrução faz JDBC e synchronized fixaria a thread virtual à portadora
+    private final ReentrantLock reconstrucao = new ReentrantLock();
+
+    public TicketsAbertos(TicketRepository ticketRepository) {
+        this.ticketRepository = ticketRepository;
+    }
+
+    /**
+     * Dados de um ticket aberto; {@code registradoEm} é o {@link System#nanoTime()} do registro
+     */
+    public record Aberto(long id, long veiculoId, String placa, String vaga, LocalDateTime entrada,
+                         TipoTarifa tipoTarifa, long registradoEm) {
+    }
+
+    /**
+     * Registra um ticket aberto, após o commit do check-in
+     */
+    public void registrarAposCommit(Ticket ticket) {
+        long id = ticket.getId();
+        long veiculoId = ticket.getVeiculo().getId();
+        String placa = ticket.getVeiculo().getPlaca();
+        String vaga = ticket.getVaga();
+        LocalDateTime entrada = ticket.getEntrada();
+        TipoTarifa tipoTarifa = ticket.getTipoTarifa();
+        AposCommit.executar(() -> abertos.put(id,
+                new Aberto(id, veiculoId, placa, vaga, entrada, tipoTarifa, System.nanoTime())));
+    }
+
+    /**
+     * Remove o ticket, após o commit de uma saída síncrona
+     */
+    public void removerAposCommit(Long ticketId) {
+        AposCommit.executar(() -> {
+            removidos.put(ticketId, System.nanoTime());
+            abertos.remove(ticketId);
+        });
+    }
+
+    /**
+     * Toma o ticket para uma saída adiada; nulo se ele não estiver aberto
+     * neste nó. Só uma chamada concorrente consegue tomar o mesmo ticket.
+     */
+    public Aberto reservarFechamento(Long ticketId) {
+        Aberto aberto = abertos.remove(ticketId);
+        if (aberto != null) {
+            fechando.put(ticketId, aberto);
+        }
+        return aberto;
+    }
+
+    /**
+     * Devolve o ticket aos abertos quando a saída adiada não pôde ser aceita
+     */
+    public void desfazerFechamento(Long ticketId) {
+        Aberto aberto = fechando.remove(ticketId);
+        if (aberto != null) {
+            abertos.put(ticketId, aberto);
+        }
+    }
+
+    /**
+     * Chamado quando a saída adiada foi gravada no banco
+     */
+    public void concluirFechamento(Long ticketId) {
+        removidos.put(ticketId, System.nanoTime());
+        fechando.remove(ticketId);
+    }
+
+    public boolean isFechando(Long ticketId) {
+        return fechando.containsKey(ticketId);
+    }
+
+    public boolean isFechandoVeiculo(Long veiculoId) {
+        for (Aberto aberto : fechando.values()) {
+            if (aberto.veiculoId() == veiculoId) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Saídas aceitas e ainda não gravadas: no banco esses tickets continuam abertos
+     */
+    public Collection<Aberto> getFechamentosPendentes() {
+        return List.copyOf(fechando.values());
+    }
+
+    public int getTotal() {
+        return abertos.size();
+    }
+
+    /**
+     * Entrada mais antiga entre os tickets abertos, inclusive os com saída
+     * adiada ainda não gravada; nula quando não há nenhum
+     */
+    public LocalDateTime getMenorEntrada() {
+        LocalDateTime menor = null;
+        for (Map<Long, Aberto> mapa : List.of(abertos, fechando)) {
+            for (Aberto aberto : mapa.values()) {
+                if (menor == null || aberto.entrada().isBefore(menor)) menor = aberto.entrada();
+            }
+        }
+        return menor;
+    }
+
+    /**
+     * Alinha os abertos com o banco. Registros feitos depois do início da
+     * leitura são preservados; saídas feitas depois dela não são desfeitas.
+     */
+    public void reconstruir() {
+        reconstrucao.lock();
+        try {
+            long inicio = System.nanoTime();
+            Map<Long, Aberto> banco = new HashMap<>();
+            for (Object[] linha : ticketRepository.findResumoAbertos()) {
+                Aberto aberto = new Aberto((Long) linha[0], (Long) linha[1], (String) linha[2], (String) linha[3],
+                        (LocalDateTime) linha[4], (TipoTarifa) linha[5], inicio);
+                banco.put(aberto.id(), aberto);
+            }
+            abertos.values().removeIf(a -> a.registradoEm() - inicio < 0 && !banco.containsKey(a.id()));
+            banco.forEach((id, aberto) -> {
+                if (!fechando.containsKey(id) && !removidos.containsKey(id)) {
+                    abertos.putIfAbsent(id, aberto);
+                }
+            });
+            removidos.values().removeIf(momento -> momento - inicio < 0);
+        } finally {
+            reconstrucao.unlock();
+        }
+    }
+}
@@ -1,20 +1,32 @@
 package br.edu.fiap.soa.estacionamento.service;
 import br.edu.fiap.soa.estacionamento.domain.Veiculo;
-import br.edu.fiap.soa.estacionamento.repository.VeiculoRepository;
+import br.edu.fiap.soa.estacionamento.repository.LeituraReplica; import br.edu.fiap.soa.estacionamento.repository.VeiculoRepository;
+import br.edu.fiap.soa.estacionamento.web.dto.PaginaDTO;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service; import org.springframework.transaction.annotation.Transactional;
-import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 @Service
 public class VeiculoService {
     private final VeiculoRepository repo;
-    public VeiculoService(VeiculoRepository repo){ this.repo = repo; }
-    public List<Veiculo> listar(){ return repo.findAll(); }
+    private final CacheVeiculos cache;
+    public VeiculoService(VeiculoRepository repo, CacheVeiculos cache){ this.repo = repo; this.cache = cache; }
+    public PaginaDTO<Veiculo> listar(Long apos, int limite){
+        int tamanho = PaginaDTO.limitar(limite);
+        return PaginaDTO.de(repo.findApos(apos != null ? apos : 0L, PageRequest.of(0, tamanho + 1)), tamanho, Veiculo::getId);
+    }
+    @LeituraReplica @Transactional(readOnly = true) public void exportar(Consumer<Veiculo> destino){
+        try (Stream<Veiculo> veiculos = repo.streamTodos()) { veiculos.forEach(destino); }
+    }
     public Veiculo obter(Long id){ return repo.findById(id).orElseThrow(()-> new RuntimeException("Veículo não encontrado")); }
     @Transactional public Veiculo criar(Veiculo v){
         if(repo.existsByPlaca(v.getPlaca())) throw new RuntimeException("Placa já cadastrada");
-        return repo.save(v);
+        Veiculo salvo = repo.save(v); cache.registrarAposCommit(salvo); return salvo;
     }
     @Transactional public Veiculo atualizar(Long id, Veiculo novo){
-        Veiculo v = obter(id); v.setModelo(novo.getModelo()); v.setCor(novo.getCor()); return repo.save(v);
+        Veiculo v = obter(id); v.setModelo(novo.getModelo()); v.setCor(novo.getCor()); cache.invalidarAposCommit(v.getPlaca()); return repo.save(v);
+    }
+    @Transactional public void deletar(Long id){
+        repo.findById(id).ifPresent(v -> { repo.delete(v); cache.invalidarAposCommit(v.getPlaca()); });
     }
-    @Transactional public void deletar(Long id){ repo.deleteById(id); }
 }
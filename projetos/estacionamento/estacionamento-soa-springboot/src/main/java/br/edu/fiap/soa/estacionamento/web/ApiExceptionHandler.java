@@ -1,5 +1,5 @@
 package br.edu.fiap.soa.estacionamento.web;
-import org.springframework.http.*; import org.springframework.web.bind.annotation.*; import java.time.LocalDateTime; import java.util.Map;
+import org.springframework.http.*; import org.springframework.web.bind.annotation.*; import org.springframework.web.server.ResponseStatusException; import java.time.LocalDateTime; import java.util.Map;
 @ControllerAdvice
 public class ApiExceptionHandler {
     @ExceptionHandler(RuntimeException.class)
@@ -7,4 +7,9 @@ public class ApiExceptionHandler {
         Map<String,Object> body = Map.of("timestamp", LocalDateTime.now().toString(), "error", ex.getMessage());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
     }
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<?> handleStatus(ResponseStatusException ex){
+        Map<String,Object> body = Map.of("timestamp", LocalDateTime.now().toString(), "error", String.valueOf(ex.getReason()));
+        return ResponseEntity.status(ex.getStatusCode()).body(body);
+    }
 }
@@ -0,0 +1,88 @@
+package br.edu.fiap.soa.estacionamento.web;
+
+import br.edu.fiap.soa.estacionamento.service.MarcaRelatorios;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+/**
+ * Respostas já serializadas dos relatórios de períodos consolidados.
+ * <p>
+ * Um período que termina antes de {@link MarcaRelatorios#getConsolidadoAte()}
+ * não muda mais: o JSON fica em memória (Caffeine limitado pelo tamanho dos
+ * corpos) e a ETag forte é o hash do corpo, de modo que o cliente revalida
+ * com {@code If-None-Match} e recebe 304 sem consulta nem serialização. A
+ * geração da marca entra na chave, então um lote retroativo descarta tudo.
+ * Períodos recentes seguem calculados a cada chamada, sem ETag.
+ */
+@Component
+public class CacheRelatorios implements MeterBinder {
+
+    private final MarcaRelatorios marcaRelatorios;
+    private final ObjectMapper objectMapper;
+    private final Cache<Chave, Resposta> cache;
+
+    public CacheRelatorios(MarcaRelatorios marcaRelatorios, ObjectMapper objectMapper,
+                           @Value("${estacionamento.relatorios.cache.tamanho-mb:16}") long tamanhoMb) {
+        this.marcaRelatorios = marcaRelatorios;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(tamanhoMb * 1024 * 1024)
+                .weigher((Chave chave, Resposta resposta) -> resposta.corpo().length)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Responde o relatório {@code tipo} do período, do cache quando o período
+     * está consolidado; o 304 fica a cargo do Spring MVC, que compara a ETag
+     * da resposta com o {@code If-None-Match} da requisição
+     */
+    public ResponseEntity<Object> responder(String tipo, LocalDateTime inicio, LocalDateTime fim,
+                                            Supplier<Object> relatorio) {
+        // Geração lida antes do cálculo: um lote gravado durante ele invalida a entrada
+        long geracao = marcaRelatorios.getGeracao();
+        if (!fim.isBefore(marcaRelatorios.getConsolidadoAte())) {
+            return ResponseEntity.ok(relatorio.get());
+        }
+        Resposta resposta = cache.get(new Chave(tipo, inicio, fim, geracao), chave -> serializar(relatorio.get()));
+        return ResponseEntity.ok()
+                .eTag(resposta.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(resposta.corpo());
+    }
+
+    private Resposta serializar(Object relatorio) {
+        try {
+            byte[] corpo = objectMapper.writeValueAsBytes(relatorio);
+            return new Resposta(corpo, "\"" + DigestUtils.md5DigestAsHex(corpo) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Falha ao serializar relatório", e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "relatorios");
+    }
+
+    private record Chave(String tipo, LocalDateTime inicio, LocalDateTime fim, long geracao) {
+    }
+
+    private record Resposta(byte[] corpo, String etag) {
+    }
+}
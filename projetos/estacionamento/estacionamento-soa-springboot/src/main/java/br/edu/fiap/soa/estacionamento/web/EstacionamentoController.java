@@ -4,7 +4,11 @@ import br.edu.fiap.soa.estacionamento.domain.EstacionamentoConfig;
 import br.edu.fiap.soa.estacionamento.service.EstacionamentoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 
@@ -14,9 +18,12 @@ import java.math.BigDecimal;
 public class EstacionamentoController {
     
     private final EstacionamentoService estacionamentoService;
+    private final TransmissaoOcupacao transmissaoOcupacao;
     
-    public EstacionamentoController(EstacionamentoService estacionamentoService) {
+    public EstacionamentoController(EstacionamentoService estacionamentoService,
+                                    TransmissaoOcupacao transmissaoOcupacao) {
         this.estacionamentoService = estacionamentoService;
+        this.transmissaoOcupacao = transmissaoOcupacao;
     }
     
     @GetMapping("/status")
@@ -31,10 +38,23 @@ public class EstacionamentoController {
                 .build();
     }
     
+    @GetMapping(value = "/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Ocupação em tempo real (SSE)",
+               description = "Eventos 'ocupacao' agrupados a cada mudança e 'lotacao' quando o estacionamento lota ou libera")
+    public SseEmitter streamStatus() {
+        return transmissaoOcupacao.assinar();
+    }
+    
     @GetMapping("/configuracao")
-    @Operation(summary = "Obter configuração atual")
-    public EstacionamentoConfig getConfiguracao() {
-        return estacionamentoService.getConfiguracaoAtiva();
+    @Operation(summary = "Obter configuração atual",
+               description = "ETag derivada da versão da configuração: If-None-Match responde 304 enquanto ela não muda")
+    public ResponseEntity<EstacionamentoConfig> getConfiguracao() {
+        EstacionamentoConfig config = estacionamentoService.getConfiguracaoAtiva();
+        // O id da linha ativa é a versão da configuração (ConfiguracaoSnapshot)
+        return ResponseEntity.ok()
+                .eTag("cfg-" + config.getId())
+                .cacheControl(CacheControl.noCache())
+                .body(config);
     }
     
     @PostMapping("/configuracao")
@@ -0,0 +1,34 @@
+package br.edu.fiap.soa.estacionamento.web;
+
+import br.edu.fiap.soa.estacionamento.domain.EventoEstacionamento;
+import br.edu.fiap.soa.estacionamento.service.RegistroEventos;
+import br.edu.fiap.soa.estacionamento.web.dto.PaginaDTO;
+import br.edu.fiap.soa.estacionamento.web.dto.ProjecaoEventosDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/eventos")
+@Tag(name = "Eventos", description = "Registro append-only de entradas, saídas e reservas")
+public class EventoController {
+    
+    private final RegistroEventos registroEventos;
+    
+    public EventoController(RegistroEventos registroEventos) {
+        this.registroEventos = registroEventos;
+    }
+    
+    @GetMapping
+    @Operation(summary = "Listar eventos em ordem (paginado por cursor)")
+    public PaginaDTO<EventoEstacionamento> listar(@RequestParam(required = false) Long apos,
+                                                  @RequestParam(defaultValue = "" + PaginaDTO.LIMITE_PADRAO) int limite) {
+        return registroEventos.listar(apos, limite);
+    }
+    
+    @GetMapping("/projecao")
+    @Operation(summary = "Reproduzir o registro", description = "Reconstrói ocupação, reservas ativas e receita só a partir dos eventos")
+    public ProjecaoEventosDTO projecao() {
+        return registroEventos.projetar();
+    }
+}
@@ -0,0 +1,61 @@
+package br.edu.fiap.soa.estacionamento.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Exportação em NDJSON (um objeto JSON por linha). Cada item é serializado e
+ * escrito assim que sai do cursor do banco, então o consumo de memória não
+ * depende da quantidade de linhas exportadas.
+ */
+@Component
+public class ExportacaoNdjson {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private final ObjectWriter writer;
+
+    public ExportacaoNdjson(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writer();
+    }
+
+    /**
+     * @param arquivo nome sugerido para o download, sem extensão
+     * @param fonte   percorre os itens (em transação) entregando cada um ao consumidor
+     */
+    public <T> ResponseEntity<StreamingResponseBody> exportar(String arquivo, Consumer<Consumer<T>> fonte) {
+        StreamingResponseBody corpo = saida -> {
+            OutputStream buffer = new BufferedOutputStream(saida, 64 * 1024);
+            try {
+                fonte.accept(item -> escrever(buffer, item));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            buffer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + arquivo + ".ndjson\"")
+                .body(corpo);
+    }
+
+    private void escrever(OutputStream saida, Object item) {
+        try {
+            saida.write(writer.writeValueAsBytes(item));
+            saida.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,17 +1,21 @@
 package br.edu.fiap.soa.estacionamento.web;
 
 import br.edu.fiap.soa.estacionamento.service.RelatorioService;
+import br.edu.fiap.soa.estacionamento.web.dto.RelatorioConsolidadoDTO;
 import br.edu.fiap.soa.estacionamento.web.dto.RelatorioOcupacaoDTO;
 import br.edu.fiap.soa.estacionamento.web.dto.RelatorioReceitaDTO;
 import br.edu.fiap.soa.estacionamento.web.dto.RelatorioVagasDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/relatorios")
@@ -19,9 +23,11 @@ import java.util.Map;
 public class RelatorioController {
     
     private final RelatorioService relatorioService;
+    private final CacheRelatorios cacheRelatorios;
     
-    public RelatorioController(RelatorioService relatorioService) {
+    public RelatorioController(RelatorioService relatorioService, CacheRelatorios cacheRelatorios) {
         this.relatorioService = relatorioService;
+        this.cacheRelatorios = cacheRelatorios;
     }
     
     @GetMapping("/ocupacao")
@@ -31,28 +37,36 @@ public class RelatorioController {
     }
     
     @GetMapping("/receita")
-    @Operation(summary = "Relatório de receita por período")
-    public RelatorioReceitaDTO getRelatorioReceita(
+    @Operation(summary = "Relatório de receita por período",
+               description = "Períodos já consolidados vêm do cache, com ETag (304 com If-None-Match)",
+               responses = @ApiResponse(responseCode = "200",
+                       content = @Content(schema = @Schema(implementation = RelatorioReceitaDTO.class))))
+    public ResponseEntity<Object> getRelatorioReceita(
             @Parameter(description = "Data de início", example = "2025-09-01T00:00:00")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
             @Parameter(description = "Data de fim", example = "2025-09-01T23:59:59")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim) {
-        return relatorioService.getRelatorioReceita(inicio, fim);
+        return cacheRelatorios.responder("receita", inicio, fim,
+                () -> relatorioService.getRelatorioReceita(inicio, fim));
     }
     
     @GetMapping("/vagas")
-    @Operation(summary = "Relatório de uso das vagas por período")
-    public RelatorioVagasDTO getRelatorioVagas(
+    @Operation(summary = "Relatório de uso das vagas por período",
+               description = "Períodos já consolidados vêm do cache, com ETag (304 com If-None-Match)",
+               responses = @ApiResponse(responseCode = "200",
+                       content = @Content(schema = @Schema(implementation = RelatorioVagasDTO.class))))
+    public ResponseEntity<Object> getRelatorioVagas(
             @Parameter(description = "Data de início", example = "2025-09-01T00:00:00")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
             @Parameter(description = "Data de fim", example = "2025-09-01T23:59:59")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim) {
-        return relatorioService.getRelatorioVagas(inicio, fim);
+        return cacheRelatorios.responder("vagas", inicio, fim,
+                () -> relatorioService.getRelatorioVagas(inicio, fim));
     }
     
     @GetMapping("/consolidado")
     @Operation(summary = "Relatório consolidado")
-    public Map<String, Object> getRelatorioConsolidado(
+    public RelatorioConsolidadoDTO getRelatorioConsolidado(
             @Parameter(description = "Data de início", example = "2025-09-01T00:00:00")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
             @Parameter(description = "Data de fim", example = "2025-09-01T23:59:59")
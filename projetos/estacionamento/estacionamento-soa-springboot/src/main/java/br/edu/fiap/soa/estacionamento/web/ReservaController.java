@@ -2,6 +2,8 @@ package br.edu.fiap.soa.estacionamento.web;
 
 import br.edu.fiap.soa.estacionamento.domain.Reserva;
 import br.edu.fiap.soa.estacionamento.service.ReservaService;
+import br.edu.fiap.soa.estacionamento.web.dto.ExpiracaoReservasDTO;
+import br.edu.fiap.soa.estacionamento.web.dto.PaginaDTO;
 import br.edu.fiap.soa.estacionamento.web.dto.ReservaRequest;
 import br.edu.fiap.soa.estacionamento.web.dto.ReservaResponse;
 import io.swagger.v3.oas.annotations.Operation;
@@ -9,10 +11,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/reservas")
@@ -20,9 +22,11 @@ import java.util.stream.Collectors;
 public class ReservaController {
     
     private final ReservaService reservaService;
+    private final ExportacaoNdjson exportacao;
     
-    public ReservaController(ReservaService reservaService) {
+    public ReservaController(ReservaService reservaService, ExportacaoNdjson exportacao) {
         this.reservaService = reservaService;
+        this.exportacao = exportacao;
     }
     
     @PostMapping
@@ -42,21 +46,23 @@ public class ReservaController {
     }
     
     @GetMapping("/ativas")
-    @Operation(summary = "Listar reservas ativas")
-    public List<ReservaResponse> listarReservasAtivas() {
-        return reservaService.listarReservasAtivas()
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    @Operation(summary = "Listar reservas ativas (paginado por cursor)")
+    public PaginaDTO<ReservaResponse> listarReservasAtivas(
+            @RequestParam(required = false) Long apos,
+            @RequestParam(defaultValue = "" + PaginaDTO.LIMITE_PADRAO) int limite) {
+        return reservaService.listarReservasAtivas(apos, limite);
+    }
+    
+    @GetMapping(value = "/ativas/export", produces = ExportacaoNdjson.NDJSON)
+    @Operation(summary = "Exportar reservas ativas em NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportarReservasAtivas() {
+        return exportacao.exportar("reservas-ativas", reservaService::exportarReservasAtivas);
     }
     
     @GetMapping("/veiculo/{veiculoId}")
     @Operation(summary = "Listar reservas por veículo")
     public List<ReservaResponse> listarReservasPorVeiculo(@PathVariable Long veiculoId) {
-        return reservaService.listarReservasPorVeiculo(veiculoId)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return reservaService.listarReservasPorVeiculo(veiculoId);
     }
     
     @PostMapping("/{id}/cancelar")
@@ -73,6 +79,12 @@ public class ReservaController {
         return ResponseEntity.ok().build();
     }
     
+    @GetMapping("/expiracao")
+    @Operation(summary = "Métricas da expiração automática de reservas")
+    public ExpiracaoReservasDTO metricasExpiracao() {
+        return reservaService.getMetricasExpiracao();
+    }
+    
     private ReservaResponse mapToResponse(Reserva reserva) {
         return ReservaResponse.builder()
                 .id(reserva.getId())
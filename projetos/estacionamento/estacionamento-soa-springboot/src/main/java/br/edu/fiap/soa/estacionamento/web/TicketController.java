@@ -1,19 +1,29 @@
 package br.edu.fiap.soa.estacionamento.web;
-import br.edu.fiap.soa.estacionamento.domain.Ticket; import br.edu.fiap.soa.estacionamento.service.TicketService;
-import br.edu.fiap.soa.estacionamento.web.dto.CheckInRequest; import br.edu.fiap.soa.estacionamento.web.dto.TicketResponse;
+import br.edu.fiap.soa.estacionamento.domain.Ticket; import br.edu.fiap.soa.estacionamento.service.FilaFechamentos; import br.edu.fiap.soa.estacionamento.service.LoteEventosService; import br.edu.fiap.soa.estacionamento.service.TicketService;
+import br.edu.fiap.soa.estacionamento.web.dto.CheckInRequest; import br.edu.fiap.soa.estacionamento.web.dto.LoteEventosRequest; import br.edu.fiap.soa.estacionamento.web.dto.PaginaDTO; import br.edu.fiap.soa.estacionamento.web.dto.ResultadoEventoDTO; import br.edu.fiap.soa.estacionamento.web.dto.TicketResponse;
 import io.swagger.v3.oas.annotations.Operation; import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid; import org.springframework.http.ResponseEntity; import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.List;
 @RestController @RequestMapping("/api/tickets") @Tag(name="Tickets", description="Fluxo de entrada/saída")
 public class TicketController {
     private final TicketService service;
-    public TicketController(TicketService service){ this.service = service; }
+    private final ExportacaoNdjson exportacao;
+    private final LoteEventosService loteEventos;
+    private final FilaFechamentos filaFechamentos;
+    public TicketController(TicketService service, ExportacaoNdjson exportacao, LoteEventosService loteEventos, FilaFechamentos filaFechamentos){ this.service = service; this.exportacao = exportacao; this.loteEventos = loteEventos; this.filaFechamentos = filaFechamentos; }
     @GetMapping("{id}") @Operation(summary="Obter ticket por ID")
     public TicketResponse obter(@PathVariable Long id){
         Ticket t = service.obter(id);
         return TicketResponse.builder().id(t.getId()).placa(t.getVeiculo().getPlaca()).vaga(t.getVaga()).entrada(t.getEntrada()).saida(t.getSaida()).valor(t.getValor()).status(t.getStatus()).build();
     }
-    @GetMapping("abertos") @Operation(summary="Listar tickets abertos") public List<Ticket> abertos(){ return service.listarAbertos(); }    @PostMapping("checkin") @Operation(summary="Realizar check-in")
+    @GetMapping("abertos") @Operation(summary="Listar tickets abertos (paginado por cursor)")
+    public PaginaDTO<TicketResponse> abertos(@RequestParam(required=false) Long apos, @RequestParam(defaultValue="" + PaginaDTO.LIMITE_PADRAO) int limite){
+        return service.listarAbertos(apos, limite);
+    }
+    @GetMapping(value="abertos/export", produces=ExportacaoNdjson.NDJSON) @Operation(summary="Exportar tickets abertos em NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportarAbertos(){ return exportacao.exportar("tickets-abertos", service::exportarAbertos); }
+    @PostMapping("checkin") @Operation(summary="Realizar check-in")
     public ResponseEntity<TicketResponse> checkIn(@RequestBody @Valid CheckInRequest req){
         Ticket t = service.checkIn(req.getPlaca(), req.getModelo(), req.getCor(), req.getVaga(), req.getTipoTarifa());
         TicketResponse resp = TicketResponse.builder()
@@ -25,8 +35,13 @@ public class TicketController {
             .build();
         return ResponseEntity.ok(resp);
     }
-    @PostMapping("{id}/checkout") @Operation(summary="Realizar check-out")
+    @PostMapping("lote") @Operation(summary="Processar lote de entradas/saídas dos portões", description="Até 500 eventos, na ordem enviada; retorna um resultado por evento")
+    public List<ResultadoEventoDTO> lote(@RequestBody @Valid LoteEventosRequest req){ return loteEventos.processar(req.getEventos()); }
+    @PostMapping("{id}/checkout") @Operation(summary="Realizar check-out", description="Com a gravação adiada ligada, responde pela memória e grava em segundo plano")
     public TicketResponse checkOut(@PathVariable Long id){
+        return filaFechamentos.fechar(id).orElseGet(() -> checkOutSincrono(id));
+    }
+    private TicketResponse checkOutSincrono(Long id){
         Ticket t = service.checkOut(id);
         return TicketResponse.builder().id(t.getId()).placa(t.getVeiculo().getPlaca()).vaga(t.getVaga()).entrada(t.getEntrada()).saida(t.getSaida()).valor(t.getValor()).status(t.getStatus()).build();
     }
@@ -0,0 +1,239 @@
+package br.edu.fiap.soa.estacionamento.web;
+
+import br.edu.fiap.soa.estacionamento.service.ConfiguracaoCache;
+import br.edu.fiap.soa.estacionamento.service.ContadorOcupacao;
+import br.edu.fiap.soa.estacionamento.service.EstacionamentoService;
+import br.edu.fiap.soa.estacionamento.web.dto.OcupacaoEventoDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Transmite a ocupação por Server-Sent Events para painéis e aplicativos.
+ * <p>
+ * Mudanças do contador são agrupadas numa janela curta e viram um único evento,
+ * serializado uma vez e repassado a todos os assinantes. Cada assinante guarda
+ * só a última mensagem pendente: um cliente lento perde estados intermediários,
+ * mas nunca acumula fila nem atrasa os demais. Na troca de lotado para livre (e
+ * vice-versa) sai também um evento {@code lotacao}.
+ */
+@Component
+public class TransmissaoOcupacao implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(TransmissaoOcupacao.class);
+    private static final int THREADS_ENVIO = 4;
+
+    private final EstacionamentoService estacionamentoService;
+    private final TaskScheduler taskScheduler;
+    private final ObjectWriter writer;
+    private final ExecutorService envio = Executors.newFixedThreadPool(THREADS_ENVIO, tarefa -> {
+        Thread thread = new Thread(tarefa, "sse-ocupacao");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Assinante> assinantes = new CopyOnWriteArraySet<>();
+    private final AtomicBoolean publicacaoAgendada = new AtomicBoolean();
+    private final AtomicLong versao = new AtomicLong();
+    private final AtomicLong descartadas = new AtomicLong();
+
+    @Value("${estacionamento.ocupacao.stream.intervalo-ms:500}")
+    private long intervaloMs;
+
+    @Value("${estacionamento.ocupacao.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${estacionamento.ocupacao.stream.max-assinantes:10000}")
+    private int maxAssinantes;
+
+    private volatile Set<DataWithMediaType> ultimaMensagem;
+    private OcupacaoEventoDTO ultimoEvento;
+
+    public TransmissaoOcupacao(EstacionamentoService estacionamentoService,
+                               ContadorOcupacao contadorOcupacao,
+                               ConfiguracaoCache configuracaoCache,
+                               TaskScheduler taskScheduler,
+                               ObjectMapper objectMapper) {
+        this.estacionamentoService = estacionamentoService;
+        this.taskScheduler = taskScheduler;
+        this.writer = objectMapper.writer();
+        contadorOcupacao.aoAlterar(this::agendarPublicacao);
+        configuracaoCache.aoAlterar(this::agendarPublicacao);
+    }
+
+    /**
+     * Registra um assinante e envia o estado atual logo de início
+     */
+    public SseEmitter assinar() {
+        if (assinantes.size() >= maxAssinantes) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Limite de assinantes atingido");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Assinante assinante = new Assinante(emitter);
+        emitter.onCompletion(() -> assinantes.remove(assinante));
+        emitter.onTimeout(() -> assinantes.remove(assinante));
+        emitter.onError(erro -> assinantes.remove(assinante));
+        assinantes.add(assinante);
+        Set<DataWithMediaType> atual = ultimaMensagem;
+        assinante.oferecer(atual != null ? atual : publicar());
+        return emitter;
+    }
+
+    public int getAssinantes() {
+        return assinantes.size();
+    }
+
+    /**
+     * Mensagens substituídas antes de chegar a um assinante lento
+     */
+    public long getDescartadas() {
+        return descartadas.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("estacionamento.stream.assinantes", this, TransmissaoOcupacao::getAssinantes)
+                .description("Conexões SSE de ocupação abertas")
+                .register(registry);
+        FunctionCounter.builder("estacionamento.stream.descartadas", this, TransmissaoOcupacao::getDescartadas)
+                .description("Mensagens substituídas antes de chegar a um assinante lento")
+                .register(registry);
+    }
+
+    /**
+     * Comentário periódico: mantém proxies com a conexão aberta e detecta clientes que saíram
+     */
+    @Scheduled(fixedRateString = "${estacionamento.ocupacao.stream.heartbeat-ms:20000}")
+    public void heartbeat() {
+        if (assinantes.isEmpty()) return;
+        Set<DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        assinantes.forEach(assinante -> assinante.oferecer(ping));
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        assinantes.forEach(assinante -> assinante.emitter.complete());
+        envio.shutdownNow();
+    }
+
+    private void agendarPublicacao() {
+        // Só a primeira mudança da janela agenda; as demais entram no mesmo evento
+        if (publicacaoAgendada.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::publicarAgendada, Instant.now().plusMillis(intervaloMs));
+        }
+    }
+
+    private void publicarAgendada() {
+        publicacaoAgendada.set(false);
+        if (assinantes.isEmpty()) {
+            // Ninguém ouvindo: o próximo assinante recebe um estado recalculado
+            ultimaMensagem = null;
+            return;
+        }
+        Set<DataWithMediaType> mensagem = publicar();
+        assinantes.forEach(assinante -> assinante.oferecer(mensagem));
+    }
+
+    private synchronized Set<DataWithMediaType> publicar() {
+        OcupacaoEventoDTO anterior = ultimoEvento;
+        long ocupadas = estacionamentoService.getVagasOcupadas();
+        OcupacaoEventoDTO evento = OcupacaoEventoDTO.builder()
+                .versao(versao.incrementAndGet())
+                .totalVagas(estacionamentoService.getTotalVagas())
+                .vagasOcupadas(ocupadas)
+                .vagasLivres(estacionamentoService.getVagasLivres())
+                .taxaOcupacao(estacionamentoService.getTaxaOcupacao())
+                .lotado(estacionamentoService.isLotado())
+                .variacao(anterior != null ? ocupadas - anterior.getVagasOcupadas() : 0)
+                .momento(LocalDateTime.now())
+                .build();
+        String json;
+        try {
+            json = writer.writeValueAsString(evento);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        Set<DataWithMediaType> mensagem = new LinkedHashSet<>(SseEmitter.event()
+                .id(String.valueOf(evento.getVersao()))
+                .name("ocupacao")
+                .data(json, MediaType.APPLICATION_JSON)
+                .build());
+        if (anterior != null && anterior.isLotado() != evento.isLotado()) {
+            mensagem.addAll(SseEmitter.event().name("lotacao").data(json, MediaType.APPLICATION_JSON).build());
+        }
+        ultimoEvento = evento;
+        ultimaMensagem = mensagem;
+        return mensagem;
+    }
+
+    /**
+     * Caixa de uma posição por cliente: enquanto um envio está em curso, nova
+     * mensagem substitui a pendente em vez de enfileirar
+     */
+    private final class Assinante {
+
+        private final SseEmitter emitter;
+        private final AtomicReference<Set<DataWithMediaType>> pendente = new AtomicReference<>();
+        private final AtomicBoolean enviando = new AtomicBoolean();
+
+        private Assinante(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void oferecer(Set<DataWithMediaType> mensagem) {
+            if (pendente.getAndSet(mensagem) != null) {
+                descartadas.incrementAndGet();
+            }
+            if (enviando.compareAndSet(false, true)) {
+                envio.execute(this::drenar);
+            }
+        }
+
+        private void drenar() {
+            while (true) {
+                Set<DataWithMediaType> mensagem = pendente.getAndSet(null);
+                if (mensagem == null) {
+                    enviando.set(false);
+                    // Mensagem chegou entre o getAndSet e a liberação: retoma se ninguém retomou
+                    if (pendente.get() == null || !enviando.compareAndSet(false, true)) return;
+                    continue;
+                }
+                try {
+                    emitter.send(mensagem);
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Assinante de ocupação desconectado: {}", e.getMessage());
+                    assinantes.remove(this);
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package br.edu.fiap.soa.estacionamento.web;
+
+import br.edu.fiap.soa.estacionamento.service.MapaVagas;
+import br.edu.fiap.soa.estacionamento.web.dto.PaginaDTO;
+import br.edu.fiap.soa.estacionamento.web.dto.VagaStatusDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/vagas")
+@Tag(name = "Vagas", description = "Ocupação por vaga, respondida pelo mapa em memória")
+public class VagaController {
+    
+    private final MapaVagas mapaVagas;
+    
+    public VagaController(MapaVagas mapaVagas) {
+        this.mapaVagas = mapaVagas;
+    }
+    
+    @GetMapping("/{vaga}")
+    @Operation(summary = "Situação da vaga (LIVRE, OCUPADA ou RESERVADA)")
+    public VagaStatusDTO consultar(@PathVariable String vaga) {
+        return mapaVagas.consultar(vaga);
+    }
+    
+    @GetMapping("/livres")
+    @Operation(summary = "Listar vagas livres", description = "Sem reserva no momento; 'setor' é o prefixo da vaga (ex.: A)")
+    public List<String> livres(@RequestParam(required = false) String setor,
+                               @RequestParam(defaultValue = "" + PaginaDTO.LIMITE_MAXIMO) int limite) {
+        return mapaVagas.listarLivres(setor, PaginaDTO.limitar(limite));
+    }
+    
+    @GetMapping("/livres/proxima")
+    @Operation(summary = "Vaga livre mais próxima", description = "Mesmo setor da referência, pela numeração (ex.: A12 ou só A)")
+    public VagaStatusDTO proxima(@RequestParam String referencia) {
+        return mapaVagas.buscarProxima(referencia);
+    }
+}
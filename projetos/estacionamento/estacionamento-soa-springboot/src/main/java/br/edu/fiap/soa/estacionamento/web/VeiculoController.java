@@ -1,15 +1,21 @@
 package br.edu.fiap.soa.estacionamento.web;
 import br.edu.fiap.soa.estacionamento.domain.Veiculo;
 import br.edu.fiap.soa.estacionamento.service.VeiculoService;
+import br.edu.fiap.soa.estacionamento.web.dto.PaginaDTO;
 import br.edu.fiap.soa.estacionamento.web.dto.VeiculoDTO;
 import io.swagger.v3.oas.annotations.Operation; import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid; import org.springframework.http.ResponseEntity; import org.springframework.web.bind.annotation.*;
-import java.net.URI; import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.net.URI;
 @RestController @RequestMapping("/api/veiculos") @Tag(name="Veículos", description="CRUD de veículos")
 public class VeiculoController {
     private final VeiculoService service;
-    public VeiculoController(VeiculoService service){ this.service = service; }
-    @GetMapping @Operation(summary="Listar veículos") public List<Veiculo> listar(){ return service.listar(); }
+    private final ExportacaoNdjson exportacao;
+    public VeiculoController(VeiculoService service, ExportacaoNdjson exportacao){ this.service = service; this.exportacao = exportacao; }
+    @GetMapping @Operation(summary="Listar veículos (paginado por cursor)")
+    public PaginaDTO<Veiculo> listar(@RequestParam(required=false) Long apos, @RequestParam(defaultValue="" + PaginaDTO.LIMITE_PADRAO) int limite){ return service.listar(apos, limite); }
+    @GetMapping(value="export", produces=ExportacaoNdjson.NDJSON) @Operation(summary="Exportar veículos em NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportar(){ return exportacao.exportar("veiculos", service::exportar); }
     @GetMapping("{id}") @Operation(summary="Obter veículo por ID") public Veiculo obter(@PathVariable Long id){ return service.obter(id); }
     @PostMapping @Operation(summary="Criar veículo")
     public ResponseEntity<Veiculo> criar(@RequestBody @Valid VeiculoDTO dto){
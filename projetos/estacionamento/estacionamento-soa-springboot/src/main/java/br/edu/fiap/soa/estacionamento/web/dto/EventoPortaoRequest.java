@@ -0,0 +1,46 @@
+package br.edu.fiap.soa.estacionamento.web.dto;
+
+import br.edu.fiap.soa.estacionamento.domain.TipoTarifa;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Evento de entrada ou saída registrado pelo controlador do portão")
+public class EventoPortaoRequest {
+
+    public enum Tipo { ENTRADA, SAIDA }
+
+    @Schema(example = "ENTRADA")
+    @NotNull
+    private Tipo tipo;
+
+    @Schema(example = "ABC-1D23", description = "Obrigatória na entrada; na saída identifica o ticket aberto se ticketId não for informado")
+    private String placa;
+
+    @Schema(example = "Fiat Argo 1.3")
+    private String modelo;
+
+    @Schema(example = "Preto")
+    private String cor;
+
+    @Schema(example = "A12", description = "Obrigatória na entrada")
+    private String vaga;
+
+    @Schema(example = "HORARIA")
+    private TipoTarifa tipoTarifa;
+
+    @Schema(description = "Ticket a fechar (saída)")
+    private Long ticketId;
+
+    @Schema(example = "2025-09-02T10:00:00", description = "Horário do evento no portão; se ausente, o horário do servidor")
+    private LocalDateTime ocorridoEm;
+}
@@ -0,0 +1,17 @@
+package br.edu.fiap.soa.estacionamento.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class ExpiracaoReservasDTO {
+    private long totalExpiradas;
+    private long execucoes;
+    private LocalDateTime ultimaExecucao;
+    private int ultimaQuantidade;
+    private long ultimaDuracaoMs;
+    private LocalDateTime proximoVencimento;
+}
@@ -0,0 +1,17 @@
+package br.edu.fiap.soa.estacionamento.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Lote de eventos de portão, processados na ordem enviada")
+public class LoteEventosRequest {
+    @NotEmpty
+    @Size(max = 500)
+    private List<@Valid EventoPortaoRequest> eventos;
+}
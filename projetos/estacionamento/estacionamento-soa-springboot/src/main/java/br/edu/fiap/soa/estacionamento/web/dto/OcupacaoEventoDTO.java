@@ -0,0 +1,20 @@
+package br.edu.fiap.soa.estacionamento.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class OcupacaoEventoDTO {
+    private long versao;
+    private int totalVagas;
+    private long vagasOcupadas;
+    private long vagasLivres;
+    private double taxaOcupacao;
+    private boolean lotado;
+    /** Diferença de vagas ocupadas desde o evento anterior (várias entradas/saídas agrupadas) */
+    private long variacao;
+    private LocalDateTime momento;
+}
@@ -0,0 +1,44 @@
+package br.edu.fiap.soa.estacionamento.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de uma listagem paginada por cursor (keyset no id). Para a próxima
+ * página, repita a chamada com {@code apos=proximoCursor}; quando
+ * {@code proximoCursor} é nulo não há mais itens.
+ */
+@Data
+@Builder
+public class PaginaDTO<T> {
+    public static final int LIMITE_PADRAO = 100;
+    public static final int LIMITE_MAXIMO = 1000;
+
+    private List<T> itens;
+    private Long proximoCursor;
+
+    /**
+     * Ajusta o limite pedido pelo cliente ao intervalo aceito
+     */
+    public static int limitar(int limite) {
+        return Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+    }
+
+    /**
+     * Monta a página a partir de uma consulta que buscou {@code limite + 1}
+     * itens: o item excedente só indica que existe uma próxima página
+     */
+    public static <T> PaginaDTO<T> de(List<T> itens, int limite, Function<T, Long> id) {
+        if (itens.size() <= limite) {
+            return PaginaDTO.<T>builder().itens(itens).build();
+        }
+        List<T> pagina = itens.subList(0, limite);
+        return PaginaDTO.<T>builder()
+                .itens(pagina)
+                .proximoCursor(id.apply(pagina.get(limite - 1)))
+                .build();
+    }
+}
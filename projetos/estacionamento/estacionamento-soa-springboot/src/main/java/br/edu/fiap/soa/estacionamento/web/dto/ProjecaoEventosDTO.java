@@ -0,0 +1,23 @@
+package br.edu.fiap.soa.estacionamento.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Estado reconstruído pela reprodução do registro de eventos
+ */
+@Data
+@Builder
+public class ProjecaoEventosDTO {
+    private long eventos;
+    private Long ultimoEvento;
+    private int ticketsAbertos;
+    private long ticketsFechados;
+    private int reservasAtivas;
+    private BigDecimal receita;
+    private List<String> vagasOcupadas;
+    private long duracaoMs;
+}
@@ -0,0 +1,17 @@
+package br.edu.fiap.soa.estacionamento.web.dto;
+
+import br.edu.fiap.soa.estacionamento.domain.TipoTarifa;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@Builder
+public class RelatorioConsolidadoDTO {
+    private RelatorioReceitaDTO receita;
+    private RelatorioOcupacaoDTO ocupacao;
+    private RelatorioVagasDTO vagas;
+    private Map<TipoTarifa, BigDecimal> receitaPorTarifa;
+}
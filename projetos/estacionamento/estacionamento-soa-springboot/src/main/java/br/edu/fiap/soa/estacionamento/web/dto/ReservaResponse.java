@@ -1,6 +1,7 @@
 package br.edu.fiap.soa.estacionamento.web.dto;
 
 import br.edu.fiap.soa.estacionamento.domain.StatusReserva;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
@@ -8,6 +9,7 @@ import java.time.LocalDateTime;
 
 @Data
 @Builder
+@AllArgsConstructor
 public class ReservaResponse {
     private Long id;
     private String placa;
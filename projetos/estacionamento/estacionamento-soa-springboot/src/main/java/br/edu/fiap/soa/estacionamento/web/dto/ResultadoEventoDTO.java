@@ -0,0 +1,13 @@
+package br.edu.fiap.soa.estacionamento.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ResultadoEventoDTO {
+    private int indice;
+    private boolean sucesso;
+    private String erro;
+    private TicketResponse ticket;
+}
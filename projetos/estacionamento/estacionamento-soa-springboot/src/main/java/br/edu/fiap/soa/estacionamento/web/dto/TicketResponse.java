@@ -1,8 +1,8 @@
 package br.edu.fiap.soa.estacionamento.web.dto;
 import br.edu.fiap.soa.estacionamento.domain.TicketStatus;
-import lombok.Builder; import lombok.Data;
+import lombok.AllArgsConstructor; import lombok.Builder; import lombok.Data;
 import java.math.BigDecimal; import java.time.LocalDateTime;
-@Data @Builder
+@Data @Builder @AllArgsConstructor
 public class TicketResponse {
     private Long id; private String placa; private String vaga;
     private LocalDateTime entrada; private LocalDateTime saida;
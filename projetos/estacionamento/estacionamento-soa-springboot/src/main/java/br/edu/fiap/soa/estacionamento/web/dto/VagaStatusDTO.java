@@ -0,0 +1,16 @@
+package br.edu.fiap.soa.estacionamento.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class VagaStatusDTO {
+    public enum Situacao { LIVRE, OCUPADA, RESERVADA }
+
+    private String vaga;
+    private String setor;
+    private Situacao situacao;
+    /** Falso quando a vaga não está no layout nem apareceu em tickets/reservas */
+    private boolean conhecida;
+}
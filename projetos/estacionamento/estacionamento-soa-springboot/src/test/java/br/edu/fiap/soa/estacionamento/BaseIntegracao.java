@@ -0,0 +1,30 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.EstacionamentoConfig;
+import br.edu.fiap.soa.estacionamento.service.EstacionamentoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+/**
+ * Base dos testes de integração: contexto completo com o perfil "test"
+ * (application-test.properties) e a configuração padrão de tarifas.
+ * Subclasses que precisam de outras propriedades declaram o próprio
+ * {@code @SpringBootTest}; o perfil continua valendo.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public abstract class BaseIntegracao {
+
+    @Autowired protected EstacionamentoService estacionamentoService;
+
+    /**
+     * Ativa uma configuração com as tarifas padrão dos testes (4/8/30/200)
+     */
+    protected EstacionamentoConfig salvarConfiguracao(int totalVagas) {
+        return estacionamentoService.salvarConfiguracao(totalVagas, new BigDecimal("4.00"), new BigDecimal("8.00"),
+                new BigDecimal("30.00"), new BigDecimal("200.00"));
+    }
+}
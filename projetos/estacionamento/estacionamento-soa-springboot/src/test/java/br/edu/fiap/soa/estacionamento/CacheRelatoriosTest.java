@@ -0,0 +1,92 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.Ticket;
+import br.edu.fiap.soa.estacionamento.domain.TicketStatus;
+import br.edu.fiap.soa.estacionamento.domain.Veiculo;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import br.edu.fiap.soa.estacionamento.repository.VeiculoRepository;
+import br.edu.fiap.soa.estacionamento.service.LoteEventosService;
+import br.edu.fiap.soa.estacionamento.web.dto.EventoPortaoRequest;
+import br.edu.fiap.soa.estacionamento.web.dto.EventoPortaoRequest.Tipo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Relatórios de períodos consolidados saem do cache com ETag; períodos
+ * recentes continuam calculados a cada chamada.
+ */
+@AutoConfigureMockMvc
+public class CacheRelatoriosTest extends BaseIntegracao {
+
+    @Autowired MockMvc mvc;
+    @Autowired VeiculoRepository veiculoRepository;
+    @Autowired TicketRepository ticketRepository;
+    @Autowired LoteEventosService loteEventos;
+
+    @Test
+    void periodo_consolidado_sai_do_cache_e_revalida_com_etag() throws Exception {
+        salvarConfiguracao(10);
+        LocalDateTime dia = LocalDateTime.now().minusDays(3).truncatedTo(ChronoUnit.DAYS);
+        Veiculo veiculo = veiculoRepository.save(Veiculo.builder().placa("ETG-0001").build());
+        ticketRepository.save(Ticket.builder().veiculo(veiculo).vaga("E1").entrada(dia.plusHours(9))
+                .saida(dia.plusHours(10)).valor(new BigDecimal("8.00")).status(TicketStatus.FECHADO).build());
+        String url = "/api/relatorios/receita?inicio=" + dia + "&fim=" + dia.plusDays(1);
+
+        MvcResult primeira = mvc.perform(get(url)).andExpect(status().isOk())
+                .andExpect(jsonPath("$.receitaTotal").value(8.00)).andReturn();
+        String etag = primeira.getResponse().getHeader("ETag");
+        assertNotNull(etag);
+
+        // Repetição e revalidação sem tocar no banco
+        ContadorSql.zerar();
+        MvcResult segunda = mvc.perform(get(url)).andExpect(status().isOk()).andReturn();
+        assertEquals(etag, segunda.getResponse().getHeader("ETag"));
+        assertEquals(primeira.getResponse().getContentAsString(), segunda.getResponse().getContentAsString());
+        mvc.perform(get(url).header("If-None-Match", etag)).andExpect(status().isNotModified());
+        assertEquals(0, ContadorSql.total());
+
+        // Lote retroativo dos portões dentro do período: a resposta em cache deixa de valer
+        loteEventos.processar(List.of(
+                EventoPortaoRequest.builder().tipo(Tipo.ENTRADA).placa("ETG-0002").vaga("E2")
+                        .ocorridoEm(dia.plusHours(14)).build(),
+                EventoPortaoRequest.builder().tipo(Tipo.SAIDA).placa("ETG-0002")
+                        .ocorridoEm(dia.plusHours(15)).build()));
+        MvcResult depois = mvc.perform(get(url).header("If-None-Match", etag)).andExpect(status().isOk())
+                .andExpect(jsonPath("$.receitaTotal").value(16.00)).andReturn();
+        assertNotEquals(etag, depois.getResponse().getHeader("ETag"));
+
+        // Período que ainda pode mudar não leva ETag
+        LocalDateTime agora = LocalDateTime.now();
+        mvc.perform(get("/api/relatorios/vagas?inicio=" + agora.minusHours(1) + "&fim=" + agora.plusHours(1)))
+                .andExpect(status().isOk())
+                .andExpect(result -> assertNull(result.getResponse().getHeader("ETag")));
+    }
+
+    @Test
+    void configuracao_responde_nao_modificada_ate_nova_versao() throws Exception {
+        salvarConfiguracao(10);
+        String etag = mvc.perform(get("/api/estacionamento/configuracao")).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag);
+        mvc.perform(get("/api/estacionamento/configuracao").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        salvarConfiguracao(12);
+        mvc.perform(get("/api/estacionamento/configuracao").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalVagas").value(12));
+    }
+}
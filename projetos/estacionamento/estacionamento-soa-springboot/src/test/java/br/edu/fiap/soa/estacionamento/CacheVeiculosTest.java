@@ -0,0 +1,80 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.Ticket;
+import br.edu.fiap.soa.estacionamento.domain.Veiculo;
+import br.edu.fiap.soa.estacionamento.repository.VeiculoRepository;
+import br.edu.fiap.soa.estacionamento.service.CacheVeiculos;
+import br.edu.fiap.soa.estacionamento.service.TicketService;
+import br.edu.fiap.soa.estacionamento.service.VeiculoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CacheVeiculosTest extends BaseIntegracao {
+
+    @SpyBean VeiculoRepository veiculoRepository;
+    @Autowired CacheVeiculos cacheVeiculos;
+    @Autowired VeiculoService veiculoService;
+    @Autowired TicketService ticketService;
+
+    @BeforeEach
+    void configurar() {
+        salvarConfiguracao(100);
+    }
+
+    @Test
+    void checkin_de_placa_conhecida_nao_consulta_o_veiculo() {
+        veiculoService.criar(veiculo("CAC-0001", "Onix"));
+        clearInvocations(veiculoRepository);
+
+        Ticket ticket = ticketService.checkIn("CAC-0001", null, null, "C1", null);
+        ticketService.checkOut(ticket.getId());
+
+        verify(veiculoRepository, never()).findByPlaca(anyString());
+        assertEquals("CAC-0001", ticket.getVeiculo().getPlaca());
+    }
+
+    @Test
+    void atualizacao_invalida_a_entrada() {
+        Veiculo criado = veiculoService.criar(veiculo("CAC-0002", "Gol"));
+        veiculoService.atualizar(criado.getId(), veiculo("CAC-0002", "Polo"));
+        clearInvocations(veiculoRepository);
+
+        assertEquals("Polo", cacheVeiculos.buscar("CAC-0002").orElseThrow().getModelo());
+        assertEquals("Polo", cacheVeiculos.buscar("CAC-0002").orElseThrow().getModelo());
+        verify(veiculoRepository, times(1)).findByPlaca("CAC-0002");
+
+        veiculoService.deletar(criado.getId());
+        assertTrue(cacheVeiculos.buscar("CAC-0002").isEmpty());
+    }
+
+    @Test
+    void placa_desconhecida_fica_em_cache_negativo_ate_o_cadastro() {
+        clearInvocations(veiculoRepository);
+        assertTrue(cacheVeiculos.buscar("CAC-0003").isEmpty());
+        assertTrue(cacheVeiculos.buscar("CAC-0003").isEmpty());
+        verify(veiculoRepository, times(1)).findByPlaca("CAC-0003");
+
+        veiculoService.criar(veiculo("CAC-0003", "Kwid"));
+        assertEquals("Kwid", cacheVeiculos.buscar("CAC-0003").orElseThrow().getModelo());
+        verify(veiculoRepository, times(1)).findByPlaca("CAC-0003");
+    }
+
+    private static Veiculo veiculo(String placa, String modelo) {
+        Veiculo v = new Veiculo();
+        v.setPlaca(placa);
+        v.setModelo(modelo);
+        v.setCor("Preto");
+        return v;
+    }
+}
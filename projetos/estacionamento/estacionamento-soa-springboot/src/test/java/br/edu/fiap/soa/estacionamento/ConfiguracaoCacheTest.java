@@ -0,0 +1,75 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.EstacionamentoConfig;
+import br.edu.fiap.soa.estacionamento.repository.EstacionamentoConfigRepository;
+import br.edu.fiap.soa.estacionamento.service.ConfiguracaoCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doReturn;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A configuração ativa fica em memória e só avança de versão: a verificação
+ * periódica traz o que outro nó ativou, mas uma leitura atrasada do banco
+ * não desfaz uma publicação mais nova. A ETag de /configuracao acompanha.
+ */
+@AutoConfigureMockMvc
+public class ConfiguracaoCacheTest extends BaseIntegracao {
+
+    private static final String URL = "/api/estacionamento/configuracao";
+
+    @Autowired MockMvc mvc;
+    @Autowired ConfiguracaoCache configuracaoCache;
+    @SpyBean EstacionamentoConfigRepository configRepository;
+
+    @Test
+    void versao_ativada_por_outro_no_e_recarregada_na_verificacao() throws Exception {
+        salvarConfiguracao(10);
+        String etag = mvc.perform(get(URL)).andReturn().getResponse().getHeader("ETag");
+
+        // Outro nó grava direto no banco, sem passar por este cache
+        EstacionamentoConfig antiga = configRepository.findActiveConfig().orElseThrow();
+        antiga.setAtivo(false);
+        configRepository.save(antiga);
+        EstacionamentoConfig outroNo = configRepository.save(EstacionamentoConfig.builder()
+                .totalVagas(15).tarifa30Min(new BigDecimal("4.00")).tarifaHora(new BigDecimal("8.00"))
+                .tarifaDiaria(new BigDecimal("30.00")).tarifaMensal(new BigDecimal("200.00"))
+                .ativo(true).build());
+
+        mvc.perform(get(URL).header("If-None-Match", etag)).andExpect(status().isNotModified());
+
+        configuracaoCache.verificarVersao();
+        mvc.perform(get(URL).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalVagas").value(15));
+        assertEquals(outroNo.getId(), configuracaoCache.get().getVersao());
+        assertEquals(15, estacionamentoService.getTotalVagas());
+    }
+
+    @Test
+    void recarga_atrasada_nao_volta_para_versao_antiga() throws Exception {
+        EstacionamentoConfig antiga = salvarConfiguracao(10);
+        EstacionamentoConfig nova = salvarConfiguracao(12);
+        String etag = mvc.perform(get(URL)).andReturn().getResponse().getHeader("ETag");
+        assertEquals("\"cfg-" + nova.getId() + "\"", etag);
+
+        // A verificação leu o banco antes do commit da nova versão
+        doReturn(antiga.getId()).when(configRepository).findActiveConfigVersion();
+        doReturn(Optional.of(antiga)).when(configRepository).findActiveConfig();
+        configuracaoCache.verificarVersao();
+
+        assertEquals(nova.getId(), configuracaoCache.get().getVersao());
+        assertEquals(12, estacionamentoService.getTotalVagas());
+        mvc.perform(get(URL).header("If-None-Match", etag)).andExpect(status().isNotModified());
+    }
+}
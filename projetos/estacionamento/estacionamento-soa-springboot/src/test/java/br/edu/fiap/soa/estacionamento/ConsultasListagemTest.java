@@ -0,0 +1,89 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.Reserva;
+import br.edu.fiap.soa.estacionamento.domain.StatusReserva;
+import br.edu.fiap.soa.estacionamento.domain.Ticket;
+import br.edu.fiap.soa.estacionamento.domain.TicketStatus;
+import br.edu.fiap.soa.estacionamento.domain.Veiculo;
+import br.edu.fiap.soa.estacionamento.repository.ReservaRepository;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import br.edu.fiap.soa.estacionamento.repository.VeiculoRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Garante que as listagens não fazem uma consulta por linha (N+1): com
+ * várias linhas por veículo, cada endpoint deve emitir um número constante
+ * de comandos SQL.
+ */
+@SpringBootTest(properties = "spring.jpa.open-in-view=false")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ConsultasListagemTest extends BaseIntegracao {
+
+    private static final int LINHAS = 30;
+    private static final int MAX_CONSULTAS = 2;
+
+    @Autowired MockMvc mvc;
+    @Autowired VeiculoRepository veiculoRepository;
+    @Autowired TicketRepository ticketRepository;
+    @Autowired ReservaRepository reservaRepository;
+
+    private Long veiculoId;
+
+    @BeforeAll
+    void popular() {
+        LocalDateTime agora = LocalDateTime.now();
+        for (int i = 0; i < LINHAS; i++) {
+            Veiculo veiculo = veiculoRepository.save(Veiculo.builder().placa("N1" + i).build());
+            veiculoId = veiculo.getId();
+            ticketRepository.save(Ticket.builder().veiculo(veiculo).vaga("A" + i)
+                    .entrada(agora).status(TicketStatus.ABERTO).build());
+            reservaRepository.save(Reserva.builder().veiculo(veiculo).vaga("B" + i)
+                    .dataInicio(agora.plusHours(1)).dataFim(agora.plusHours(2)).status(StatusReserva.ATIVA).build());
+        }
+        Veiculo ultimo = veiculoRepository.findById(veiculoId).orElseThrow();
+        for (int i = 0; i < LINHAS; i++) {
+            reservaRepository.save(Reserva.builder().veiculo(ultimo).vaga("C" + i)
+                    .dataInicio(agora.plusDays(i + 1)).dataFim(agora.plusDays(i + 1).plusHours(1))
+                    .status(StatusReserva.ATIVA).build());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/veiculos?limite=1000", "/api/tickets/abertos?limite=1000",
+            "/api/reservas/ativas?limite=1000", "/api/reservas/veiculo/{id}", "/api/tickets/1"})
+    void listagem_emite_quantidade_constante_de_consultas(String url) throws Exception {
+        ContadorSql.zerar();
+        mvc.perform(get(url, veiculoId)).andExpect(status().isOk());
+        assertConsultas(url);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/veiculos/export", "/api/tickets/abertos/export", "/api/reservas/ativas/export"})
+    void exportacao_emite_quantidade_constante_de_consultas(String url) throws Exception {
+        ContadorSql.zerar();
+        MvcResult inicio = mvc.perform(get(url)).andReturn();
+        mvc.perform(asyncDispatch(inicio)).andExpect(status().isOk());
+        assertConsultas(url);
+    }
+
+    private static void assertConsultas(String url) {
+        int total = ContadorSql.total();
+        assertTrue(total <= MAX_CONSULTAS, url + " emitiu " + total + " comandos SQL (máximo " + MAX_CONSULTAS + ")");
+    }
+}
@@ -0,0 +1,170 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.EstacionamentoConfig;
+import br.edu.fiap.soa.estacionamento.repository.EstacionamentoConfigRepository;
+import br.edu.fiap.soa.estacionamento.repository.ReservaRepository;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import br.edu.fiap.soa.estacionamento.service.ConfiguracaoCache;
+import br.edu.fiap.soa.estacionamento.service.ContadorOcupacao;
+import br.edu.fiap.soa.estacionamento.service.ControleAdmissao;
+import br.edu.fiap.soa.estacionamento.service.IndiceReservas;
+import br.edu.fiap.soa.estacionamento.service.MapaVagas;
+import br.edu.fiap.soa.estacionamento.service.TicketsAbertos;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContadorOcupacaoTest {
+
+    private TicketRepository ticketRepository;
+    private MapaVagas mapaVagas;
+    private ControleAdmissao controleAdmissao;
+    private ContadorOcupacao contador;
+
+    @BeforeEach
+    void configurar() {
+        EstacionamentoConfigRepository configRepository = Mockito.mock(EstacionamentoConfigRepository.class);
+        Mockito.when(configRepository.findActiveConfig()).thenReturn(Optional.of(EstacionamentoConfig.builder()
+                .id(1L).totalVagas(10).tarifa30Min(new BigDecimal("4.00")).tarifaHora(new BigDecimal("8.00"))
+                .tarifaDiaria(new BigDecimal("30.00")).tarifaMensal(new BigDecimal("200.00")).build()));
+        ReservaRepository reservaRepository = Mockito.mock(ReservaRepository.class);
+        ticketRepository = Mockito.mock(TicketRepository.class);
+        Mockito.when(ticketRepository.findResumoAbertos()).thenReturn(List.of());
+        mapaVagas = new MapaVagas(new IndiceReservas(reservaRepository), "");
+        controleAdmissao = new ControleAdmissao(new ConfiguracaoCache(configRepository));
+        contador = new ContadorOcupacao(ticketRepository, controleAdmissao, mapaVagas, new TicketsAbertos(ticketRepository));
+    }
+
+    @AfterEach
+    void limpar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reconciliacao_corrige_divergencia_com_o_banco() {
+        contador.registrarEntrada("A1");
+        contador.registrarEntrada("A2");
+        contador.registrarSaida("A2");
+        assertEquals(1, contador.getOcupadas());
+
+        // Alterações feitas direto no banco
+        Mockito.when(ticketRepository.findVagasAbertas()).thenReturn(List.of("A1", "B1", "B2"));
+        contador.reconciliar();
+        assertEquals(3, contador.getOcupadas());
+        assertTrue(mapaVagas.isOcupada("B2"));
+    }
+
+    @Test
+    void checkin_aplicado_durante_a_leitura_nao_se_perde() {
+        contador.registrarEntrada("A1");
+        // O check-in de A2 é confirmado logo depois da leitura do banco, que ainda não o vê
+        Mockito.when(ticketRepository.findVagasAbertas())
+                .thenAnswer(chamada -> {
+                    contador.registrarEntrada("A2");
+                    return List.of("A1");
+                })
+                .thenReturn(List.of("A1", "A2"));
+        contador.reconciliar();
+        assertEquals(2, contador.getOcupadas());
+        assertTrue(mapaVagas.isOcupada("A2"));
+    }
+
+    @Test
+    void reconciliacao_espera_alteracao_em_voo() {
+        Mockito.when(ticketRepository.findVagasAbertas()).thenReturn(List.of("A1"));
+        contador.reconciliar();
+        assertEquals(1, contador.getOcupadas());
+
+        // Check-in de A2 já gravado no banco, mas ainda sem o afterCommit
+        TransactionSynchronizationManager.initSynchronization();
+        contador.registrarEntrada("A2");
+        List<TransactionSynchronization> sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizacoes.forEach(s -> s.beforeCommit(false));
+        Mockito.when(ticketRepository.findVagasAbertas()).thenReturn(List.of("A1", "A2"));
+
+        // Sem leitura estável a reconciliação é adiada em vez de contar A2 duas vezes
+        contador.reconciliar();
+        assertEquals(1, contador.getOcupadas());
+        TransactionSynchronizationUtils.invokeAfterCommit(sincronizacoes);
+        assertEquals(2, contador.getOcupadas());
+        contador.reconciliar();
+        assertEquals(2, contador.getOcupadas());
+        sincronizacoes.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        contador.reconciliar();
+        assertEquals(2, contador.getOcupadas());
+    }
+
+    @Test
+    void saida_adiada_em_andamento_adia_a_reconciliacao() {
+        Mockito.when(ticketRepository.findVagasAbertas()).thenReturn(List.of("A1"));
+        contador.iniciarAlteracao();
+        contador.reconciliar();
+        assertEquals(0, contador.getOcupadas());
+
+        contador.concluirAlteracao();
+        contador.reconciliar();
+        assertEquals(1, contador.getOcupadas());
+        // Sem gravação adiada os abertos em memória não são relidos do banco
+        Mockito.verify(ticketRepository, Mockito.never()).findResumoAbertos();
+    }
+
+    @Test
+    void checkin_concorrente_na_mesma_vaga_ve_a_vaga_ocupada_ao_obter_a_trava() throws Exception {
+        // Check-in de A1 como em TicketService.checkIn: admissão (trava da vaga) e depois o contador
+        TransactionSynchronizationManager.initSynchronization();
+        controleAdmissao.admitirNaTransacao("A1");
+        contador.registrarEntrada("A1");
+        List<TransactionSynchronization> sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // Commit na ordem do Spring: beforeCommit, afterCommit e afterCompletion, cada um por registro
+        sincronizacoes.forEach(s -> s.beforeCommit(false));
+        TransactionSynchronizationUtils.invokeAfterCommit(sincronizacoes);
+        sincronizacoes.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Trava solta: outro check-in da vaga a obtém e precisa ver a vaga ocupada
+        Boolean ocupadaAoEntrar = CompletableFuture.supplyAsync(() -> {
+            ControleAdmissao.Admissao admissao = controleAdmissao.admitir("A1");
+            try {
+                return mapaVagas.isOcupada("A1");
+            } finally {
+                admissao.cancelar();
+            }
+        }).get();
+        assertTrue(ocupadaAoEntrar);
+
+        sincronizacoes.get(1).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(1, contador.getOcupadas());
+    }
+
+    @Test
+    void adiamentos_seguidos_esperam_as_alteracoes_em_voo_e_reconciliam() throws Exception {
+        Mockito.when(ticketRepository.findVagasAbertas()).thenReturn(List.of("A1", "A2"));
+        contador.iniciarAlteracao();
+        contador.reconciliar();
+        contador.reconciliar();
+        assertEquals(0, contador.getOcupadas());
+
+        // Na terceira, a leitura espera a alteração em voo terminar em vez de desistir
+        CompletableFuture<Void> conclusao = CompletableFuture.runAsync(contador::concluirAlteracao,
+                CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+        contador.reconciliar();
+        conclusao.get();
+        assertEquals(2, contador.getOcupadas());
+    }
+}
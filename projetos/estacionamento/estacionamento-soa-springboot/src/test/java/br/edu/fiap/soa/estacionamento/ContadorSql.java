@@ -0,0 +1,37 @@
+package br.edu.fiap.soa.estacionamento;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * StatementInspector do Hibernate que conta os comandos SQL preparados e
+ * guarda o último deles.
+ * Registrado via {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ */
+public class ContadorSql implements StatementInspector {
+
+    private static final AtomicInteger comandos = new AtomicInteger();
+    private static final AtomicReference<String> ultimo = new AtomicReference<>();
+
+    @Override
+    public String inspect(String sql) {
+        comandos.incrementAndGet();
+        ultimo.set(sql);
+        return sql;
+    }
+
+    public static void zerar() {
+        comandos.set(0);
+        ultimo.set(null);
+    }
+
+    public static int total() {
+        return comandos.get();
+    }
+
+    public static String ultimo() {
+        return ultimo.get();
+    }
+}
@@ -0,0 +1,168 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.EstacionamentoConfig;
+import br.edu.fiap.soa.estacionamento.repository.EstacionamentoConfigRepository;
+import br.edu.fiap.soa.estacionamento.service.ConfiguracaoCache;
+import br.edu.fiap.soa.estacionamento.service.ControleAdmissao;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ControleAdmissaoTest {
+
+    private static ConfiguracaoCache cacheCom(long versao, int totalVagas) {
+        EstacionamentoConfigRepository repo = Mockito.mock(EstacionamentoConfigRepository.class);
+        Mockito.when(repo.findActiveConfig()).thenReturn(Optional.of(config(versao, totalVagas)));
+        return new ConfiguracaoCache(repo);
+    }
+
+    private static EstacionamentoConfig config(long versao, int totalVagas) {
+        return EstacionamentoConfig.builder()
+                .id(versao)
+                .totalVagas(totalVagas)
+                .tarifa30Min(new BigDecimal("4.00"))
+                .tarifaHora(new BigDecimal("8.00"))
+                .tarifaDiaria(new BigDecimal("30.00"))
+                .tarifaMensal(new BigDecimal("200.00"))
+                .build();
+    }
+
+    @Test
+    void centenas_de_checkins_concorrentes_nao_excedem_a_capacidade() throws Exception {
+        int capacidade = 50;
+        int threads = 400;
+        ControleAdmissao controle = new ControleAdmissao(cacheCom(1, capacidade));
+
+        Set<String> vagasOcupadas = ConcurrentHashMap.newKeySet();
+        ConcurrentHashMap<String, AtomicInteger> dentroDaVaga = new ConcurrentHashMap<>();
+        AtomicInteger admitidos = new AtomicInteger();
+        AtomicInteger violacoes = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        CountDownLatch fim = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            pool.execute(() -> {
+                try {
+                    largada.await();
+                    String vaga = "A" + ThreadLocalRandom.current().nextInt(120);
+                    ControleAdmissao.Admissao admissao = controle.admitir(vaga);
+                    // Simula a verificação da vaga e o insert dentro da trava
+                    AtomicInteger dentro = dentroDaVaga.computeIfAbsent(vaga, v -> new AtomicInteger());
+                    if (dentro.incrementAndGet() > 1) violacoes.incrementAndGet();
+                    boolean livre = vagasOcupadas.add(vaga);
+                    dentro.decrementAndGet();
+                    if (livre) {
+                        admitidos.incrementAndGet();
+                        admissao.confirmar();
+                    } else {
+                        admissao.cancelar();
+                    }
+                } catch (RuntimeException lotado) {
+                    // esperado quando não há mais vagas
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    fim.countDown();
+                }
+            });
+        }
+        largada.countDown();
+        assertTrue(fim.await(30, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals(0, violacoes.get(), "duas admissões simultâneas na mesma vaga");
+        assertTrue(admitidos.get() <= capacidade, "lotação excedida: " + admitidos.get());
+        assertEquals(vagasOcupadas.size(), admitidos.get());
+        assertEquals(admitidos.get(), controle.getEmUso());
+    }
+
+    @Test
+    void capacidade_acompanha_a_configuracao_ativa() {
+        EstacionamentoConfigRepository repo = Mockito.mock(EstacionamentoConfigRepository.class);
+        Mockito.when(repo.findActiveConfig()).thenReturn(Optional.of(config(1, 2)));
+        ConfiguracaoCache cache = new ConfiguracaoCache(repo);
+        ControleAdmissao controle = new ControleAdmissao(cache);
+
+        controle.admitir("A1").confirmar();
+        controle.admitir("A2").confirmar();
+        assertThrows(RuntimeException.class, () -> controle.admitir("A3"));
+
+        cache.publicarAposCommit(config(2, 3));
+        controle.admitir("A3").confirmar();
+        assertEquals(3, controle.getEmUso());
+
+        controle.liberarAposCommit();
+        assertEquals(2, controle.getEmUso());
+    }
+
+    @Test
+    void admissao_cancelada_devolve_a_permissao() {
+        ControleAdmissao controle = new ControleAdmissao(cacheCom(1, 1));
+        controle.admitir("B1").cancelar();
+        assertEquals(0, controle.getEmUso());
+        controle.admitir("B1").confirmar();
+        assertEquals(1, controle.getEmUso());
+    }
+
+    @Test
+    void sincronizacao_preserva_checkin_confirmado_depois_da_leitura() {
+        ControleAdmissao controle = new ControleAdmissao(cacheCom(1, 10));
+        controle.admitir("C1").confirmar();
+        controle.admitir("C2").confirmar();
+        ControleAdmissao.Admissao emAndamento = controle.admitir("C3");
+
+        // Leitura do banco com 2 tickets abertos; o check-in de C3 é confirmado em seguida
+        long confirmadas = controle.getConfirmadas();
+        emAndamento.confirmar();
+        controle.sincronizar(2, confirmadas);
+        assertEquals(3, controle.getEmUso());
+
+        // Divergência real (ticket fechado direto no banco) é corrigida pela diferença
+        controle.sincronizar(2, controle.getConfirmadas());
+        assertEquals(2, controle.getEmUso());
+        assertEquals(2, controle.getConfirmadas());
+    }
+
+    @Test
+    void lotes_com_vagas_em_ordem_inversa_nao_se_travam() throws Exception {
+        ControleAdmissao controle = new ControleAdmissao(cacheCom(1, 500));
+        List<String> vagas = IntStream.range(0, 200).mapToObj(i -> "L" + i).toList();
+        List<String> invertidas = new ArrayList<>(vagas);
+        Collections.reverse(invertidas);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        AtomicInteger concluidos = new AtomicInteger();
+        for (List<String> lote : List.of(vagas, invertidas)) {
+            pool.execute(() -> {
+                for (int rodada = 0; rodada < 200; rodada++) {
+                    Runnable soltar = controle.travarVagas(lote);
+                    // As admissões do lote reaproveitam as faixas já travadas
+                    controle.admitir(lote.get(0)).cancelar();
+                    soltar.run();
+                }
+                concluidos.incrementAndGet();
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(2, concluidos.get());
+        assertEquals(0, controle.getEmUso());
+    }
+}
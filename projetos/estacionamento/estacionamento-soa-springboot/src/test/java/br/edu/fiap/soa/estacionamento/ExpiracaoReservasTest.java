@@ -0,0 +1,74 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.Reserva;
+import br.edu.fiap.soa.estacionamento.domain.StatusReserva;
+import br.edu.fiap.soa.estacionamento.domain.Veiculo;
+import br.edu.fiap.soa.estacionamento.repository.ReservaRepository;
+import br.edu.fiap.soa.estacionamento.repository.VeiculoRepository;
+import br.edu.fiap.soa.estacionamento.service.ReservaService;
+import br.edu.fiap.soa.estacionamento.web.dto.ExpiracaoReservasDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A expiração de reservas vencidas roda em lotes de UPDATE, cada um na sua
+ * transação, e só muda reservas ainda ativas.
+ */
+public class ExpiracaoReservasTest extends BaseIntegracao {
+
+    @Autowired ReservaService reservaService;
+    @Autowired ReservaRepository reservaRepository;
+    @Autowired VeiculoRepository veiculoRepository;
+
+    @Test
+    void expira_as_vencidas_em_lotes_e_registra_as_metricas() {
+        // Nada pendente de outros testes no mesmo contexto
+        reservaService.expirarReservas();
+        LocalDateTime agora = LocalDateTime.now();
+        Veiculo veiculo = veiculoRepository.save(Veiculo.builder().placa("EXP-0001").build());
+        List<Long> vencidas = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            vencidas.add(reserva(veiculo, "X" + i, agora.minusHours(3), StatusReserva.ATIVA).getId());
+        }
+        Reserva utilizada = reserva(veiculo, "X8", agora.minusHours(3), StatusReserva.UTILIZADA);
+        Reserva futura = reserva(veiculo, "X9", agora.plusHours(3), StatusReserva.ATIVA);
+        ExpiracaoReservasDTO antes = reservaService.getMetricasExpiracao();
+
+        // Lote menor que o total: três lotes (2 + 2 + 1)
+        Object lote = ReflectionTestUtils.getField(reservaService, "tamanhoLoteExpiracao");
+        ReflectionTestUtils.setField(reservaService, "tamanhoLoteExpiracao", 2);
+        int expiradas;
+        try {
+            expiradas = reservaService.expirarReservas();
+        } finally {
+            ReflectionTestUtils.setField(reservaService, "tamanhoLoteExpiracao", lote);
+        }
+
+        assertEquals(5, expiradas);
+        assertTrue(reservaRepository.findAllById(vencidas).stream()
+                .allMatch(r -> r.getStatus() == StatusReserva.EXPIRADA));
+        assertEquals(StatusReserva.UTILIZADA, reservaRepository.findById(utilizada.getId()).orElseThrow().getStatus());
+        assertEquals(StatusReserva.ATIVA, reservaRepository.findById(futura.getId()).orElseThrow().getStatus());
+
+        ExpiracaoReservasDTO depois = reservaService.getMetricasExpiracao();
+        assertEquals(antes.getTotalExpiradas() + 5, depois.getTotalExpiradas());
+        assertEquals(antes.getExecucoes() + 1, depois.getExecucoes());
+        assertEquals(5, depois.getUltimaQuantidade());
+        assertFalse(depois.getUltimaExecucao().isBefore(agora));
+
+        // Repetir não muda nada
+        assertEquals(0, reservaService.expirarReservas());
+    }
+
+    private Reserva reserva(Veiculo veiculo, String vaga, LocalDateTime fim, StatusReserva status) {
+        return reservaRepository.save(Reserva.builder().veiculo(veiculo).vaga(vaga)
+                .dataReserva(fim.minusHours(3)).dataInicio(fim.minusHours(2)).dataFim(fim).status(status).build());
+    }
+}
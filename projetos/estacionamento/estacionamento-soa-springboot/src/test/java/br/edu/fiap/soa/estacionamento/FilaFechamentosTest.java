@@ -0,0 +1,166 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.Ticket;
+import br.edu.fiap.soa.estacionamento.domain.TicketStatus;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import br.edu.fiap.soa.estacionamento.service.*;
+import br.edu.fiap.soa.estacionamento.web.dto.TicketResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:writebehind;MODE=Oracle;LOCK_TIMEOUT=10000",
+        "estacionamento.checkout.write-behind.habilitado=true"
+})
+public class FilaFechamentosTest extends BaseIntegracao {
+
+    private static final Path PASTA;
+
+    static {
+        try {
+            PASTA = Files.createTempDirectory("saidas");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void diario(DynamicPropertyRegistry registry) {
+        registry.add("estacionamento.checkout.write-behind.diario", () -> PASTA.resolve("saidas.diario").toString());
+    }
+
+    @Autowired FilaFechamentos filaFechamentos;
+    @Autowired TicketService ticketService;
+    @Autowired TicketRepository ticketRepository;
+    @Autowired TicketsAbertos ticketsAbertos;
+    @Autowired ContadorOcupacao contadorOcupacao;
+    @Autowired MapaVagas mapaVagas;
+    @Autowired TarifaService tarifaService;
+    @Autowired ControleAdmissao controleAdmissao;
+    @Autowired RegistroEventos registroEventos;
+    @Autowired RollupService rollupService;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired JdbcTemplate jdbc;
+
+    @BeforeEach
+    void configurar() {
+        salvarConfiguracao(50);
+    }
+
+    @Test
+    void saida_respondida_pela_memoria_e_gravada_em_segundo_plano() {
+        Ticket ticket = ticketService.checkIn("WBH-0001", null, null, "W1", null);
+        long ocupadas = contadorOcupacao.getOcupadas();
+
+        TicketResponse resposta = filaFechamentos.fechar(ticket.getId()).orElseThrow();
+        assertEquals(TicketStatus.FECHADO, resposta.getStatus());
+        assertEquals("WBH-0001", resposta.getPlaca());
+        assertNotNull(resposta.getValor());
+        assertEquals(ocupadas - 1, contadorOcupacao.getOcupadas());
+        assertFalse(mapaVagas.isOcupada("W1"));
+
+        // Saída repetida: nem pela fila nem pelo caminho síncrono
+        assertTrue(filaFechamentos.fechar(ticket.getId()).isEmpty());
+        assertThrows(RuntimeException.class, () -> ticketService.checkOut(ticket.getId()));
+
+        // Reentrada logo após a saída espera a gravação da saída anterior
+        Ticket reentrada = ticketService.checkIn("WBH-0001", null, null, "W2", null);
+        assertNotEquals(ticket.getId(), reentrada.getId());
+
+        Ticket gravado = ticketRepository.findById(ticket.getId()).orElseThrow();
+        assertEquals(TicketStatus.FECHADO, gravado.getStatus());
+        assertEquals(0, resposta.getValor().compareTo(gravado.getValor()));
+    }
+
+    @Test
+    void fila_cheia_volta_ao_caminho_sincrono_e_reconciliacao_considera_pendentes() throws Exception {
+        Ticket a = ticketService.checkIn("WBH-0002", null, null, "W3", null);
+        Ticket b = ticketService.checkIn("WBH-0003", null, null, "W4", null);
+        FilaFechamentos pequena = novaFila(PASTA.resolve("pequena.diario"), true, 1);
+
+        // Trava a linha do ticket A: a gravação do lote fica parada
+        CountDownLatch travada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        Thread trava = new Thread(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbc.queryForList("SELECT id FROM ticket WHERE id = ? FOR UPDATE", a.getId());
+            travada.countDown();
+            try {
+                liberar.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        trava.start();
+        assertTrue(travada.await(5, TimeUnit.SECONDS));
+        try {
+            assertTrue(pequena.fechar(a.getId()).isPresent());
+            assertTrue(pequena.fechar(b.getId()).isEmpty(), "Fila cheia deveria recusar");
+            assertFalse(ticketsAbertos.isFechando(b.getId()));
+
+            // No banco A ainda está aberto, mas a saída já foi aceita
+            contadorOcupacao.reconciliar();
+            assertFalse(mapaVagas.isOcupada("W3"));
+            assertTrue(mapaVagas.isOcupada("W4"));
+        } finally {
+            liberar.countDown();
+            trava.join();
+        }
+        esperar(() -> !ticketsAbertos.isFechando(a.getId()));
+        assertEquals(TicketStatus.FECHADO, ticketRepository.findById(a.getId()).orElseThrow().getStatus());
+        pequena.encerrar();
+    }
+
+    @Test
+    void diario_deixado_por_uma_queda_e_gravado_na_subida() throws Exception {
+        Ticket ticket = ticketService.checkIn("WBH-0004", null, null, "W5", null);
+        LocalDateTime saida = LocalDateTime.now().withNano(0);
+        Path caminho = PASTA.resolve("queda.diario");
+        Files.writeString(caminho, ticket.getId() + ";" + saida + ";12.50\n" + ticket.getId() + ";" + saida + ";99");
+
+        novaFila(caminho, false, 10);
+
+        Ticket gravado = ticketRepository.findById(ticket.getId()).orElseThrow();
+        assertEquals(TicketStatus.FECHADO, gravado.getStatus());
+        assertEquals(saida, gravado.getSaida());
+        assertEquals(0, new BigDecimal("12.50").compareTo(gravado.getValor()));
+        assertEquals(0, Files.size(caminho));
+    }
+
+    private FilaFechamentos novaFila(Path caminho, boolean habilitada, int capacidade) throws IOException {
+        FilaFechamentos fila = new FilaFechamentos(ticketRepository, ticketsAbertos, tarifaService,
+                contadorOcupacao, controleAdmissao, registroEventos, rollupService, transactionManager);
+        ReflectionTestUtils.setField(fila, "habilitado", habilitada);
+        ReflectionTestUtils.setField(fila, "caminhoDiario", caminho.toString());
+        ReflectionTestUtils.setField(fila, "capacidade", capacidade);
+        ReflectionTestUtils.setField(fila, "esperaMs", 10L);
+        fila.iniciar();
+        return fila;
+    }
+
+    private static void esperar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condicao.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "Tempo esgotado");
+            Thread.sleep(10);
+        }
+    }
+}
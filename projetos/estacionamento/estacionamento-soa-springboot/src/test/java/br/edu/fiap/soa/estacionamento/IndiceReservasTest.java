@@ -0,0 +1,113 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.repository.ReservaRepository;
+import br.edu.fiap.soa.estacionamento.service.IndiceReservas;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndiceReservasTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 9, 2, 9, 0);
+
+    private static IndiceReservas indiceVazio() {
+        ReservaRepository repo = Mockito.mock(ReservaRepository.class);
+        Mockito.when(repo.findIntervalosAtivos()).thenReturn(List.of());
+        return new IndiceReservas(repo);
+    }
+
+    @Test
+    void detecta_conflito_com_mesmo_criterio_do_banco() {
+        IndiceReservas indice = indiceVazio();
+        IndiceReservas.Intervalo longa = indice.reservar("A10", BASE, BASE.plusDays(2));
+        indice.vincular(longa, 1L, 10L);
+        indice.vincular(indice.reservar("A10", BASE.plusDays(3), BASE.plusDays(3).plusHours(1)), 2L, 11L);
+
+        // Encostar nos limites não é conflito; sobrepor, mesmo começando bem depois, é
+        assertDoesNotThrow(() -> indice.reservar("A10", BASE.plusDays(2), BASE.plusDays(3)));
+        assertThrows(RuntimeException.class, () -> indice.reservar("A10", BASE.plusDays(1), BASE.plusDays(1).plusHours(1)));
+        assertDoesNotThrow(() -> indice.reservar("B01", BASE, BASE.plusDays(2)));
+    }
+
+    @Test
+    void busca_reserva_valida_do_veiculo_e_remove() {
+        IndiceReservas indice = indiceVazio();
+        indice.vincular(indice.reservar("A10", BASE, BASE.plusHours(9)), 1L, 10L);
+
+        assertEquals(Optional.of(1L), indice.buscarValida(10L, "A10", BASE.plusHours(9)));
+        assertEquals(Optional.empty(), indice.buscarValida(11L, "A10", BASE.plusHours(1)));
+        assertEquals(Optional.empty(), indice.buscarValida(10L, "A10", BASE.minusSeconds(1)));
+
+        indice.removerAposCommit(1L);
+        assertEquals(Optional.empty(), indice.buscarValida(10L, "A10", BASE.plusHours(1)));
+        assertDoesNotThrow(() -> indice.reservar("A10", BASE, BASE.plusHours(9)));
+    }
+
+    @Test
+    void reconstroi_a_partir_do_banco() {
+        ReservaRepository repo = Mockito.mock(ReservaRepository.class);
+        Mockito.when(repo.findIntervalosAtivos()).thenReturn(List.<Object[]>of(
+                new Object[]{1L, 10L, "A10", BASE, BASE.plusHours(2)},
+                new Object[]{2L, 11L, "A11", BASE, BASE.plusHours(2)}));
+        IndiceReservas indice = new IndiceReservas(repo);
+        indice.reconstruir();
+
+        assertEquals(2, indice.getTotal());
+        assertEquals(Optional.of(2L), indice.buscarValida(11L, "A11", BASE.plusHours(1)));
+        assertThrows(RuntimeException.class, () -> indice.reservar("A10", BASE.plusHours(1), BASE.plusHours(3)));
+    }
+
+    @Test
+    void reserva_feita_durante_a_reconstrucao_nao_se_perde() {
+        ReservaRepository repo = Mockito.mock(ReservaRepository.class);
+        IndiceReservas indice = new IndiceReservas(repo);
+        // A reserva de A10 é confirmada enquanto o banco é lido, sem aparecer na leitura
+        Mockito.when(repo.findIntervalosAtivos()).thenAnswer(chamada -> {
+            indice.vincular(indice.reservar("A10", BASE, BASE.plusHours(2)), 1L, 10L);
+            return List.of();
+        });
+        indice.reconstruir();
+
+        assertEquals(1, indice.getTotal());
+        assertThrows(RuntimeException.class, () -> indice.reservar("A10", BASE.plusHours(1), BASE.plusHours(3)));
+    }
+
+    @Test
+    void reserva_desfeita_depois_da_reconstrucao_sai_do_indice() {
+        IndiceReservas indice = indiceVazio();
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> sincronizacoes;
+        try {
+            indice.reservar("A10", BASE, BASE.plusHours(2));
+            sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // O intervalo ainda sem id é copiado na reconstrução e o rollback chega depois da troca
+        indice.reconstruir();
+        sincronizacoes.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertNull(indice.getProximoVencimento());
+        assertDoesNotThrow(() -> indice.reservar("A10", BASE, BASE.plusHours(2)));
+    }
+
+    @Test
+    void intervalo_sem_reserva_nao_define_vencimento_e_sai_quando_vence() {
+        IndiceReservas indice = indiceVazio();
+        indice.reservar("A10", BASE, BASE.plusHours(1));
+        indice.vincular(indice.reservar("A11", BASE, BASE.plusHours(2)), 1L, 10L);
+        assertEquals(BASE.plusHours(2), indice.getProximoVencimento());
+
+        indice.removerVencidas(BASE.plusHours(3));
+        assertNull(indice.getProximoVencimento());
+        assertDoesNotThrow(() -> indice.reservar("A10", BASE, BASE.plusHours(1)));
+    }
+}
@@ -0,0 +1,76 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.Reserva;
+import br.edu.fiap.soa.estacionamento.domain.StatusReserva;
+import br.edu.fiap.soa.estacionamento.domain.Ticket;
+import br.edu.fiap.soa.estacionamento.domain.TicketStatus;
+import br.edu.fiap.soa.estacionamento.domain.Veiculo;
+import br.edu.fiap.soa.estacionamento.repository.ReservaRepository;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import br.edu.fiap.soa.estacionamento.repository.VeiculoRepository;
+import br.edu.fiap.soa.estacionamento.service.IndiceReservas;
+import br.edu.fiap.soa.estacionamento.service.LoteEventosService;
+import br.edu.fiap.soa.estacionamento.service.RelatorioService;
+import br.edu.fiap.soa.estacionamento.service.RollupService;
+import br.edu.fiap.soa.estacionamento.web.dto.EventoPortaoRequest;
+import br.edu.fiap.soa.estacionamento.web.dto.EventoPortaoRequest.Tipo;
+import br.edu.fiap.soa.estacionamento.web.dto.ResultadoEventoDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoteEventosTest extends BaseIntegracao {
+
+    @Autowired LoteEventosService loteEventos;
+    @Autowired VeiculoRepository veiculoRepository;
+    @Autowired ReservaRepository reservaRepository;
+    @Autowired TicketRepository ticketRepository;
+    @Autowired IndiceReservas indiceReservas;
+    @Autowired RollupService rollupService;
+    @Autowired RelatorioService relatorioService;
+
+    @Test
+    void processa_eventos_com_resultado_por_item() {
+        salvarConfiguracao(10);
+        LocalDateTime agora = LocalDateTime.now();
+        Veiculo reservado = veiculoRepository.save(Veiculo.builder().placa("RES-0001").build());
+        Reserva reserva = reservaRepository.save(Reserva.builder().veiculo(reservado).vaga("L1")
+                .dataInicio(agora.minusMinutes(10)).dataFim(agora.plusHours(1)).status(StatusReserva.ATIVA).build());
+        indiceReservas.reconstruir();
+        // Histórico fora do período do relatório, para o rollup criar a marca d'água
+        // já à frente dos eventos retroativos abaixo
+        ticketRepository.save(Ticket.builder().veiculo(reservado).vaga("L9").entrada(agora.minusHours(6))
+                .saida(agora.minusHours(5)).valor(new BigDecimal("8.00")).status(TicketStatus.FECHADO).build());
+        rollupService.atualizar();
+
+        List<ResultadoEventoDTO> resultados = loteEventos.processar(List.of(
+                evento(Tipo.ENTRADA, "RES-0001", "L1", null),
+                evento(Tipo.ENTRADA, "NOV-0001", "L2", agora.minusHours(3)),
+                evento(Tipo.ENTRADA, "NOV-0002", "L2", agora.minusHours(3)),
+                evento(Tipo.SAIDA, "NOV-0001", null, agora.minusHours(1)),
+                evento(Tipo.SAIDA, "NAO-EXISTE", null, null),
+                evento(Tipo.ENTRADA, "NOV-0003", "L3", agora.plusDays(1))));
+
+        assertEquals(List.of(true, true, false, true, false, false),
+                resultados.stream().map(ResultadoEventoDTO::isSucesso).toList());
+        assertEquals(StatusReserva.UTILIZADA, reservaRepository.findById(reserva.getId()).orElseThrow().getStatus());
+
+        ResultadoEventoDTO saida = resultados.get(3);
+        assertEquals(TicketStatus.FECHADO, saida.getTicket().getStatus());
+        assertEquals(new BigDecimal("16.00"), saida.getTicket().getValor());
+        assertEquals(resultados.get(1).getTicket().getId(), saida.getTicket().getId());
+
+        // O fechamento retroativo entra no relatório mesmo atrás da marca d'água
+        BigDecimal receita = relatorioService.getRelatorioReceita(agora.minusHours(4), agora).getReceitaTotal();
+        assertEquals(0, new BigDecimal("16.00").compareTo(receita));
+    }
+
+    private static EventoPortaoRequest evento(Tipo tipo, String placa, String vaga, LocalDateTime ocorridoEm) {
+        return EventoPortaoRequest.builder().tipo(tipo).placa(placa).vaga(vaga).ocorridoEm(ocorridoEm).build();
+    }
+}
@@ -0,0 +1,157 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.EstacionamentoConfig;
+import br.edu.fiap.soa.estacionamento.repository.EstacionamentoConfigRepository;
+import br.edu.fiap.soa.estacionamento.repository.ReservaRepository;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import br.edu.fiap.soa.estacionamento.service.ConfiguracaoCache;
+import br.edu.fiap.soa.estacionamento.service.ContadorOcupacao;
+import br.edu.fiap.soa.estacionamento.service.ControleAdmissao;
+import br.edu.fiap.soa.estacionamento.service.IndiceReservas;
+import br.edu.fiap.soa.estacionamento.service.MapaVagas;
+import br.edu.fiap.soa.estacionamento.service.TicketsAbertos;
+import br.edu.fiap.soa.estacionamento.web.dto.VagaStatusDTO.Situacao;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MapaVagasTest {
+
+    private static IndiceReservas indiceVazio() {
+        ReservaRepository repo = Mockito.mock(ReservaRepository.class);
+        Mockito.when(repo.findIntervalosAtivos()).thenReturn(List.of());
+        return new IndiceReservas(repo);
+    }
+
+    @Test
+    void busca_vaga_livre_mais_proxima_ignorando_ocupadas_e_reservadas() {
+        IndiceReservas indice = indiceVazio();
+        MapaVagas mapa = new MapaVagas(indice, "A1-A5, B01-B03");
+        assertEquals(List.of("A1", "A2", "A3", "A4", "A5", "B01", "B02", "B03"), mapa.listarLivres(null, 100));
+
+        assertEquals("A3", mapa.buscarProxima("A3").getVaga());
+        mapa.ocupar("A2");
+        mapa.ocupar("A3");
+        mapa.ocupar("A4");
+        // Vizinhas ocupadas; entre A1 e A5, à mesma distância, o empate vai para a direita
+        assertEquals("A5", mapa.buscarProxima("A3").getVaga());
+
+        LocalDateTime agora = LocalDateTime.now();
+        indice.vincular(indice.reservar("A5", agora.minusHours(1), agora.plusHours(1)), 1L, 10L);
+        assertEquals(Situacao.RESERVADA, mapa.consultar("A5").getSituacao());
+        assertEquals("A1", mapa.buscarProxima("A4").getVaga());
+        assertEquals(List.of("A1"), mapa.listarLivres("a", 100));
+        assertEquals("B01", mapa.buscarProxima("B").getVaga());
+        assertThrows(RuntimeException.class, () -> mapa.buscarProxima("C1"));
+    }
+
+    @Test
+    void interna_vagas_fora_do_layout_e_sincroniza_com_banco() {
+        MapaVagas mapa = new MapaVagas(indiceVazio(), "");
+        assertFalse(mapa.consultar("Z9").isConhecida());
+
+        mapa.ocupar("Z9");
+        assertTrue(mapa.isOcupada("Z9"));
+        assertEquals(Situacao.OCUPADA, mapa.consultar("Z9").getSituacao());
+        // Força o crescimento do bitmap além de uma palavra de 64 bits
+        for (int i = 1; i <= 100; i++) mapa.ocupar("Z" + (100 + i));
+        assertTrue(mapa.isOcupada("Z9"));
+        mapa.liberar("Z9");
+        assertFalse(mapa.isOcupada("Z9"));
+        assertEquals("Z9", mapa.buscarProxima("Z50").getVaga());
+
+        mapa.sincronizar(List.of("Z9", "Y1"), mapa.getMarca());
+        assertTrue(mapa.isOcupada("Z9"));
+        assertTrue(mapa.isOcupada("Y1"));
+        assertFalse(mapa.isOcupada("Z150"));
+        assertEquals(102, mapa.getTotalConhecidas());
+    }
+
+    @Test
+    void sincronizacao_preserva_vagas_alteradas_depois_da_leitura() {
+        MapaVagas mapa = new MapaVagas(indiceVazio(), "A1-A4");
+        mapa.ocupar("A1");
+        mapa.ocupar("A2");
+        long marca = mapa.getMarca();
+        // Banco lido aqui: A1 e A2 abertas. Depois, check-in em A3 e check-out de A2
+        mapa.ocupar("A3");
+        mapa.liberar("A2");
+
+        mapa.sincronizar(List.of("A1", "A2", "A4"), marca);
+        assertTrue(mapa.isOcupada("A1"));
+        assertFalse(mapa.isOcupada("A2"));
+        assertTrue(mapa.isOcupada("A3"));
+        // A4, sem escrita desde a leitura, segue o banco
+        assertTrue(mapa.isOcupada("A4"));
+    }
+
+    @Test
+    void vaga_ja_consta_ocupada_quando_a_admissao_solta_a_trava() {
+        EstacionamentoConfigRepository configRepository = Mockito.mock(EstacionamentoConfigRepository.class);
+        Mockito.when(configRepository.findActiveConfig()).thenReturn(Optional.of(EstacionamentoConfig.builder()
+                .id(1L).totalVagas(10).tarifa30Min(new BigDecimal("4.00")).tarifaHora(new BigDecimal("8.00"))
+                .tarifaDiaria(new BigDecimal("30.00")).tarifaMensal(new BigDecimal("200.00")).build()));
+        TicketRepository ticketRepository = Mockito.mock(TicketRepository.class);
+        MapaVagas mapa = new MapaVagas(indiceVazio(), "A1-A4");
+        ControleAdmissao controle = new ControleAdmissao(new ConfiguracaoCache(configRepository));
+        ContadorOcupacao contador = new ContadorOcupacao(ticketRepository, controle, mapa, new TicketsAbertos(ticketRepository));
+
+        // Check-in de A1 com a ordem de registro de TicketService.checkIn: admissão, demais efeitos, contador.
+        // O efeito do meio roda já sem a trava e tenta o check-in seguinte da mesma vaga
+        AtomicBoolean ocupadaAoEntrar = new AtomicBoolean();
+        new TransactionTemplate(new TransacaoEmMemoria()).executeWithoutResult(status -> {
+            controle.admitirNaTransacao("A1");
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    ocupadaAoEntrar.set(CompletableFuture.supplyAsync(() -> {
+                        ControleAdmissao.Admissao admissao = controle.admitir("A1");
+                        try {
+                            return mapa.isOcupada("A1");
+                        } finally {
+                            admissao.cancelar();
+                        }
+                    }).join());
+                }
+            });
+            contador.registrarEntrada("A1");
+        });
+
+        assertTrue(ocupadaAoEntrar.get());
+        assertTrue(mapa.isOcupada("A1"));
+    }
+
+    // Gerenciador sem recurso: só dispara as sincronizações na ordem do Spring
+    private static final class TransacaoEmMemoria extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
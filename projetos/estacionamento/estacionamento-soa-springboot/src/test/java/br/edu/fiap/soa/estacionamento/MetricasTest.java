@@ -0,0 +1,50 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.Ticket;
+import br.edu.fiap.soa.estacionamento.service.RelatorioService;
+import br.edu.fiap.soa.estacionamento.service.TicketService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+public class MetricasTest extends BaseIntegracao {
+
+    @Autowired MockMvc mvc;
+    @Autowired TicketService ticketService;
+    @Autowired RelatorioService relatorioService;
+
+    @Test
+    void expoe_tempos_dos_servicos_consultas_e_medidores_no_prometheus() throws Exception {
+        salvarConfiguracao(10);
+        Ticket ticket = ticketService.checkIn("MET-0001", null, null, "M1", null);
+        ticketService.checkOut(ticket.getId());
+        relatorioService.getRelatorioOcupacao();
+
+        String metricas = mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        for (String esperado : new String[]{
+                "estacionamento_ticket_seconds_bucket{application=\"estacionamento\",class=\"br.edu.fiap.soa.estacionamento.service.TicketService\",exception=\"none\",method=\"checkIn\",operacao=\"checkin\"",
+                "estacionamento_ticket_seconds_count{application=\"estacionamento\",class=\"br.edu.fiap.soa.estacionamento.service.TicketService\",exception=\"none\",method=\"checkOut\",operacao=\"checkout\"",
+                "estacionamento_tarifa_seconds_count{",
+                "estacionamento_relatorio_seconds_count{",
+                "spring_data_repository_invocations_seconds_bucket{",
+                "method=\"findComVeiculoById\"",
+                "hikaricp_connections_active{",
+                "estacionamento_vagas_ocupadas{",
+                "estacionamento_reservas_ativas{",
+                "estacionamento_stream_assinantes{"}) {
+            assertTrue(metricas.contains(esperado), "Métrica ausente: " + esperado);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.TicketStatus;
+import br.edu.fiap.soa.estacionamento.repository.ReservaRepository;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Regressão de planos: com uma massa grande (maioria de tickets fechados),
+ * cada consulta quente deve usar o índice composto feito para ela em vez de
+ * varrer a tabela. Cada método do repositório é executado, o SQL gerado
+ * pelo Hibernate é capturado pelo {@link ContadorSql} e a saída do EXPLAIN
+ * do H2 sobre esse SQL é conferida.
+ */
+// Banco próprio: a carga em massa via JDBC não passa pelas sequences do Hibernate
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:planos;MODE=Oracle")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class PlanoConsultasTest extends BaseIntegracao {
+
+    private static final int VEICULOS = 2_000;
+    private static final int TICKETS = 40_000;
+    private static final int RESERVAS = 10_000;
+
+    @Autowired JdbcTemplate jdbc;
+    @Autowired TicketRepository ticketRepository;
+    @Autowired ReservaRepository reservaRepository;
+
+    @BeforeAll
+    void popular() {
+        LocalDateTime base = LocalDateTime.now().minusDays(400);
+        List<Object[]> veiculos = new ArrayList<>();
+        for (int i = 1; i <= VEICULOS; i++) {
+            veiculos.add(new Object[]{i, String.format("PLN%05d", i), Timestamp.valueOf(base)});
+        }
+        jdbc.batchUpdate("INSERT INTO veiculo (id, placa, modelo, cor, data_cadastro) VALUES (?, ?, 'Onix', 'Preto', ?)",
+                veiculos);
+
+        List<Object[]> tickets = new ArrayList<>();
+        for (int i = 1; i <= TICKETS; i++) {
+            // Um ticket aberto a cada 100: o histórico é quase todo FECHADO
+            boolean aberto = i % 100 == 0;
+            LocalDateTime entrada = base.plusMinutes(i * 14L);
+            tickets.add(new Object[]{i, 1 + i % VEICULOS, "V" + (1 + i % 300), Timestamp.valueOf(entrada),
+                    aberto ? null : Timestamp.valueOf(entrada.plusHours(2)), aberto ? "ABERTO" : "FECHADO"});
+        }
+        jdbc.batchUpdate("INSERT INTO ticket (id, veiculo_id, vaga, entrada, saida, status, tipo_tarifa) " +
+                "VALUES (?, ?, ?, ?, ?, ?, 'HORARIA')", tickets);
+
+        List<Object[]> reservas = new ArrayList<>();
+        for (int i = 1; i <= RESERVAS; i++) {
+            LocalDateTime inicio = base.plusHours(i);
+            reservas.add(new Object[]{i, 1 + i % VEICULOS, "V" + (1 + i % 300), Timestamp.valueOf(base),
+                    Timestamp.valueOf(inicio), Timestamp.valueOf(inicio.plusHours(2)),
+                    i % 50 == 0 ? "ATIVA" : "EXPIRADA"});
+        }
+        jdbc.batchUpdate("INSERT INTO reserva (id, veiculo_id, vaga, data_reserva, data_inicio, data_fim, status) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", reservas);
+
+        jdbc.execute("ANALYZE");
+    }
+
+    Stream<Arguments> consultas() {
+        LocalDateTime agora = LocalDateTime.now();
+        // Argumentos do EXPLAIN na ordem dos parâmetros do SQL gerado
+        return Stream.of(
+                consulta("countTicketsAbertos", "IX_TICKET_STATUS_ID",
+                        () -> ticketRepository.countTicketsAbertos()),
+                consulta("findAbertosApos", "IX_TICKET_STATUS_ID",
+                        () -> ticketRepository.findAbertosApos(0L, PageRequest.of(0, 51)), 0L, 51),
+                consulta("findVagasAbertas", "IX_TICKET_STATUS_ID",
+                        () -> ticketRepository.findVagasAbertas()),
+                consulta("getRelatorioUsoVagas", "IX_TICKET_ENTRADA_VAGA",
+                        () -> ticketRepository.getRelatorioUsoVagas(agora.minusDays(2), agora),
+                        agora.minusDays(2), agora),
+                consulta("existsByVeiculoIdAndStatus", "IX_TICKET_VEICULO_STATUS",
+                        () -> ticketRepository.existsByVeiculoIdAndStatus(42L, TicketStatus.ABERTO),
+                        42L, TicketStatus.ABERTO.name(), 1),
+                consulta("findByVaga", "IX_TICKET_VAGA_STATUS",
+                        () -> ticketRepository.findByVaga("V7"), "V7"),
+                consulta("findReservasConflitantes", "IX_RESERVA_VAGA_PERIODO",
+                        () -> reservaRepository.findReservasConflitantes("V7", agora, agora.plusDays(1)),
+                        "V7", agora, agora.plusDays(1)),
+                consulta("findIdsExpirados", "IX_RESERVA_STATUS_FIM",
+                        () -> reservaRepository.findIdsExpirados(agora, PageRequest.of(0, 500)), agora, 500),
+                consulta("findAtivasPorVeiculo", "IX_RESERVA_VEICULO_STATUS",
+                        () -> reservaRepository.findAtivasPorVeiculo(42L), 42L));
+    }
+
+    private static Arguments consulta(String nome, String indice, Runnable chamada, Object... parametros) {
+        return Arguments.of(nome, indice, chamada, parametros);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("consultas")
+    void consulta_usa_o_indice_composto(String consulta, String indice, Runnable chamada, Object[] parametros) {
+        // EXPLAIN do SQL que o Hibernate gerou para o método do repositório
+        ContadorSql.zerar();
+        chamada.run();
+        String sql = ContadorSql.ultimo();
+        assertNotNull(sql, consulta + " não gerou SQL");
+        String plano = jdbc.queryForObject("EXPLAIN " + sql, String.class, parametros);
+        assertTrue(plano.contains(indice), consulta + " deveria usar " + indice + ":\n" + sql + "\n" + plano);
+    }
+}
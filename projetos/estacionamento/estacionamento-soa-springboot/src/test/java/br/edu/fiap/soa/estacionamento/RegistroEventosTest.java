@@ -0,0 +1,80 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.EventoEstacionamento;
+import br.edu.fiap.soa.estacionamento.domain.Reserva;
+import br.edu.fiap.soa.estacionamento.domain.StatusReserva;
+import br.edu.fiap.soa.estacionamento.domain.Ticket;
+import br.edu.fiap.soa.estacionamento.domain.TipoEvento;
+import br.edu.fiap.soa.estacionamento.domain.Veiculo;
+import br.edu.fiap.soa.estacionamento.repository.ReservaRepository;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import br.edu.fiap.soa.estacionamento.repository.VeiculoRepository;
+import br.edu.fiap.soa.estacionamento.service.LoteEventosService;
+import br.edu.fiap.soa.estacionamento.service.RegistroEventos;
+import br.edu.fiap.soa.estacionamento.service.ReservaService;
+import br.edu.fiap.soa.estacionamento.service.TicketService;
+import br.edu.fiap.soa.estacionamento.web.dto.EventoPortaoRequest;
+import br.edu.fiap.soa.estacionamento.web.dto.ProjecaoEventosDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "estacionamento.eventos.reproducao.lote=3")
+public class RegistroEventosTest extends BaseIntegracao {
+
+    @Autowired RegistroEventos registroEventos;
+    @Autowired TicketService ticketService;
+    @Autowired ReservaService reservaService;
+    @Autowired LoteEventosService loteEventos;
+    @Autowired VeiculoRepository veiculoRepository;
+    @Autowired ReservaRepository reservaRepository;
+    @Autowired TicketRepository ticketRepository;
+
+    @Test
+    void projecao_reconstruida_do_registro_bate_com_as_tabelas() {
+        salvarConfiguracao(10);
+        LocalDateTime agora = LocalDateTime.now();
+        Veiculo veiculo = veiculoRepository.save(Veiculo.builder().placa("EVT-0001").build());
+        Reserva vencida = reservaRepository.save(Reserva.builder().veiculo(veiculo).vaga("E9")
+                .dataInicio(agora.minusHours(3)).dataFim(agora.minusHours(1)).status(StatusReserva.ATIVA).build());
+
+        Reserva cancelada = reservaService.criarReserva("EVT-0001", "E5", agora.plusHours(1), agora.plusHours(2));
+        reservaService.cancelarReserva(cancelada.getId());
+        reservaService.criarReserva("EVT-0001", "E6", agora.plusHours(3), agora.plusHours(4));
+        reservaService.expirarReservas();
+
+        Ticket a = ticketService.checkIn("EVT-0002", null, null, "E1", null);
+        Ticket b = ticketService.checkIn("EVT-0003", null, null, "E2", null);
+        ticketService.checkOut(a.getId());
+        loteEventos.processar(List.of(
+                EventoPortaoRequest.builder().tipo(EventoPortaoRequest.Tipo.ENTRADA).placa("EVT-0004").vaga("E3").build(),
+                EventoPortaoRequest.builder().tipo(EventoPortaoRequest.Tipo.SAIDA).ticketId(b.getId()).build()));
+
+        List<TipoEvento> tipos = new ArrayList<>();
+        registroEventos.reproduzir(0, evento -> tipos.add(evento.getTipo()));
+        assertEquals(List.of(TipoEvento.RESERVA_CRIADA, TipoEvento.RESERVA_CANCELADA, TipoEvento.RESERVA_CRIADA,
+                TipoEvento.RESERVA_EXPIRADA, TipoEvento.ENTRADA, TipoEvento.ENTRADA, TipoEvento.SAIDA,
+                TipoEvento.ENTRADA, TipoEvento.SAIDA), tipos);
+
+        EventoEstacionamento expirada = registroEventos.listar(null, 100).getItens().get(3);
+        assertEquals(vencida.getId(), expirada.getReservaId());
+
+        ProjecaoEventosDTO projecao = registroEventos.projetar();
+        assertEquals(9, projecao.getEventos());
+        assertEquals(ticketRepository.countTicketsAbertos().intValue(), projecao.getTicketsAbertos());
+        assertEquals(List.of("E3"), projecao.getVagasOcupadas());
+        assertEquals(2, projecao.getTicketsFechados());
+        assertEquals(1, projecao.getReservasAtivas());
+        assertEquals(reservaRepository.findByStatus(StatusReserva.ATIVA).size(), projecao.getReservasAtivas());
+        BigDecimal receita = ticketRepository.findAll().stream()
+                .map(Ticket::getValor).filter(v -> v != null).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, receita.compareTo(projecao.getReceita()));
+    }
+}
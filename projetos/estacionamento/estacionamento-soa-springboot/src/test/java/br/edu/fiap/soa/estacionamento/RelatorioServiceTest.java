@@ -0,0 +1,130 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.Ticket;
+import br.edu.fiap.soa.estacionamento.domain.TicketStatus;
+import br.edu.fiap.soa.estacionamento.domain.TipoTarifa;
+import br.edu.fiap.soa.estacionamento.domain.Veiculo;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import br.edu.fiap.soa.estacionamento.repository.VeiculoRepository;
+import br.edu.fiap.soa.estacionamento.service.RelatorioService;
+import br.edu.fiap.soa.estacionamento.service.RollupService;
+import br.edu.fiap.soa.estacionamento.web.dto.RelatorioConsolidadoDTO;
+import br.edu.fiap.soa.estacionamento.web.dto.RelatorioReceitaDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Relatórios de período saem de consultas agregadas (buckets do rollup e
+ * bordas), sem carregar os tickets: o número de comandos SQL não depende
+ * de quantos tickets há no período, e o consolidado custa o mesmo que
+ * um relatório só.
+ */
+public class RelatorioServiceTest extends BaseIntegracao {
+
+    @Autowired RelatorioService relatorioService;
+    @Autowired RollupService rollupService;
+    @Autowired TicketRepository ticketRepository;
+    @Autowired VeiculoRepository veiculoRepository;
+    @Autowired JdbcTemplate jdbc;
+
+    private Veiculo veiculo;
+
+    @BeforeEach
+    void reiniciarRollup() {
+        // Sem controle, o job recomeça pelo ticket mais antigo, como na primeira execução
+        jdbc.update("DELETE FROM ticket_rollup");
+        jdbc.update("DELETE FROM rollup_controle");
+        veiculo = veiculoRepository.findByPlaca("REL-0001")
+                .orElseGet(() -> veiculoRepository.save(Veiculo.builder().placa("REL-0001").build()));
+    }
+
+    @Test
+    void receita_do_periodo_vem_de_consultas_agregadas() {
+        LocalDateTime dia = dia(30);
+        fechado("RR1", dia.plusHours(9), "8.00");
+        fechado("RR1", dia.plusHours(12), "12.00");
+        fechado("RR2", dia.plusHours(18), "5.00");
+        aberto("RR1", dia.plusHours(15));
+        LocalDateTime cheio = dia(31);
+        for (int i = 0; i < 60; i++) {
+            fechado("RR" + (i % 5), cheio.plusHours(9).plusMinutes(i * 8), "8.00");
+        }
+        rollupService.atualizar();
+
+        ContadorSql.zerar();
+        RelatorioReceitaDTO receita = relatorioService.getRelatorioReceita(dia.plusHours(8),
+                dia.plusHours(18).plusMinutes(30));
+        int comandos = ContadorSql.total();
+
+        assertEquals(0, new BigDecimal("25.00").compareTo(receita.getReceitaTotal()));
+        assertEquals(3, receita.getTotalTickets());
+        assertEquals(new BigDecimal("8.33"), receita.getTicketMedio());
+
+        // Vinte vezes mais tickets no mesmo formato de período, mesmos comandos
+        ContadorSql.zerar();
+        RelatorioReceitaDTO maior = relatorioService.getRelatorioReceita(cheio.plusHours(8),
+                cheio.plusHours(18).plusMinutes(30));
+        assertEquals(60, maior.getTotalTickets());
+        assertEquals(0, new BigDecimal("480.00").compareTo(maior.getReceitaTotal()));
+        assertEquals(comandos, ContadorSql.total());
+    }
+
+    @Test
+    void consolidado_sai_de_uma_so_agregacao_do_periodo() {
+        salvarConfiguracao(10);
+        LocalDateTime dia = dia(32);
+        fechado("RS1", dia.plusHours(9), "8.00");
+        ticketRepository.save(Ticket.builder().veiculo(veiculo).vaga("RS1").entrada(dia.plusHours(10))
+                .saida(dia.plusHours(20)).valor(new BigDecimal("20.00")).tipoTarifa(TipoTarifa.DIARIA)
+                .status(TicketStatus.FECHADO).build());
+        aberto("RS1", dia.plusHours(16));
+        fechado("RS2", dia.plusHours(11), "5.00");
+        aberto("RS3", dia.plusHours(12));
+        aberto("RS3", dia.plusHours(18));
+        rollupService.atualizar();
+        LocalDateTime inicio = dia.plusHours(8);
+        LocalDateTime fim = dia.plusHours(18).plusMinutes(30);
+
+        ContadorSql.zerar();
+        relatorioService.getRelatorioReceita(inicio, fim);
+        int comandosReceita = ContadorSql.total();
+        ContadorSql.zerar();
+        RelatorioConsolidadoDTO consolidado = relatorioService.getRelatorioConsolidado(inicio, fim);
+
+        // Receita e vagas da mesma agregação; a ocupação vem dos contadores em memória
+        assertEquals(comandosReceita, ContadorSql.total());
+        assertEquals(0, new BigDecimal("33.00").compareTo(consolidado.getReceita().getReceitaTotal()));
+        assertEquals(3, consolidado.getReceita().getTotalTickets());
+        assertEquals(new BigDecimal("11.00"), consolidado.getReceita().getTicketMedio());
+        assertEquals(Map.of("RS1", 3L, "RS2", 1L, "RS3", 2L), consolidado.getVagas().getUsoVagas());
+        assertEquals("RS1", consolidado.getVagas().getVagaMaisUsada());
+        assertEquals("RS2", consolidado.getVagas().getVagaMenosUsada());
+        assertEquals(6, consolidado.getVagas().getTotalUsos());
+        assertEquals(0, new BigDecimal("13.00").compareTo(consolidado.getReceitaPorTarifa().get(TipoTarifa.HORARIA)));
+        assertEquals(0, new BigDecimal("20.00").compareTo(consolidado.getReceitaPorTarifa().get(TipoTarifa.DIARIA)));
+        assertNotNull(consolidado.getOcupacao());
+    }
+
+    private void fechado(String vaga, LocalDateTime entrada, String valor) {
+        ticketRepository.save(Ticket.builder().veiculo(veiculo).vaga(vaga).entrada(entrada)
+                .saida(entrada.plusMinutes(45)).valor(new BigDecimal(valor)).status(TicketStatus.FECHADO).build());
+    }
+
+    private void aberto(String vaga, LocalDateTime entrada) {
+        ticketRepository.save(Ticket.builder().veiculo(veiculo).vaga(vaga).entrada(entrada)
+                .status(TicketStatus.ABERTO).build());
+    }
+
+    private static LocalDateTime dia(int diasAtras) {
+        return LocalDateTime.now().minusDays(diasAtras).truncatedTo(ChronoUnit.DAYS);
+    }
+}
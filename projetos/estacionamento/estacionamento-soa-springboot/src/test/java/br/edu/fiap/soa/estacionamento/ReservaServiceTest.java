@@ -0,0 +1,69 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.Reserva;
+import br.edu.fiap.soa.estacionamento.domain.Veiculo;
+import br.edu.fiap.soa.estacionamento.repository.ReservaRepository;
+import br.edu.fiap.soa.estacionamento.service.CacheVeiculos;
+import br.edu.fiap.soa.estacionamento.service.IndiceReservas;
+import br.edu.fiap.soa.estacionamento.service.RegistroEventos;
+import br.edu.fiap.soa.estacionamento.service.ReservaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+public class ReservaServiceTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.now().plusDays(1);
+
+    private ReservaRepository reservaRepository;
+    private IndiceReservas indice;
+    private ReservaService service;
+
+    @BeforeEach
+    void configurar() {
+        reservaRepository = Mockito.mock(ReservaRepository.class);
+        Mockito.when(reservaRepository.findIntervalosAtivos()).thenReturn(List.of());
+        Mockito.when(reservaRepository.save(any(Reserva.class))).thenAnswer(chamada -> {
+            Reserva reserva = chamada.getArgument(0);
+            reserva.setId(1L);
+            return reserva;
+        });
+        CacheVeiculos cacheVeiculos = Mockito.mock(CacheVeiculos.class);
+        Mockito.when(cacheVeiculos.buscar(anyString()))
+                .thenReturn(Optional.of(Veiculo.builder().id(10L).placa("RSV-0001").build()));
+        indice = new IndiceReservas(reservaRepository);
+        service = new ReservaService(reservaRepository, null, null, indice,
+                Mockito.mock(PlatformTransactionManager.class), cacheVeiculos, Mockito.mock(RegistroEventos.class));
+    }
+
+    @Test
+    void em_um_no_o_conflito_e_decidido_pelo_indice_sem_consulta() {
+        service.criarReserva("RSV-0001", "R1", INICIO, INICIO.plusHours(2));
+        assertThrows(RuntimeException.class,
+                () -> service.criarReserva("RSV-0001", "R1", INICIO.plusHours(1), INICIO.plusHours(3)));
+
+        Mockito.verify(reservaRepository, Mockito.never()).findReservasConflitantes(any(), any(), any());
+        assertEquals(1, indice.getTotal());
+    }
+
+    @Test
+    void com_varios_nos_confere_as_reservas_gravadas_pelos_demais() {
+        ReflectionTestUtils.setField(service, "multiNo", true);
+        // Reserva de outro nó, ainda fora deste índice
+        Mockito.when(reservaRepository.findReservasConflitantes("R1", INICIO, INICIO.plusHours(2)))
+                .thenReturn(List.of(Reserva.builder().id(2L).vaga("R1").build()));
+
+        assertThrows(RuntimeException.class, () -> service.criarReserva("RSV-0001", "R1", INICIO, INICIO.plusHours(2)));
+        Mockito.verify(reservaRepository, Mockito.never()).save(any(Reserva.class));
+    }
+}
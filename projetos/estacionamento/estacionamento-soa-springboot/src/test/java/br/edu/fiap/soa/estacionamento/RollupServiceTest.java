@@ -0,0 +1,206 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.GranularidadeRollup;
+import br.edu.fiap.soa.estacionamento.domain.RollupControle;
+import br.edu.fiap.soa.estacionamento.domain.Ticket;
+import br.edu.fiap.soa.estacionamento.domain.TicketRollup;
+import br.edu.fiap.soa.estacionamento.domain.TicketStatus;
+import br.edu.fiap.soa.estacionamento.domain.Veiculo;
+import br.edu.fiap.soa.estacionamento.repository.RollupControleRepository;
+import br.edu.fiap.soa.estacionamento.repository.TicketRepository;
+import br.edu.fiap.soa.estacionamento.repository.TicketRollupRepository;
+import br.edu.fiap.soa.estacionamento.repository.VeiculoRepository;
+import br.edu.fiap.soa.estacionamento.service.AgregadoPeriodo;
+import br.edu.fiap.soa.estacionamento.service.RollupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rollup incremental: o job soma entradas e fechamentos nos buckets de hora
+ * e de dia até a marca d'água, e a consulta de um período combina buckets
+ * inteiros com os fragmentos das bordas lidos direto da tabela de tickets.
+ * Cada teste usa um dia próprio no passado e vagas próprias.
+ */
+public class RollupServiceTest extends BaseIntegracao {
+
+    @Autowired RollupService rollupService;
+    @Autowired TicketRepository ticketRepository;
+    @Autowired VeiculoRepository veiculoRepository;
+    @Autowired TicketRollupRepository rollupRepository;
+    @Autowired RollupControleRepository controleRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired JdbcTemplate jdbc;
+
+    private Veiculo veiculo;
+
+    @BeforeEach
+    void reiniciarRollup() {
+        // Sem controle, o job recomeça pelo ticket mais antigo, como na primeira execução
+        jdbc.update("DELETE FROM ticket_rollup");
+        jdbc.update("DELETE FROM rollup_controle");
+        veiculo = veiculoRepository.findByPlaca("ROL-0001")
+                .orElseGet(() -> veiculoRepository.save(Veiculo.builder().placa("ROL-0001").build()));
+    }
+
+    @Test
+    void job_avanca_a_marca_e_soma_nos_buckets_de_hora_e_de_dia() {
+        LocalDateTime dia = dia(20);
+        fechado("RA1", dia.plusHours(9), dia.plusHours(10), "8.00");
+        fechado("RA1", dia.plusHours(9).plusMinutes(30), dia.plusHours(11), "12.00");
+        aberto("RA2", dia.plusHours(14).plusMinutes(15));
+
+        LocalDateTime antes = LocalDateTime.now();
+        rollupService.atualizar();
+
+        // A marca para logo antes de agora, na margem para commits em andamento
+        LocalDateTime marca = controleRepository.findById(RollupControle.ID).orElseThrow().getProcessadoAte();
+        assertTrue(marca.isAfter(antes.minusSeconds(130)), "marca d'água em " + marca);
+        assertTrue(marca.isBefore(LocalDateTime.now()));
+
+        assertBucket(GranularidadeRollup.HORA, dia.plusHours(9), "RA1", 2, 2, "20.00");
+        assertBucket(GranularidadeRollup.DIA, dia, "RA1", 2, 2, "20.00");
+        assertBucket(GranularidadeRollup.HORA, dia.plusHours(14), "RA2", 1, 0, "0.00");
+
+        // Nova execução sem tickets novos não soma de novo
+        rollupService.atualizar();
+        assertBucket(GranularidadeRollup.HORA, dia.plusHours(9), "RA1", 2, 2, "20.00");
+    }
+
+    @Test
+    void periodo_combina_buckets_inteiros_com_fragmentos_das_bordas() {
+        LocalDateTime dia = dia(21);
+        fechado("RB1", dia.plusHours(9), dia.plusHours(10), "8.00");
+        fechado("RB1", dia.plusHours(9).plusMinutes(40), dia.plusHours(10).plusMinutes(10), "12.00");
+        fechado("RB2", dia.plusHours(11), dia.plusHours(12), "8.00");
+        aberto("RB3", dia.plusHours(14).plusMinutes(10));
+        fechado("RB3", dia.plusHours(14).plusMinutes(50), dia.plusHours(15), "8.00");
+        rollupService.atualizar();
+
+        // Alteração direta no banco: o bucket de 11h não a vê, o fragmento de 9h30 sim
+        jdbc.update("UPDATE ticket SET valor = valor * 10 WHERE vaga IN ('RB1', 'RB2')");
+
+        AgregadoPeriodo agregado = rollupService.agregar(dia.plusHours(9).plusMinutes(30),
+                dia.plusHours(14).plusMinutes(30));
+
+        assertEquals(Map.of("RB1", 1L, "RB2", 1L, "RB3", 1L), agregado.getTicketsPorVaga());
+        assertEquals(2, agregado.getTotalFechados());
+        assertEquals(0, new BigDecimal("128.00").compareTo(agregado.getReceitaTotal()));
+    }
+
+    @Test
+    void limites_dos_buckets_seguem_o_periodo_pedido() {
+        LocalDateTime dia = dia(22);
+        fechado("RC1", dia.plusHours(10), dia.plusHours(10).plusMinutes(30), "8.00");
+        fechado("RC2", dia.plusHours(10).minusSeconds(1), dia.plusHours(10).plusMinutes(30), "8.00");
+        fechado("RC3", dia.plusHours(14).minusSeconds(1), dia.plusHours(15), "8.00");
+        fechado("RC4", dia.plusHours(14), dia.plusHours(15), "8.00");
+        fechado("RC5", dia.plusHours(14).plusSeconds(1), dia.plusHours(15), "8.00");
+        rollupService.atualizar();
+
+        assertBucket(GranularidadeRollup.HORA, dia.plusHours(10), "RC1", 1, 1, "8.00");
+        assertBucket(GranularidadeRollup.HORA, dia.plusHours(9), "RC2", 1, 1, "8.00");
+        assertBucket(GranularidadeRollup.HORA, dia.plusHours(13), "RC3", 1, 1, "8.00");
+
+        // Início incluído pelo bucket de 10h, fim incluído pelo fragmento de 14h
+        AgregadoPeriodo agregado = rollupService.agregar(dia.plusHours(10), dia.plusHours(14));
+        assertEquals(Map.of("RC1", 1L, "RC3", 1L, "RC4", 1L), agregado.getTicketsPorVaga());
+        assertEquals(0, new BigDecimal("24.00").compareTo(agregado.getReceitaTotal()));
+    }
+
+    @Test
+    void fechamento_depois_da_marca_conta_uma_vez_so() {
+        LocalDateTime dia = dia(23);
+        Ticket ticket = aberto("RD1", dia.plusHours(11));
+        rollupService.atualizar();
+        AgregadoPeriodo aberto = rollupService.agregar(dia.plusHours(10), dia.plusHours(13));
+        assertEquals(Map.of("RD1", 1L), aberto.getTicketsPorVaga());
+        assertEquals(0, aberto.getTotalFechados());
+
+        // Fecha depois da marca: o bucket da entrada ainda não tem o fechamento
+        ticket.setStatus(TicketStatus.FECHADO);
+        ticket.setSaida(LocalDateTime.now().minusSeconds(60));
+        ticket.setValor(new BigDecimal("30.00"));
+        ticketRepository.save(ticket);
+        assertFechados(dia, 1, "30.00");
+
+        // Quando a marca passa do fechamento ele sai do bucket, sem contar duas vezes
+        Object margem = ReflectionTestUtils.getField(rollupService, "margemSegundos");
+        ReflectionTestUtils.setField(rollupService, "margemSegundos", 0L);
+        try {
+            rollupService.atualizar();
+        } finally {
+            ReflectionTestUtils.setField(rollupService, "margemSegundos", margem);
+        }
+        assertBucket(GranularidadeRollup.HORA, dia.plusHours(11), "RD1", 1, 1, "30.00");
+        assertFechados(dia, 1, "30.00");
+    }
+
+    @Test
+    void ticket_tardio_atras_da_marca_so_entra_pelos_retroativos() {
+        LocalDateTime dia = dia(24);
+        rollupService.atualizar();
+
+        // Gravado atrás da marca sem passar pelo rollup: os buckets não o veem
+        fechado("RE1", dia.plusHours(11), dia.plusHours(11).plusMinutes(30), "8.00");
+        assertFalse(rollupService.agregar(dia.plusHours(10), dia.plusHours(13))
+                .getTicketsPorVaga().containsKey("RE1"));
+        // Um período sem hora inteira é só fragmento e lê a tabela de tickets
+        assertEquals(Map.of("RE1", 1L), rollupService.agregar(dia.plusHours(10).plusMinutes(45),
+                dia.plusHours(11).plusMinutes(15)).getTicketsPorVaga());
+
+        // Lote retroativo (ex.: replay dos portões) soma direto nos buckets
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Ticket tardio = fechado("RE2", dia.plusHours(12), dia.plusHours(12).plusMinutes(30), "10.00");
+            rollupService.registrarRetroativos(List.of(tardio), List.of(tardio));
+        });
+        assertBucket(GranularidadeRollup.HORA, dia.plusHours(12), "RE2", 1, 1, "10.00");
+        assertBucket(GranularidadeRollup.DIA, dia, "RE2", 1, 1, "10.00");
+        AgregadoPeriodo agregado = rollupService.agregar(dia.plusHours(10), dia.plusHours(13));
+        assertEquals(1L, agregado.getTicketsPorVaga().get("RE2"));
+        assertEquals(0, new BigDecimal("10.00").compareTo(agregado.getReceitaTotal()));
+    }
+
+    private void assertFechados(LocalDateTime dia, long fechados, String receita) {
+        AgregadoPeriodo agregado = rollupService.agregar(dia.plusHours(10), dia.plusHours(13));
+        assertEquals(fechados, agregado.getTotalFechados());
+        assertEquals(0, new BigDecimal(receita).compareTo(agregado.getReceitaTotal()));
+    }
+
+    private void assertBucket(GranularidadeRollup granularidade, LocalDateTime inicio, String vaga,
+                              long tickets, long fechados, String receita) {
+        TicketRollup bucket = rollupRepository.findByGranularidadeAndInicioIn(granularidade, List.of(inicio)).stream()
+                .filter(b -> b.getVaga().equals(vaga))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("sem bucket " + granularidade + " " + inicio + " " + vaga));
+        assertEquals(tickets, bucket.getQuantidadeTickets());
+        assertEquals(fechados, bucket.getQuantidadeFechados());
+        assertEquals(0, new BigDecimal(receita).compareTo(bucket.getReceita()));
+    }
+
+    private Ticket fechado(String vaga, LocalDateTime entrada, LocalDateTime saida, String valor) {
+        return ticketRepository.save(Ticket.builder().veiculo(veiculo).vaga(vaga).entrada(entrada).saida(saida)
+                .valor(new BigDecimal(valor)).status(TicketStatus.FECHADO).build());
+    }
+
+    private Ticket aberto(String vaga, LocalDateTime entrada) {
+        return ticketRepository.save(Ticket.builder().veiculo(veiculo).vaga(vaga).entrada(entrada)
+                .status(TicketStatus.ABERTO).build());
+    }
+
+    private static LocalDateTime dia(int diasAtras) {
+        return LocalDateTime.now().minusDays(diasAtras).truncatedTo(ChronoUnit.DAYS);
+    }
+}
@@ -0,0 +1,77 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.Ticket;
+import br.edu.fiap.soa.estacionamento.service.RelatorioService;
+import br.edu.fiap.soa.estacionamento.service.TicketService;
+import br.edu.fiap.soa.estacionamento.web.dto.RelatorioReceitaDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Dois H2 na memória: "escrita" faz o papel do banco principal e "leitura"
+ * o da réplica, com o mesmo esquema e dados diferentes para mostrar de onde
+ * cada consulta leu.
+ */
+@SpringBootTest(properties = {
+        "estacionamento.leitura.datasource.url=jdbc:h2:mem:leitura;MODE=Oracle;DB_CLOSE_DELAY=-1",
+        "estacionamento.leitura.datasource.username=sa",
+        "estacionamento.leitura.datasource.hikari.maximum-pool-size=2"
+})
+public class RoteamentoLeituraTest extends BaseIntegracao {
+
+    @Autowired TicketService ticketService;
+    @Autowired RelatorioService relatorioService;
+    @Autowired @Qualifier("dataSourceEscrita") DataSource escrita;
+    @Autowired @Qualifier("dataSourceLeitura") DataSource leitura;
+
+    @Test
+    void relatorios_e_exportacoes_leem_da_replica_e_portoes_do_principal() {
+        JdbcTemplate principal = new JdbcTemplate(escrita);
+        JdbcTemplate replica = new JdbcTemplate(leitura);
+        // A "replicação" aqui é só o esquema; os dados de cada lado são distintos
+        for (String comando : principal.queryForList("SCRIPT NODATA", String.class)) {
+            replica.execute(comando);
+        }
+        salvarConfiguracao(10);
+
+        LocalDateTime inicio = LocalDateTime.now().minusHours(1);
+        Ticket fechado = ticketService.checkIn("ROT-0001", null, null, "R1", null);
+        ticketService.checkOut(fechado.getId());
+        Ticket aberto = ticketService.checkIn("ROT-0002", null, null, "R2", null);
+        assertEquals(2, principal.queryForObject("SELECT COUNT(*) FROM ticket", Integer.class));
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM ticket", Integer.class));
+        // Leitura sem a marca continua no principal (lê o que acabou de gravar)
+        assertEquals(aberto.getId(), ticketService.obter(aberto.getId()).getId());
+
+        replica.update("INSERT INTO veiculo (id, placa, data_cadastro) VALUES (900, 'REP-0900', ?)", Timestamp.valueOf(inicio));
+        replica.update("INSERT INTO ticket (id, veiculo_id, vaga, entrada, saida, valor, status, tipo_tarifa) " +
+                "VALUES (900, 900, 'X9', ?, ?, 42.00, 'FECHADO', 'HORARIA')",
+                Timestamp.valueOf(inicio.plusMinutes(10)), Timestamp.valueOf(inicio.plusMinutes(40)));
+        replica.update("INSERT INTO ticket (id, veiculo_id, vaga, entrada, status, tipo_tarifa) " +
+                "VALUES (901, 900, 'X8', ?, 'ABERTO', 'HORARIA')", Timestamp.valueOf(inicio.plusMinutes(20)));
+
+        RelatorioReceitaDTO receita = relatorioService.getRelatorioReceita(inicio, LocalDateTime.now().plusHours(1));
+        assertEquals(0, new BigDecimal("42.00").compareTo(receita.getReceitaTotal()));
+        assertEquals(1, receita.getTotalTickets());
+
+        List<Long> exportados = new ArrayList<>();
+        ticketService.exportarAbertos(t -> exportados.add(t.getId()));
+        assertEquals(List.of(901L), exportados);
+
+        // O check-out seguinte ainda grava no principal
+        ticketService.checkOut(aberto.getId());
+        assertEquals(2, principal.queryForObject("SELECT COUNT(*) FROM ticket WHERE status = 'FECHADO'", Integer.class));
+    }
+}
@@ -0,0 +1,61 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.domain.ConfiguracaoSnapshot;
+import br.edu.fiap.soa.estacionamento.domain.TipoTarifa;
+import br.edu.fiap.soa.estacionamento.service.TabelaTarifas;
+import br.edu.fiap.soa.estacionamento.service.TarifaService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TabelaTarifasTest {
+
+    private static final ConfiguracaoSnapshot CONFIG = new ConfiguracaoSnapshot(1, 100,
+            new BigDecimal("4.00"), new BigDecimal("8.50"), new BigDecimal("30.00"), new BigDecimal("200.00"));
+
+    private final TarifaService referencia = new TarifaService(null);
+
+    @Test
+    void mesmo_resultado_do_calculo_em_bigdecimal() {
+        TabelaTarifas tabela = TabelaTarifas.compilar(CONFIG);
+        assertNotNull(tabela);
+
+        Random random = new Random(42);
+        LocalDateTime entrada = LocalDateTime.of(2025, 9, 1, 7, 13, 21, 123_000_000);
+        for (int i = 0; i < 200_000; i++) {
+            // Até 10 dias, com precisão de nanos e alguns casos negativos
+            long nanos = (long) (random.nextDouble() * 10 * 24 * 3600 * 1e9) - 60_000_000_000L;
+            LocalDateTime saida = entrada.plusNanos(nanos);
+            for (TipoTarifa tipo : TipoTarifa.values()) {
+                BigDecimal esperado = referencia.calcularValorDecimal(CONFIG, entrada, saida, tipo);
+                BigDecimal obtido = tabela.calcular(entrada, saida, tipo);
+                assertEquals(0, esperado.compareTo(obtido), tipo + " " + entrada + " -> " + saida);
+            }
+        }
+    }
+
+    @Test
+    void limites_de_fracao_hora_e_dia() {
+        TabelaTarifas tabela = TabelaTarifas.compilar(CONFIG);
+        LocalDateTime entrada = LocalDateTime.of(2025, 9, 1, 8, 0);
+        int[] minutos = {0, 1, 29, 30, 31, 59, 60, 61, 119, 120, 23 * 60 + 59, 24 * 60, 24 * 60 + 1, 49 * 60};
+        for (int m : minutos) {
+            LocalDateTime saida = entrada.plusMinutes(m);
+            for (TipoTarifa tipo : TipoTarifa.values()) {
+                assertEquals(0, referencia.calcularValorDecimal(CONFIG, entrada, saida, tipo)
+                        .compareTo(tabela.calcular(entrada, saida, tipo)), tipo + " " + m + "min");
+            }
+        }
+    }
+
+    @Test
+    void nao_compila_tarifas_com_mais_de_dois_decimais() {
+        ConfiguracaoSnapshot fracionada = new ConfiguracaoSnapshot(2, 100,
+                new BigDecimal("4.005"), new BigDecimal("8.00"), new BigDecimal("30.00"), new BigDecimal("200.00"));
+        assertNull(TabelaTarifas.compilar(fracionada));
+    }
+}
@@ -1,32 +1,42 @@
 package br.edu.fiap.soa.estacionamento;
 
+import br.edu.fiap.soa.estacionamento.domain.EstacionamentoConfig;
+import br.edu.fiap.soa.estacionamento.repository.EstacionamentoConfigRepository;
+import br.edu.fiap.soa.estacionamento.service.ConfiguracaoCache;
 import br.edu.fiap.soa.estacionamento.service.TicketService;
 import br.edu.fiap.soa.estacionamento.service.TarifaService;
-import br.edu.fiap.soa.estacionamento.domain.TipoTarifa;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class TicketServiceTest {
 
+    // O cálculo legado usa a tarifa HORARIA da configuração ativa
+    private static TicketService comTarifaHora(String tarifaHora) {
+        EstacionamentoConfigRepository configRepository = Mockito.mock(EstacionamentoConfigRepository.class);
+        Mockito.when(configRepository.findActiveConfig()).thenReturn(Optional.of(EstacionamentoConfig.builder()
+                .id(1L).totalVagas(10).tarifa30Min(new BigDecimal("4.00")).tarifaHora(new BigDecimal(tarifaHora))
+                .tarifaDiaria(new BigDecimal("30.00")).tarifaMensal(new BigDecimal("200.00")).build()));
+        TarifaService tarifaService = new TarifaService(new ConfiguracaoCache(configRepository));
+        return new TicketService(null, null, null, null, tarifaService, null, null, null, null, null, null, null, null);
+    }
+
     @Test
     void calcula_valor_minimo_1h() {
-        // Criando um TicketService para teste com mocks
-        TicketService svc = new TicketService(null, null, null, null, null);
-        svc.setHourlyRate(new BigDecimal("10.00"));
+        TicketService svc = comTarifaHora("10.00");
         BigDecimal v = svc.calcularValor(LocalDateTime.now(), LocalDateTime.now());
         assertEquals(new BigDecimal("10.00"), v);
     }
 
     @Test
     void arredonda_para_cima() {
-        // Criando um TicketService para teste com mocks
-        TicketService svc = new TicketService(null, null, null, null, null);
-        svc.setHourlyRate(new BigDecimal("8.00"));
-        BigDecimal v1 = svc.calcularValor(LocalDateTime.now().minusMinutes(30), LocalDateTime.now());
-        BigDecimal v2 = svc.calcularValor(LocalDateTime.now().minusMinutes(61), LocalDateTime.now());
+        TicketService svc = comTarifaHora("8.00");
+        LocalDateTime saida = LocalDateTime.now();
+        BigDecimal v1 = svc.calcularValor(saida.minusMinutes(30), saida);
+        BigDecimal v2 = svc.calcularValor(saida.minusMinutes(61), saida);
         assertEquals(new BigDecimal("8.00"), v1);  // 30min -> 1h
         assertEquals(new BigDecimal("16.00"), v2); // 61min -> 2h
     }
@@ -0,0 +1,82 @@
+package br.edu.fiap.soa.estacionamento;
+
+import br.edu.fiap.soa.estacionamento.service.LoteEventosService;
+import br.edu.fiap.soa.estacionamento.web.dto.EventoPortaoRequest;
+import br.edu.fiap.soa.estacionamento.web.dto.EventoPortaoRequest.Tipo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "estacionamento.ocupacao.stream.intervalo-ms=300")
+public class TransmissaoOcupacaoTest extends BaseIntegracao {
+
+    @LocalServerPort int porta;
+    @Autowired LoteEventosService loteEventos;
+    @Autowired ObjectMapper objectMapper;
+
+    @Test
+    void agrupa_mudancas_num_evento_e_avisa_lotacao() throws Exception {
+        salvarConfiguracao(5);
+        BlockingQueue<String> linhas = new LinkedBlockingQueue<>();
+        HttpClient.newHttpClient().sendAsync(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/api/estacionamento/status/stream")).build(),
+                HttpResponse.BodyHandlers.ofLines())
+                .thenAccept(resposta -> resposta.body().forEach(linhas::add));
+
+        JsonNode inicial = proximo(linhas, "ocupacao").dados();
+        assertEquals(0, inicial.get("vagasOcupadas").asLong());
+        assertFalse(inicial.get("lotado").asBoolean());
+
+        // Cinco entradas numa transação: cinco avisos do contador, um único evento
+        loteEventos.processar(IntStream.rangeClosed(1, 5).mapToObj(i -> EventoPortaoRequest.builder()
+                .tipo(Tipo.ENTRADA).placa("SSE-000" + i).vaga("S" + i).build()).toList());
+
+        List<JsonNode> eventos = new ArrayList<>();
+        Evento evento;
+        do {
+            evento = proximo(linhas, null);
+            eventos.add(evento.dados());
+        } while (!"lotacao".equals(evento.nome()));
+        JsonNode ultimo = evento.dados();
+
+        JsonNode cheio = eventos.get(eventos.size() - 2);
+        assertEquals(5, cheio.get("vagasOcupadas").asLong());
+        assertEquals(5, cheio.get("variacao").asLong());
+        assertTrue(cheio.get("lotado").asBoolean());
+        assertEquals(cheio, ultimo);
+        assertTrue(eventos.stream().limit(eventos.size() - 2).allMatch(e -> e.get("vagasOcupadas").asLong() == 0),
+                "Sem estados intermediários entre 0 e 5 vagas ocupadas");
+    }
+
+    private record Evento(String nome, JsonNode dados) { }
+
+    /** Lê o próximo evento SSE, opcionalmente de um nome específico */
+    private Evento proximo(BlockingQueue<String> linhas, String nome) throws Exception {
+        String evento = null;
+        while (true) {
+            String linha = linhas.poll(10, TimeUnit.SECONDS);
+            assertNotNull(linha, "Nenhum evento recebido");
+            if (linha.startsWith("event:")) {
+                evento = linha.substring("event:".length());
+            } else if (linha.startsWith("data:") && (nome == null || nome.equals(evento))) {
+                return new Evento(evento, objectMapper.readTree(linha.substring("data:".length())));
+            }
+        }
+    }
+}